@@ -0,0 +1,71 @@
+package banking;
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares reading a command file line by line through Scanner, as
+ * interactive mode does, with batch mode. The file opens a set of accounts
+ * and then alternates deposits and withdrawals against them. Output is
+ * discarded so that only reading and processing are timed.
+ *
+ * Usage: java banking.BatchBenchmark [commands]
+ */
+public class BatchBenchmark {
+    private static final int HOLDERS = 10_000;
+    private static final int ROUNDS = 3;
+
+    /**
+     * Writes the command file and times each mode a few times.
+     *
+     * @param args optional number of deposit and withdrawal commands
+     * @throws IOException if the command file cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        int commands = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Path path = Files.createTempFile("commands", ".txt");
+        try (BufferedWriter out = Files.newBufferedWriter(path)) {
+            for (int i = 0; i < HOLDERS; i++) {
+                out.write("O C First" + i + " Last" + i + " 1/1/1990 1000\n");
+            }
+            long seed = 42;
+            for (int i = 0; i < commands; i++) {
+                seed = seed * 6364136223846793005L + 1442695040888963407L;
+                int holder = (int) ((seed >>> 33) % HOLDERS);
+                out.write(((i & 1) == 0 ? "D" : "W") + " C First" + holder + " Last" + holder + " 1/1/1990 1.25\n");
+            }
+            out.write("Q\n");
+        }
+        InputStream in = System.in;
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                try (FileInputStream file = new FileInputStream(path.toFile())) {
+                    System.setIn(file);
+                    new TransactionManager().run();
+                }
+                long scanner = System.nanoTime() - start;
+                start = System.nanoTime();
+                try (FileChannel file = FileChannel.open(path)) {
+                    new TransactionManager().runBatch(file);
+                }
+                long batch = System.nanoTime() - start;
+                console.printf("round %d: scanner %,6d ms, batch %,6d ms%n", round, scanner / 1_000_000,
+                        batch / 1_000_000);
+            }
+        } finally {
+            System.setIn(in);
+            System.setOut(console);
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package banking;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures deposit and withdrawal throughput when every thread hits the same
+ * money market account of a ConcurrentAccountDatabase, and checks that no
+ * update was lost: the final balance and withdrawal count must match the
+ * operations that reported success.
+ *
+ * Usage: java banking.ContentionBenchmark [operationsPerThread]
+ */
+public class ContentionBenchmark {
+
+    /**
+     * Runs the benchmark for 1, 2, 4, ... threads up to twice the number of
+     * available processors.
+     *
+     * @param args optional number of operations per thread
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int maxThreads = 2 * Runtime.getRuntime().availableProcessors();
+        Profile holder = new Profile("Roy", "Brooks", new Date("10/31/1979"));
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ConcurrentAccountDatabase database = new ConcurrentAccountDatabase();
+            MoneyMarket account = new MoneyMarket(holder, 5000, 0);
+            database.open(account);
+            long[] withdrawn = new long[threads];
+            CountDownLatch done = new CountDownLatch(threads);
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                new Thread(() -> {
+                    for (int i = 0; i < operations; i++) {
+                        if ((i & 1) == 0) {
+                            database.deposit(new MoneyMarket(holder, 1, 0));
+                        } else if (database.withdraw(new MoneyMarket(holder, 2, 0))) {
+                            withdrawn[id]++;
+                        }
+                    }
+                    done.countDown();
+                }).start();
+            }
+            done.await();
+            long elapsed = System.nanoTime() - start;
+            long successes = 0;
+            for (long count : withdrawn) {
+                successes += count;
+            }
+            long expected = 500_000 + (long) threads * (operations / 2) * 100 - successes * 200;
+            System.out.printf("threads %3d: %,14d ops/s, balance %s (expected %s), withdrawals %d (expected %d)%n",
+                    threads, (long) threads * operations * 1_000_000_000L / elapsed,
+                    Money.format(account.getBalanceCents()), Money.format(expected), account.getWithdrawals(),
+                    successes);
+        }
+    }
+}
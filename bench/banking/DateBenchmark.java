@@ -0,0 +1,69 @@
+package banking;
+
+import java.util.Calendar;
+
+/**
+ * Compares the cost of the date of birth and age checks made by every
+ * open, close, deposit and withdrawal: reading today's date from a new
+ * Calendar, as Date used to, and from a cached DateClock.
+ *
+ * Usage: java banking.DateBenchmark [checks]
+ */
+public class DateBenchmark {
+    private static final int ROUNDS = 5;
+
+    /**
+     * Runs each check a number of times and prints nanoseconds per check.
+     *
+     * @param args optional number of checks per round
+     */
+    public static void main(String[] args) {
+        int checks = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Date[] dobs = { new Date("2/19/2000"), new Date("10/1/2008"), new Date("1/15/1987"), new Date("8/31/2001") };
+        DateClock clock = DateClock.system();
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < checks; i++) {
+                sink += calendarCheck(dobs[i & 3]);
+            }
+            long calendarNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < checks; i++) {
+                Date dob = dobs[i & 3];
+                Date today = clock.today();
+                sink += dob.compareTo(today) < 0 ? dob.getAge(today) : 0;
+            }
+            long clockNanos = System.nanoTime() - start;
+            System.out.printf("round %d: calendar %6.1f ns/check, clock %6.1f ns/check%n", round,
+                    (double) calendarNanos / checks, (double) clockNanos / checks);
+        }
+        System.out.println(sink == 42 ? "" : "done");
+    }
+
+    /**
+     * Checks a date of birth the way Date and TransactionManager did before
+     * DateClock: one Calendar for the future-date check and one for the age.
+     *
+     * @param dob the date of birth
+     * @return the age, or 0 for a date in the future
+     */
+    private static int calendarCheck(Date dob) {
+        Calendar now = Calendar.getInstance();
+        int year = now.get(Calendar.YEAR);
+        int month = now.get(Calendar.MONTH) + 1;
+        int day = now.get(Calendar.DAY_OF_MONTH);
+        if (dob.getYear() > year || (dob.getYear() == year && (dob.getMonth() > month
+                || (dob.getMonth() == month && dob.getDay() >= day)))) {
+            return 0;
+        }
+        Calendar again = Calendar.getInstance();
+        int age = again.get(Calendar.YEAR) - dob.getYear();
+        if (again.get(Calendar.MONTH) + 1 < dob.getMonth()
+                || (again.get(Calendar.MONTH) + 1 == dob.getMonth()
+                        && again.get(Calendar.DAY_OF_MONTH) < dob.getDay())) {
+            age--;
+        }
+        return age;
+    }
+}
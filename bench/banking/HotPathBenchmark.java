@@ -0,0 +1,284 @@
+package banking;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Times the hot paths of AccountDatabase and TransactionManager: contains,
+ * open, close, deposit, withdraw, walking the sorted accounts, the P, PI
+ * and UB reports, and whole commands through runBatch. Every path is run
+ * for each database size and account type mix, warmed up first, and
+ * reported in nanoseconds and bytes allocated per operation; reports count
+ * one operation per row. Allocation is read from the thread's allocation
+ * counter, so it includes garbage that never reaches a collection.
+ *
+ * The mixes are "checking", where every holder has a checking account, and
+ * "mixed", where holders cycle through the four account types.
+ *
+ * Usage: java banking.HotPathBenchmark [sizes] [mixes]
+ * where sizes and mixes are comma-separated, 1000,100000,1000000 and
+ * checking,mixed by default.
+ */
+public class HotPathBenchmark {
+    private static final int OPERATIONS = 1_000_000;
+    private static final int COMMANDS = 200_000;
+    private static final int CHURN = 10_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final double BALANCE = 2500;
+    private static final OutputSink DISCARD = new OutputSink(OutputStream.nullOutputStream());
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * A piece of work, which times the part of it that is measured.
+     */
+    @FunctionalInterface
+    private interface Task {
+        /**
+         * Runs the work once.
+         *
+         * @param timer the timer to start and stop around the measured part
+         * @return the number of operations measured
+         * @throws IOException if the work reads commands and they cannot be read
+         */
+        long run(Timer timer) throws IOException;
+    }
+
+    /**
+     * Adds up the time and allocation between starts and stops.
+     */
+    private static final class Timer {
+        private long elapsed; // nanoseconds measured
+        private long allocated; // bytes allocated while measuring
+        private long startTime;
+        private long startAllocated;
+
+        /**
+         * Starts measuring.
+         */
+        void start() {
+            startAllocated = THREADS.getCurrentThreadAllocatedBytes();
+            startTime = System.nanoTime();
+        }
+
+        /**
+         * Stops measuring.
+         */
+        void stop() {
+            elapsed += System.nanoTime() - startTime;
+            allocated += THREADS.getCurrentThreadAllocatedBytes() - startAllocated;
+        }
+    }
+
+    private static long sink; // consumed results, so the JIT keeps the work
+
+    /**
+     * Runs every path for every size and mix.
+     *
+     * @param args optional sizes and mixes, comma-separated
+     * @throws IOException if the commands cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        String[] sizes = (args.length > 0 ? args[0] : "1000,100000,1000000").split(",");
+        String[] mixes = (args.length > 1 ? args[1] : "checking,mixed").split(",");
+        System.out.printf("%10s %-9s %-10s %10s %10s%n", "accounts", "mix", "path", "ns/op", "B/op");
+        for (String size : sizes) {
+            for (String mix : mixes) {
+                run(Integer.parseInt(size), mix.equals("mixed"));
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Runs every path against one database.
+     *
+     * @param size  the number of accounts
+     * @param mixed true to cycle through the four account types
+     * @throws IOException if the commands cannot be read
+     */
+    private static void run(int size, boolean mixed) throws IOException {
+        String mix = mixed ? "mixed" : "checking";
+        AccountType[] types = new AccountType[size];
+        Profile[] holders = new Profile[size];
+        Account[] probes = new Account[size];
+        AccountDatabase database = new AccountDatabase();
+        Date dob = new Date("1/1/1990");
+        for (int i = 0; i < size; i++) {
+            types[i] = mixed ? AccountType.of(i % Constants.ACCOUNT_TYPES) : AccountType.CHECKING;
+            holders[i] = new Profile("First" + i, "Last" + i, dob);
+            probes[i] = types[i].newAccount(holders[i], 0, 0);
+            database.open(types[i].newAccount(holders[i], BALANCE, 0));
+        }
+        byte[] commands = commands(types, holders);
+
+        report(size, mix, "contains", timer -> {
+            long seed = 42;
+            long found = 0;
+            timer.start();
+            for (int i = 0; i < OPERATIONS; i++) {
+                seed = next(seed);
+                found += database.contains(probes[pick(seed, size)]) ? 1 : 0;
+            }
+            timer.stop();
+            sink += found;
+            return OPERATIONS;
+        });
+        report(size, mix, "deposit", timer -> {
+            long seed = 42;
+            timer.start();
+            for (int i = 0; i < OPERATIONS; i++) {
+                seed = next(seed);
+                int holder = pick(seed, size);
+                database.deposit(types[holder].newAccount(holders[holder], 1, 0));
+            }
+            timer.stop();
+            return OPERATIONS;
+        });
+        report(size, mix, "withdraw", timer -> {
+            long seed = 43;
+            timer.start();
+            for (int i = 0; i < OPERATIONS; i++) {
+                seed = next(seed);
+                int holder = pick(seed, size);
+                database.withdraw(types[holder].newAccount(holders[holder], 1, 0));
+            }
+            timer.stop();
+            return OPERATIONS;
+        });
+        int churn = Math.min(CHURN, size);
+        report(size, mix, "close", timer -> {
+            timer.start();
+            for (int i = 0; i < churn; i++) {
+                database.close(probes[i]);
+            }
+            timer.stop();
+            reopen(database, types, holders, churn);
+            return churn;
+        });
+        report(size, mix, "open", timer -> {
+            for (int i = 0; i < churn; i++) {
+                database.close(probes[i]);
+            }
+            timer.start();
+            reopen(database, types, holders, churn);
+            timer.stop();
+            return churn;
+        });
+        report(size, mix, "walk", timer -> {
+            long balance = 0;
+            timer.start();
+            for (Account account : database.sortedAccounts()) {
+                balance += account.getBalanceCents();
+            }
+            timer.stop();
+            sink += balance;
+            return size;
+        });
+        report(size, mix, "P", timer -> {
+            timer.start();
+            database.printSorted(DISCARD);
+            timer.stop();
+            return size;
+        });
+        report(size, mix, "PI", timer -> {
+            timer.start();
+            database.printFeesAndInterests(DISCARD);
+            timer.stop();
+            return size;
+        });
+        report(size, mix, "UB", timer -> {
+            timer.start();
+            database.printUpdatedBalances(DISCARD);
+            timer.stop();
+            return size;
+        });
+        report(size, mix, "commands", timer -> {
+            TransactionManager manager = new TransactionManager(database, DISCARD);
+            timer.start();
+            manager.runBatch(Channels.newChannel(new ByteArrayInputStream(commands)));
+            timer.stop();
+            return COMMANDS;
+        });
+    }
+
+    /**
+     * Opens the first accounts again after they were closed.
+     *
+     * @param database the database
+     * @param types    the account type of each holder
+     * @param holders  the holders
+     * @param count    the number of accounts to open
+     */
+    private static void reopen(AccountDatabase database, AccountType[] types, Profile[] holders, int count) {
+        for (int i = 0; i < count; i++) {
+            database.open(types[i].newAccount(holders[i], BALANCE, 0));
+        }
+    }
+
+    /**
+     * Warms up a path, then measures it once and prints a line.
+     *
+     * @param size the number of accounts
+     * @param mix  the name of the account type mix
+     * @param path the name of the path
+     * @param task the work
+     * @throws IOException if the work cannot read its commands
+     */
+    private static void report(int size, String mix, String path, Task task) throws IOException {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            task.run(new Timer());
+        }
+        Timer timer = new Timer();
+        long operations = task.run(timer);
+        System.out.printf("%,10d %-9s %-10s %10.1f %10.1f%n", size, mix, path, (double) timer.elapsed / operations,
+                (double) timer.allocated / operations);
+    }
+
+    /**
+     * Writes deposit and withdrawal commands against random holders.
+     *
+     * @param types   the account type of each holder
+     * @param holders the holders
+     * @return the commands, ending with Q
+     */
+    private static byte[] commands(AccountType[] types, Profile[] holders) {
+        StringBuilder text = new StringBuilder(COMMANDS * 48);
+        long seed = 44;
+        for (int i = 0; i < COMMANDS; i++) {
+            seed = next(seed);
+            int holder = pick(seed, holders.length);
+            text.append((i & 1) == 0 ? "D " : "W ").append(types[holder].getCode()).append(" First").append(holder)
+                    .append(" Last").append(holder).append(" 1/1/1990 1.25\n");
+        }
+        text.append("Q\n");
+        return text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Advances the pseudo-random sequence.
+     *
+     * @param seed the current value
+     * @return the next value
+     */
+    private static long next(long seed) {
+        return seed * 6364136223846793005L + 1442695040888963407L;
+    }
+
+    /**
+     * Picks an index from a pseudo-random value.
+     *
+     * @param seed  the value
+     * @param bound the number of indexes
+     * @return an index below bound
+     */
+    private static int pick(long seed, int bound) {
+        return (int) ((seed >>> 33) % bound);
+    }
+}
@@ -0,0 +1,103 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures durable transactions per second of a JournaledAccountStore for
+ * several numbers of committing threads. Every transaction returns only
+ * once its group has been forced to disk, so one thread forces once per
+ * transaction and more threads share each force. Each thread deposits into
+ * and withdraws from randomly chosen checking accounts. The journal is then
+ * replayed into an empty database to check that it rebuilds the same
+ * balances.
+ *
+ * Usage: java banking.JournalBenchmark [transactions] [directory]
+ */
+public class JournalBenchmark {
+    private static final int HOLDERS = 10_000;
+    private static final int[] THREADS = { 1, 4, 16, 64, 256 };
+
+    /**
+     * Runs the benchmark for each number of threads.
+     *
+     * @param args optional number of transactions per run and directory for
+     *             the journal files
+     * @throws IOException          if a journal cannot be written
+     * @throws InterruptedException if interrupted while waiting for a thread
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int transactions = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Path directory = args.length > 1 ? Path.of(args[1]) : Files.createTempDirectory("journal");
+        Date dob = new Date("1/1/1990");
+        Profile[] holders = new Profile[HOLDERS];
+        for (int i = 0; i < HOLDERS; i++) {
+            holders[i] = new Profile("First" + i, "Last" + i, dob);
+        }
+        for (int threads : THREADS) {
+            Path path = directory.resolve("journal-" + threads);
+            Files.deleteIfExists(path);
+            AccountDatabase database = new AccountDatabase();
+            long elapsed;
+            // Fewer threads share each force, so they run fewer transactions.
+            int count = Math.min(transactions, 2_000 * threads);
+            try (Journal journal = new Journal(path, Constants.JOURNAL_GROUP_SIZE, 0)) {
+                for (Profile holder : holders) {
+                    Account account = new Checking(holder, 1000);
+                    database.open(account);
+                    journal.append(Operation.of(Operation.Kind.OPEN, account, account.getBalanceCents()));
+                }
+                journal.flush();
+                JournaledAccountStore store = new JournaledAccountStore(database, journal);
+                Thread[] committers = new Thread[threads];
+                for (int t = 0; t < threads; t++) {
+                    long seed = 42 + t;
+                    committers[t] = new Thread(() -> run(store, holders, count / threads, seed));
+                }
+                long start = System.nanoTime();
+                for (Thread committer : committers) {
+                    committer.start();
+                }
+                for (Thread committer : committers) {
+                    committer.join();
+                }
+                elapsed = System.nanoTime() - start;
+                System.out.printf("%3d threads: %,12d durable transactions/s%n", threads,
+                        count / threads * threads * 1_000_000_000L / elapsed);
+            }
+            AccountDatabase replayed = new AccountDatabase();
+            Journal.replay(path, replayed);
+            for (Profile holder : holders) {
+                Account expected = database.getAccount(new Checking(holder, 0));
+                Account actual = replayed.getAccount(new Checking(holder, 0));
+                if (actual == null || actual.getBalanceCents() != expected.getBalanceCents()) {
+                    System.out.println("replay mismatch for " + holder.getFname());
+                    break;
+                }
+            }
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Alternates deposits and withdrawals against pseudo-randomly chosen
+     * holders.
+     *
+     * @param store   the store to run against
+     * @param holders the profiles of every account in the store
+     * @param count   the number of transactions
+     * @param seed    the start of the pseudo-random sequence
+     */
+    private static void run(AccountStore store, Profile[] holders, int count, long seed) {
+        for (int i = 0; i < count; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            Profile holder = holders[(int) ((seed >>> 33) % holders.length)];
+            if ((i & 1) == 0) {
+                store.deposit(new Checking(holder, 1));
+            } else {
+                store.withdraw(new Checking(holder, 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package banking;
+
+/**
+ * Measures the per-command latency of AccountDatabase lookups as the number of
+ * accounts grows. Each round fills a database with Checking accounts and then
+ * times deposits and withdrawals against randomly chosen holders.
+ *
+ * Usage: java banking.LookupBenchmark [maxAccounts]
+ */
+public class LookupBenchmark {
+    private static final int OPERATIONS = 1_000_000;
+    private static final int WARMUP_ROUNDS = 3;
+
+    /**
+     * Runs the benchmark for database sizes of 1k up to the given maximum,
+     * growing by a factor of ten each round.
+     *
+     * @param args optional maximum number of accounts, 10,000,000 by default
+     */
+    public static void main(String[] args) {
+        int maxAccounts = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Date dob = new Date("1/1/1990");
+        for (int size = 1_000; size <= maxAccounts; size *= 10) {
+            AccountDatabase database = new AccountDatabase();
+            Profile[] holders = new Profile[size];
+            for (int i = 0; i < size; i++) {
+                holders[i] = new Profile("First" + i, "Last" + i, dob);
+                database.open(new Checking(holders[i], 1000));
+            }
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                runOperations(database, holders);
+            }
+            long elapsed = runOperations(database, holders);
+            System.out.printf("%,12d accounts: %8.1f ns/command%n", size, (double) elapsed / OPERATIONS);
+        }
+    }
+
+    /**
+     * Alternates deposits and withdrawals against pseudo-randomly chosen
+     * holders.
+     *
+     * @param database the database to run against
+     * @param holders  the profiles of every account in the database
+     * @return the elapsed time in nanoseconds
+     */
+    private static long runOperations(AccountDatabase database, Profile[] holders) {
+        long seed = 42;
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            Profile holder = holders[(int) ((seed >>> 33) % holders.length)];
+            if ((i & 1) == 0) {
+                database.deposit(new Checking(holder, 1));
+            } else {
+                database.withdraw(new Checking(holder, 1));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,46 @@
+package banking;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how long it takes to post the month end of a book of accounts.
+ * The book is a ColumnarAccountDatabase holding an even mix of the four
+ * account types, four accounts per holder. Posting runs on the common
+ * ForkJoinPool; run the benchmark once per core count with
+ * -Djava.util.concurrent.ForkJoinPool.common.parallelism=N to see how it
+ * scales. A 50M-account book needs about -Xmx16g.
+ *
+ * Usage: java banking.MonthEndBenchmark [accounts]
+ */
+public class MonthEndBenchmark {
+    private static final int ROUNDS = 5;
+
+    /**
+     * Fills a book, then posts the month end a number of times and prints
+     * the time per posting and per account.
+     *
+     * @param args optional number of accounts
+     */
+    public static void main(String[] args) {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 50_000_000;
+        Date dob = new Date("1/1/1990");
+        ColumnarAccountDatabase book = new ColumnarAccountDatabase();
+        for (int i = 0; i < accounts; i++) {
+            Profile holder = new Profile("First" + (i >> 2), "Last" + (i >> 2), dob);
+            switch (i & 3) {
+                case 0 -> book.open(new Checking(holder, 1000 + i % 1000));
+                case 1 -> book.open(new Savings(holder, 600, (i >> 2) & 1));
+                case 2 -> book.open(new MoneyMarket(holder, 1500 + i % 1000, 0));
+                default -> book.open(new CollegeChecking(new Profile("Student" + i, "Last", dob), 50, i % 3));
+            }
+        }
+        System.out.printf("%,d accounts, parallelism %d%n", accounts, ForkJoinPool.getCommonPoolParallelism());
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            book.postMonthEnd();
+            long nanos = System.nanoTime() - start;
+            System.out.printf("round %d: %,8d ms, %5.2f ns/account%n", round, nanos / 1_000_000,
+                    (double) nanos / accounts);
+        }
+    }
+}
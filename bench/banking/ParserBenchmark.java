@@ -0,0 +1,107 @@
+package banking;
+
+import java.lang.management.ManagementFactory;
+import java.util.StringTokenizer;
+
+/**
+ * Compares the time and memory it takes to parse command lines with
+ * StringTokenizer, new Date(String) and Double.parseDouble, as
+ * TransactionManager used to, and with CommandParser. Both sides extract
+ * every field of an open command, including the two names as strings.
+ *
+ * Usage: java banking.ParserBenchmark [lines]
+ */
+public class ParserBenchmark {
+    private static final String[] LINES = {
+            "O C John Doe 2/19/2000 599.99",
+            "O CC Jane Doe 10/1/2000 999.99 0",
+            "O S april march 1/15/1987 1500 1",
+            "D MM Roy Brooks 10/31/1979 100.99",
+            "W C Kate Lindsey 8/31/2001 20.5" };
+    private static final String[] COMMANDS = { "O", "D", "W" };
+    private static final String[] TYPES = { "C", "CC", "S", "MM" };
+    private static final int ROUNDS = 5;
+
+    /**
+     * Runs each parser over the sample lines a number of times and prints
+     * nanoseconds and bytes allocated per line.
+     *
+     * @param args optional number of lines to parse per round
+     */
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        CommandParser parser = new CommandParser();
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long bytes = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for (int i = 0; i < lines; i++) {
+                sink += tokenizer(LINES[i % LINES.length]);
+            }
+            long tokenizerNanos = System.nanoTime() - start;
+            long tokenizerBytes = threads.getThreadAllocatedBytes(thread) - bytes;
+            bytes = threads.getThreadAllocatedBytes(thread);
+            start = System.nanoTime();
+            for (int i = 0; i < lines; i++) {
+                sink += cursor(parser, LINES[i % LINES.length]);
+            }
+            long cursorNanos = System.nanoTime() - start;
+            long cursorBytes = threads.getThreadAllocatedBytes(thread) - bytes;
+            System.out.printf("round %d: tokenizer %6.1f ns %5d B/line, cursor %6.1f ns %5d B/line%n", round,
+                    (double) tokenizerNanos / lines, tokenizerBytes / lines, (double) cursorNanos / lines,
+                    cursorBytes / lines);
+        }
+        System.out.println(sink == 42 ? "" : "done");
+    }
+
+    /**
+     * Parses a line the way TransactionManager did before CommandParser.
+     *
+     * @param line the command line
+     * @return a value derived from every field, so none is optimized away
+     */
+    private static long tokenizer(String line) {
+        StringTokenizer tokens = new StringTokenizer(line);
+        String command = tokens.nextToken();
+        String type = tokens.nextToken();
+        String fname = tokens.nextToken();
+        String lname = tokens.nextToken();
+        Date dob = new Date(tokens.nextToken());
+        double amount = Double.parseDouble(tokens.nextToken());
+        int code = tokens.hasMoreTokens() ? Integer.parseInt(tokens.nextToken()) : 0;
+        return command.length() + type.length() + fname.length() + lname.length() + dob.getYear()
+                + (long) amount + code;
+    }
+
+    /**
+     * Parses a line with CommandParser.
+     *
+     * @param parser the parser to reuse
+     * @param line   the command line
+     * @return a value derived from every field, so none is optimized away
+     */
+    private static long cursor(CommandParser parser, String line) {
+        parser.reset(line);
+        parser.next();
+        int command = parser.match(COMMANDS) == null ? 0 : 1;
+        parser.next();
+        int type = parser.match(TYPES) == null ? 0 : 1;
+        parser.next();
+        String fname = parser.token();
+        parser.next();
+        String lname = parser.token();
+        parser.next();
+        Date dob = parser.parseDate();
+        parser.next();
+        double amount = parser.parseDouble();
+        int code = 0;
+        if (parser.hasNext()) {
+            parser.next();
+            code = parser.parseInt();
+        }
+        return command + type + fname.length() + lname.length() + dob.getYear() + (long) amount + code;
+    }
+}
@@ -0,0 +1,61 @@
+package banking;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compares runBatch with runPipelined on a stream from WorkloadGenerator,
+ * for 1 up to the given number of parser threads. Each mode processes the
+ * stream into a fresh AccountDatabase a few times, and its output is
+ * checked byte for byte against runBatch's.
+ *
+ * Usage: java banking.PipelineBenchmark [commands] [maxParsers]
+ */
+public class PipelineBenchmark {
+    private static final int ROUNDS = 3;
+
+    /**
+     * Generates the stream and times each mode.
+     *
+     * @param args optional number of commands and largest parser count
+     * @throws IOException if the stream cannot be processed
+     */
+    public static void main(String[] args) throws IOException {
+        long commands = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int maxParsers = args.length > 1 ? Integer.parseInt(args[1])
+                : Math.max(2, Runtime.getRuntime().availableProcessors() - 2);
+        StringWriter text = new StringWriter();
+        new WorkloadGenerator(10_000, commands, new double[] { 40, 10, 20, 30 }, 0.99, 0.01, 100_000, 0.01, 42)
+                .write(text);
+        byte[] input = text.toString().getBytes(StandardCharsets.US_ASCII);
+        byte[] expected = null;
+        for (int parsers = 0; parsers <= maxParsers; parsers++) {
+            long best = Long.MAX_VALUE;
+            boolean same = true;
+            for (int round = 0; round < ROUNDS; round++) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(input.length);
+                TransactionManager manager = new TransactionManager(new AccountDatabase(),
+                        new OutputSink(out, OutputSink.FlushPolicy.WHEN_FULL));
+                long start = System.nanoTime();
+                if (parsers == 0) {
+                    manager.runBatch(Channels.newChannel(new ByteArrayInputStream(input)));
+                } else {
+                    manager.runPipelined(Channels.newChannel(new ByteArrayInputStream(input)), parsers);
+                }
+                best = Math.min(best, System.nanoTime() - start);
+                if (expected == null) {
+                    expected = out.toByteArray();
+                }
+                same &= Arrays.equals(expected, out.toByteArray());
+            }
+            System.out.printf("%-12s %,8d ms, %,10.0f commands/s, output %s%n",
+                    parsers == 0 ? "batch" : "pipeline " + parsers, best / 1_000_000, commands * 1e9 / best,
+                    same ? "identical" : "DIFFERENT");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package banking;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replays a command stream, such as one written by WorkloadGenerator,
+ * through a TransactionManager one line at a time and reports throughput
+ * and latency percentiles. The stream is replayed once into a throwaway
+ * store to warm up, then into a fresh store for the measurement. Output is
+ * discarded, and the clock is fixed at 1/1/2026, so two builds given the
+ * same stream do exactly the same work.
+ *
+ * Usage: java banking.ReplayBenchmark file [default|columnar|concurrent]
+ */
+public class ReplayBenchmark {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-01-01T12:00:00Z"), ZoneOffset.UTC);
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 99.99 };
+
+    /**
+     * Replays the stream and prints the results.
+     *
+     * @param args the stream file and optionally the store to use
+     * @throws IOException if the stream cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        List<String> lines = Files.readAllLines(Path.of(args[0]), StandardCharsets.US_ASCII);
+        String store = args.length > 1 ? args[1] : "default";
+        replay(lines, newStore(store));
+        long[] latencies = replay(lines, newStore(store));
+        long total = 0;
+        for (long latency : latencies) {
+            total += latency;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%s store, %,d commands in %,d ms: %,.0f commands/s%n", store, latencies.length,
+                total / 1_000_000, latencies.length * 1e9 / total);
+        for (double percentile : PERCENTILES) {
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(percentile / 100 * latencies.length) - 1);
+            System.out.printf("  p%-6s %,10d ns%n", percentile, latencies[Math.max(index, 0)]);
+        }
+        System.out.printf("  max     %,10d ns%n", latencies[latencies.length - 1]);
+    }
+
+    /**
+     * Creates a store by name.
+     *
+     * @param name default, columnar or concurrent
+     * @return the new, empty store
+     */
+    private static AccountStore newStore(String name) {
+        switch (name) {
+            case "columnar":
+                return new ColumnarAccountDatabase();
+            case "concurrent":
+                return new ConcurrentAccountDatabase();
+            default:
+                return new AccountDatabase();
+        }
+    }
+
+    /**
+     * Processes the lines one by one, up to a Q command.
+     *
+     * @param lines the command lines
+     * @param store the store to process them against
+     * @return the time each processed line took, in nanoseconds
+     */
+    private static long[] replay(List<String> lines, AccountStore store) {
+        OutputSink out = new OutputSink(OutputStream.nullOutputStream(), OutputSink.FlushPolicy.WHEN_FULL);
+        TransactionManager manager = new TransactionManager(store, out, new DateClock(CLOCK));
+        long[] latencies = new long[lines.size()];
+        int count = 0;
+        for (String line : lines) {
+            long start = System.nanoTime();
+            boolean running = manager.process(line);
+            latencies[count++] = System.nanoTime() - start;
+            if (!running) {
+                break;
+            }
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+}
@@ -0,0 +1,98 @@
+package banking;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Compares rendering the PI report with string concatenation, as
+ * AccountDatabase used to, and with ReportRenderer. Both write into a
+ * buffered OutputSink over an in-memory stream, and the two outputs are
+ * checked to be byte for byte the same.
+ *
+ * Usage: java banking.ReportBenchmark [accounts]
+ */
+public class ReportBenchmark {
+    private static final int ROUNDS = 5;
+
+    /**
+     * Fills a database, then renders the report a number of times with each
+     * renderer and prints nanoseconds per row.
+     *
+     * @param args optional number of accounts
+     */
+    public static void main(String[] args) {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Date dob = new Date("1/1/1990");
+        AccountDatabase database = new AccountDatabase();
+        for (int i = 0; i < accounts; i++) {
+            Profile holder = new Profile("First" + (i >> 2), "Last" + (i >> 2), dob);
+            switch (i & 3) {
+                case 0 -> database.open(new Checking(holder, 1000 + i % 1000));
+                case 1 -> database.open(new Savings(holder, 600, (i >> 2) & 1));
+                case 2 -> database.open(new MoneyMarket(holder, 2500 + i % 7, 0));
+                default -> database.open(new CollegeChecking(new Profile("Student" + i, "Last", dob), 50, i % 3));
+            }
+        }
+        ByteArrayOutputStream concat = new ByteArrayOutputStream();
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        for (int round = 0; round < ROUNDS; round++) {
+            concat.reset();
+            OutputSink out = new OutputSink(concat, OutputSink.FlushPolicy.WHEN_FULL);
+            long start = System.nanoTime();
+            concatenated(database.sortedAccounts(), out);
+            out.flush();
+            long concatNanos = System.nanoTime() - start;
+            streamed.reset();
+            out = new OutputSink(streamed, OutputSink.FlushPolicy.WHEN_FULL);
+            start = System.nanoTime();
+            database.printFeesAndInterests(out);
+            out.flush();
+            long streamedNanos = System.nanoTime() - start;
+            System.out.printf("round %d: concatenation %6.1f ns/row, renderer %6.1f ns/row%n", round,
+                    (double) concatNanos / accounts, (double) streamedNanos / accounts);
+        }
+        boolean same = Arrays.equals(concat.toByteArray(), streamed.toByteArray());
+        System.out.println(same ? "outputs identical" : "OUTPUTS DIFFER");
+    }
+
+    /**
+     * Prints the PI report the way AccountDatabase did before ReportRenderer.
+     *
+     * @param accounts the accounts, in report order
+     * @param out      the sink to print to
+     */
+    private static void concatenated(Iterable<Account> accounts, OutputSink out) {
+        out.println("\n*list of accounts with fee and monthly interest");
+        for (Account index : accounts) {
+            if (index instanceof MoneyMarket) {
+                out.print("Money Market::Savings::" + index.getHolder().getFname() + " "
+                        + index.getHolder().getLname() + " " + index.getHolder().getDob() + "::Balance $"
+                        + Money.format(index.getBalanceCents()));
+                if (((MoneyMarket) index).isLoyal())
+                    out.print("::is loyal");
+                out.println("::withdrawal: " + ((MoneyMarket) index).getWithdrawals() + "::fee $"
+                        + Money.format(index.monthlyFeeCents()) + "::monthly interest $"
+                        + Money.format(index.monthlyInterestCents()));
+            } else if (index instanceof Savings) {
+                out.print("Savings::" + index.getHolder().getFname() + " " + index.getHolder().getLname()
+                        + " " + index.getHolder().getDob() + "::Balance $" + Money.format(index.getBalanceCents()));
+                if (((Savings) index).isLoyal())
+                    out.print("::is loyal");
+                out.println("::fee $" + Money.format(index.monthlyFeeCents()) + "::monthly interest $"
+                        + Money.format(index.monthlyInterestCents()));
+            } else if (index instanceof CollegeChecking) {
+                out.println("College Checking::" + index.getHolder().getFname() + " "
+                        + index.getHolder().getLname() + " " + index.getHolder().getDob() + "::Balance $"
+                        + Money.format(index.getBalanceCents()) + "::" + ((CollegeChecking) index).getCampus()
+                        + "::fee $" + Money.format(index.monthlyFeeCents()) + "::monthly interest $"
+                        + Money.format(index.monthlyInterestCents()));
+            } else {
+                out.println("Checking::" + index.getHolder().getFname() + " " + index.getHolder().getLname()
+                        + " " + index.getHolder().getDob() + "::Balance $" + Money.format(index.getBalanceCents())
+                        + "::fee $" + Money.format(index.monthlyFeeCents()) + "::monthly interest $"
+                        + Money.format(index.monthlyInterestCents()));
+            }
+        }
+        out.println("*end of list.\n");
+    }
+}
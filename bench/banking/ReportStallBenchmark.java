@@ -0,0 +1,131 @@
+package banking;
+
+import java.io.OutputStream;
+import java.util.function.Supplier;
+
+/**
+ * Measures how much long reports hold up changes. A writer thread applies
+ * deposits, withdrawals and a few closes and reopens to a store of many
+ * accounts, first on its own and then while a reader thread prints the P
+ * report over and over. For each store it prints the writer's throughput
+ * in both phases and the longest time one change took, which for a store
+ * whose reports stop changes is about the length of a report. The reader
+ * takes processor time of its own, so on a machine with a single processor
+ * the throughput drops for every store; the longest change shows the stall.
+ *
+ * Usage: java banking.ReportStallBenchmark [accounts] [seconds]
+ */
+public class ReportStallBenchmark {
+    private static final OutputSink DISCARD = new OutputSink(OutputStream.nullOutputStream());
+
+    /**
+     * The writer's results for one phase.
+     */
+    private static final class Phase {
+        private long changes; // changes applied
+        private long longest; // nanoseconds of the slowest change
+    }
+
+    /**
+     * Runs both phases for each store.
+     *
+     * @param args optional number of accounts and seconds per phase
+     * @throws InterruptedException if interrupted while waiting for a thread
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 3;
+        run("concurrent", ConcurrentAccountDatabase::new, accounts, seconds);
+        run("versioned", VersionedAccountDatabase::new, accounts, seconds);
+    }
+
+    /**
+     * Fills a fresh store and times the writer without and with reports.
+     *
+     * @param name     the name of the store
+     * @param stores   creates the store
+     * @param accounts the number of accounts
+     * @param seconds  the length of each phase
+     * @throws InterruptedException if interrupted while waiting for a thread
+     */
+    private static void run(String name, Supplier<AccountStore> stores, int accounts, double seconds)
+            throws InterruptedException {
+        AccountStore store = stores.get();
+        Date dob = new Date("1/1/1990");
+        Profile[] holders = new Profile[accounts];
+        for (int i = 0; i < accounts; i++) {
+            holders[i] = new Profile("First" + i, "Last" + i, dob);
+            store.open(AccountType.CHECKING.newAccount(holders[i], 2500, 0));
+        }
+        long nanos = (long) (seconds * 1e9);
+        write(store, holders, nanos / 2); // warm up
+        Phase quiet = write(store, holders, nanos);
+        boolean[] done = new boolean[1];
+        long[] reports = new long[1];
+        Thread reader = new Thread(() -> {
+            while (!isDone(done)) {
+                store.printSorted(DISCARD);
+                reports[0]++;
+            }
+        }, "reports");
+        reader.start();
+        Phase busy = write(store, holders, nanos);
+        synchronized (done) {
+            done[0] = true;
+        }
+        reader.join();
+        if (store instanceof VersionedAccountDatabase) {
+            System.out.printf("%-10s %d versions left after the reports%n", name,
+                    ((VersionedAccountDatabase) store).retainedVersions());
+        }
+        System.out.printf("%-10s quiet %,12.0f changes/s, longest %,8d us; during %,d reports %,12.0f changes/s,"
+                + " longest %,8d us%n", name, quiet.changes * 1e9 / nanos, quiet.longest / 1_000, reports[0],
+                busy.changes * 1e9 / nanos, busy.longest / 1_000);
+    }
+
+    /**
+     * Checks if the reader should stop.
+     *
+     * @param done the flag, set under its own lock
+     * @return true once the writer has finished
+     */
+    private static boolean isDone(boolean[] done) {
+        synchronized (done) {
+            return done[0];
+        }
+    }
+
+    /**
+     * Applies changes for a while on this thread: deposits and withdrawals
+     * of random holders, and now and then a close and reopen.
+     *
+     * @param store   the store
+     * @param holders the holders, each with a checking account
+     * @param nanos   how long to run
+     * @return the number of changes and the slowest one
+     */
+    private static Phase write(AccountStore store, Profile[] holders, long nanos) {
+        Phase phase = new Phase();
+        long seed = 42;
+        long end = System.nanoTime() + nanos;
+        long last = System.nanoTime();
+        while (last < end) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            Profile holder = holders[(int) ((seed >>> 33) % holders.length)];
+            int pick = (int) ((seed >>> 20) & 1023);
+            if (pick == 0) {
+                store.close(AccountType.CHECKING.newAccount(holder, 0, 0));
+                store.open(AccountType.CHECKING.newAccount(holder, 2500, 0));
+            } else if ((pick & 1) == 0) {
+                store.deposit(AccountType.CHECKING.newAccount(holder, 1.25, 0));
+            } else {
+                store.withdraw(AccountType.CHECKING.newAccount(holder, 1.25, 0));
+            }
+            long now = System.nanoTime();
+            phase.longest = Math.max(phase.longest, now - last);
+            phase.changes++;
+            last = now;
+        }
+        return phase;
+    }
+}
@@ -0,0 +1,210 @@
+package banking;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Runs a TransactionServer in process and drives it with thousands of
+ * concurrent clients over local sockets. Each client opens its own checking
+ * account and then sends deposits and withdrawals one at a time, waiting
+ * for each response before sending the next command, as a front end
+ * would. The clients are multiplexed on one selector thread, so the client
+ * side costs one thread however many clients there are. Reports the
+ * command throughput across all clients, the latency percentiles seen by
+ * a client, and any response that was not the expected one.
+ *
+ * Usage: java banking.ServerBenchmark [clients] [commandsPerClient] [tcp|unix]
+ */
+public class ServerBenchmark {
+    private static final byte[] QUIT = "Q\n".getBytes(StandardCharsets.US_ASCII);
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    /**
+     * One client's connection and progress.
+     */
+    private static final class Client {
+        private final int id;
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(Constants.SESSION_BUFFER_SIZE);
+        private final StringBuilder line = new StringBuilder(Constants.COMMAND_LINE_SIZE);
+        private int sent; // commands sent, counting the opening one
+        private long sentAt; // System.nanoTime() when the last command was sent
+
+        /**
+         * Creates a client.
+         *
+         * @param id      the client number, which names its holder
+         * @param channel the connection
+         */
+        Client(int id, SocketChannel channel) {
+            this.id = id;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Runs the benchmark for 100 clients, then ten times more, up to the
+     * given number.
+     *
+     * @param args optional client count, commands per client and socket kind
+     * @throws IOException if the server or a client fails
+     */
+    public static void main(String[] args) throws IOException {
+        int maxClients = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int commands = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        boolean unix = args.length > 2 && args[2].equals("unix");
+        for (int clients = Math.min(100, maxClients); clients <= maxClients; clients = next(clients, maxClients)) {
+            run(clients, commands, unix);
+        }
+    }
+
+    /**
+     * Gets the next client count: ten times more, but no more than the maximum,
+     * or past the maximum once it was run.
+     *
+     * @param clients    the count just run
+     * @param maxClients the largest count
+     * @return the next count
+     */
+    private static int next(int clients, int maxClients) {
+        return clients == maxClients ? maxClients + 1 : Math.min(clients * 10, maxClients);
+    }
+
+    /**
+     * Runs one round against a fresh server and store.
+     *
+     * @param clients  the number of clients
+     * @param commands the deposits and withdrawals each client sends
+     * @param unix     true for a Unix domain socket, false for TCP
+     * @throws IOException if the server or a client fails
+     */
+    private static void run(int clients, int commands, boolean unix) throws IOException {
+        Path socketFile = unix ? Files.createTempDirectory("bank").resolve("bank.sock") : null;
+        SocketAddress address = unix ? UnixDomainSocketAddress.of(socketFile)
+                : new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        try (TransactionServer server = new TransactionServer(new ConcurrentAccountDatabase(), address);
+                Selector selector = Selector.open()) {
+            Thread serving = new Thread(() -> {
+                try {
+                    server.serve();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "accept");
+            serving.setDaemon(true);
+            serving.start();
+            SocketAddress bound = server.getAddress();
+            long[] latencies = new long[clients * (commands + 1)];
+            int measured = 0;
+            int unexpected = 0;
+            int done = 0;
+            long start = System.nanoTime();
+            // Connect in blocking mode, then switch each client to the selector.
+            for (int id = 0; id < clients; id++) {
+                SocketChannel channel = unix ? SocketChannel.open(StandardProtocolFamily.UNIX) : SocketChannel.open();
+                channel.connect(bound);
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ, new Client(id, channel));
+            }
+            while (done < clients) {
+                selector.select();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    Client client = (Client) key.attachment();
+                    if (client.channel.read(client.in) < 0) {
+                        key.cancel();
+                        client.channel.close();
+                        done++;
+                        continue;
+                    }
+                    client.in.flip();
+                    while (client.in.hasRemaining()) {
+                        char c = (char) client.in.get();
+                        if (c != '\n') {
+                            client.line.append(c);
+                            continue;
+                        }
+                        String response = client.line.toString();
+                        client.line.setLength(0);
+                        if (response.startsWith("Transaction Manager is ")) {
+                            if (response.endsWith("running.")) {
+                                send(client, commands);
+                            }
+                            continue;
+                        }
+                        latencies[measured++] = System.nanoTime() - client.sentAt;
+                        if (!response.endsWith(client.sent == 1 ? "opened." : "balance updated.")) {
+                            unexpected++;
+                        }
+                        send(client, commands);
+                    }
+                    client.in.clear();
+                }
+                selector.selectedKeys().clear();
+            }
+            long elapsed = System.nanoTime() - start;
+            report(clients, unix, Arrays.copyOf(latencies, measured), elapsed, unexpected);
+        } finally {
+            if (socketFile != null) {
+                Files.deleteIfExists(socketFile);
+                Files.deleteIfExists(socketFile.getParent());
+            }
+        }
+    }
+
+    /**
+     * Sends a client's next command, or Q once it has sent them all.
+     *
+     * @param client   the client
+     * @param commands the deposits and withdrawals each client sends
+     * @throws IOException if the command cannot be sent
+     */
+    private static void send(Client client, int commands) throws IOException {
+        byte[] bytes;
+        if (client.sent == 0) {
+            bytes = ("O C Client" + client.id + " Bench 1/1/1990 1000\n").getBytes(StandardCharsets.US_ASCII);
+        } else if (client.sent <= commands) {
+            String command = (client.sent & 1) == 0 ? "W" : "D";
+            bytes = (command + " C Client" + client.id + " Bench 1/1/1990 1.25\n").getBytes(StandardCharsets.US_ASCII);
+        } else {
+            bytes = QUIT;
+        }
+        client.sent++;
+        client.sentAt = System.nanoTime();
+        ByteBuffer out = ByteBuffer.wrap(bytes);
+        while (out.hasRemaining()) {
+            client.channel.write(out);
+        }
+    }
+
+    /**
+     * Prints the results of a round.
+     *
+     * @param clients    the number of clients
+     * @param unix       true for a Unix domain socket
+     * @param latencies  the latency of every command, in nanoseconds
+     * @param elapsed    the length of the round, in nanoseconds
+     * @param unexpected the number of unexpected responses
+     */
+    private static void report(int clients, boolean unix, long[] latencies, long elapsed, int unexpected) {
+        Arrays.sort(latencies);
+        System.out.printf("%,6d %s clients: %,10.0f commands/s, %d unexpected responses, latency", clients,
+                unix ? "unix" : "tcp", latencies.length * 1e9 / elapsed, unexpected);
+        for (double percentile : PERCENTILES) {
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            System.out.printf(" p%s %,d us", percentile, latencies[Math.max(index, 0)] / 1_000);
+        }
+        System.out.println();
+    }
+}
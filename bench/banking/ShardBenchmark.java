@@ -0,0 +1,98 @@
+package banking;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares applying one large batch of operations to an AccountDatabase
+ * with applying it to a ShardedAccountDatabase of 1 up to the given number
+ * of shards. The batch opens an account for every holder and then mixes
+ * deposits, withdrawals and a few closes and reopens across random
+ * holders. Each store's outcomes and final P report are checked against
+ * the AccountDatabase's. Shards only run at the same time on as many
+ * processors as there are, so the scaling seen depends on the machine.
+ *
+ * Usage: java banking.ShardBenchmark [operations] [maxShards]
+ */
+public class ShardBenchmark {
+    private static final int HOLDERS = 100_000;
+    private static final int ROUNDS = 3;
+    private static final String[] TYPES = { "C", "S", "MM" };
+
+    /**
+     * Builds the batch and times each store.
+     *
+     * @param args optional number of operations and largest shard count
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int maxShards = args.length > 1 ? Integer.parseInt(args[1])
+                : Math.max(8, Runtime.getRuntime().availableProcessors());
+        List<Operation> operations = operations(count);
+        List<Operation.Result> expected = null;
+        byte[] expectedReport = null;
+        for (int shards = 0; shards <= maxShards; shards = shards == 0 ? 1 : shards * 2) {
+            long best = Long.MAX_VALUE;
+            boolean same = true;
+            for (int round = 0; round < ROUNDS; round++) {
+                ShardedAccountDatabase sharded = shards == 0 ? null : new ShardedAccountDatabase(shards);
+                AccountDatabase plain = shards == 0 ? new AccountDatabase() : null;
+                long start = System.nanoTime();
+                List<Operation.Result> results = shards == 0 ? plain.apply(operations) : sharded.apply(operations);
+                best = Math.min(best, System.nanoTime() - start);
+                ByteArrayOutputStream report = new ByteArrayOutputStream();
+                OutputSink out = new OutputSink(report);
+                if (shards == 0) {
+                    plain.printSorted(out);
+                } else {
+                    sharded.printSorted(out);
+                    sharded.close();
+                }
+                out.flush();
+                if (expected == null) {
+                    expected = results;
+                    expectedReport = report.toByteArray();
+                }
+                same &= expected.equals(results) && Arrays.equals(expectedReport, report.toByteArray());
+            }
+            System.out.printf("%-10s %,6d ms, %,12.0f operations/s, results %s%n",
+                    shards == 0 ? "database" : shards + " shards", best / 1_000_000, count * 1e9 / best,
+                    same ? "identical" : "DIFFERENT");
+        }
+    }
+
+    /**
+     * Builds the batch: an open for every holder, then random operations.
+     *
+     * @param count the number of operations after the opens
+     * @return the batch
+     */
+    private static List<Operation> operations(int count) {
+        Profile[] holders = new Profile[HOLDERS];
+        Date dob = new Date("1/1/1990");
+        List<Operation> operations = new ArrayList<>(HOLDERS + count);
+        for (int i = 0; i < HOLDERS; i++) {
+            holders[i] = new Profile("First" + i, "Last" + i, dob);
+            operations.add(Operation.open(TYPES[i % TYPES.length], holders[i], 250_000, 0));
+        }
+        long seed = 42;
+        for (int i = 0; i < count; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            int holder = (int) ((seed >>> 33) % HOLDERS);
+            String type = TYPES[holder % TYPES.length];
+            int pick = (int) ((seed >>> 20) & 1023);
+            if (pick < 5) {
+                operations.add(Operation.close(type, holders[holder]));
+            } else if (pick < 10) {
+                operations.add(Operation.open(type, holders[holder], 250_000, 0));
+            } else if ((pick & 1) == 0) {
+                operations.add(Operation.deposit(type, holders[holder], 125));
+            } else {
+                operations.add(Operation.withdraw(type, holders[holder], 125));
+            }
+        }
+        return operations;
+    }
+}
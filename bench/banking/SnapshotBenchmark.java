@@ -0,0 +1,51 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures how long it takes to write a memory-mapped snapshot of an
+ * AccountDatabase and to load it back into an empty one. The database holds
+ * an even mix of the four account types. The heap must be large enough for
+ * two databases of the given size; 10M accounts need about -Xmx12g.
+ *
+ * Usage: java banking.SnapshotBenchmark [accounts] [directory]
+ */
+public class SnapshotBenchmark {
+
+    /**
+     * Fills a database, then times one snapshot and one load.
+     *
+     * @param args optional number of accounts and directory for the snapshot
+     * @throws IOException if the snapshot cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Path directory = args.length > 1 ? Path.of(args[1]) : Files.createTempDirectory("snapshot");
+        Path path = directory.resolve("snapshot");
+        Date dob = new Date("1/1/1990");
+        AccountDatabase database = new AccountDatabase();
+        for (int i = 0; i < accounts; i++) {
+            Profile holder = new Profile("First" + (i >> 2), "Last" + (i >> 2), dob);
+            switch (i & 3) {
+                case 0 -> database.open(new Checking(holder, 1000 + i % 1000));
+                case 1 -> database.open(new Savings(holder, 600, (i >> 2) & 1));
+                case 2 -> database.open(new MoneyMarket(holder, 2500, 0));
+                default -> database.open(new CollegeChecking(new Profile("Student" + i, "Last", dob), 50, i % 3));
+            }
+        }
+        long start = System.nanoTime();
+        Snapshot.write(path, database, 0);
+        long written = System.nanoTime() - start;
+        System.out.printf("%,d accounts, %,d bytes%n", database.size(), Files.size(path));
+        System.out.printf("take snapshot: %,10d ms%n", written / 1_000_000);
+        database = null;
+        AccountDatabase loaded = new AccountDatabase();
+        start = System.nanoTime();
+        Snapshot.load(path, loaded);
+        long read = System.nanoTime() - start;
+        System.out.printf("load snapshot: %,10d ms (%,d accounts)%n", read / 1_000_000, loaded.size());
+        Files.delete(path);
+    }
+}
@@ -0,0 +1,81 @@
+package banking;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how deposit and withdrawal throughput of ConcurrentAccountDatabase
+ * scales with the number of threads. Each run is repeated with a single
+ * stripe, which behaves like one global lock, for comparison.
+ *
+ * Usage: java banking.StripedThroughputBenchmark [holders] [seconds]
+ */
+public class StripedThroughputBenchmark {
+
+    /**
+     * Runs the benchmark for 1, 2, 4, ... threads up to the number of
+     * available processors.
+     *
+     * @param args optional number of holders and seconds per run
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int holderCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int processors = Runtime.getRuntime().availableProcessors();
+        Profile[] holders = new Profile[holderCount];
+        Date dob = new Date("1/1/1990");
+        for (int i = 0; i < holderCount; i++) {
+            holders[i] = new Profile("First" + i, "Last" + i, dob);
+        }
+        for (int stripes : new int[] { 1, processors * Constants.STRIPES_PER_PROCESSOR }) {
+            ConcurrentAccountDatabase database = new ConcurrentAccountDatabase(stripes);
+            for (Profile holder : holders) {
+                database.open(new Checking(holder, 1_000_000));
+            }
+            for (int threads = 1; threads <= processors; threads *= 2) {
+                long operations = run(database, holders, threads, seconds);
+                System.out.printf("stripes %4d, threads %3d: %,14d ops/s%n", stripes, threads, operations / seconds);
+            }
+        }
+    }
+
+    /**
+     * Runs the given number of worker threads against the database for a
+     * fixed time.
+     *
+     * @param database the database to run against
+     * @param holders  the profiles of every account in the database
+     * @param threads  the number of worker threads
+     * @param seconds  how long to run
+     * @return the total number of operations completed
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    private static long run(ConcurrentAccountDatabase database, Profile[] holders, int threads, int seconds)
+            throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int t = 0; t < threads; t++) {
+            long seed = 31 * t + 7;
+            new Thread(() -> {
+                long state = seed;
+                long count = 0;
+                while ((count & 1023) != 0 || System.nanoTime() < deadline) {
+                    state = state * 6364136223846793005L + 1442695040888963407L;
+                    Profile holder = holders[(int) ((state >>> 33) % holders.length)];
+                    if ((count & 1) == 0) {
+                        database.deposit(new Checking(holder, 1));
+                    } else {
+                        database.withdraw(new Checking(holder, 1));
+                    }
+                    count++;
+                }
+                operations.add(count);
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        return operations.sum();
+    }
+}
@@ -0,0 +1,309 @@
+package banking;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Writes a synthetic command stream in the syntax TransactionManager reads.
+ * The stream opens one account for every holder, then mixes deposits and
+ * withdrawals with the closing of some accounts, which are opened again
+ * the next time their holder comes up, the P, PI and UB reports at a fixed
+ * interval, and malformed lines at a given rate. Holders are picked from a
+ * Zipf distribution, so a few hot accounts see most of the traffic.
+ * The same settings and seed always give the same stream, byte for byte.
+ *
+ * Settings are given as name=value:
+ * holders   number of account holders, 10000 by default;
+ * commands  number of lines after the opening ones, 1000000 by default;
+ * mix       weights of the account types, C:40,CC:10,S:30,MM:20 by default;
+ * skew      Zipf exponent, 0 for uniform, 0.99 by default;
+ * errors    fraction of malformed lines, 0.01 by default;
+ * reports   lines between reports, 0 for none, 100000 by default;
+ * churn     fraction of lines that close an account, 0.01 by default;
+ * seed      random seed, 42 by default;
+ * out       file to write, standard output by default.
+ *
+ * Dates of birth are fixed, so the stream is valid for a TransactionManager
+ * whose clock says 2026; ReplayBenchmark uses such a clock.
+ *
+ * Usage: java banking.WorkloadGenerator [name=value ...]
+ */
+public class WorkloadGenerator {
+    private static final String[] REPORTS = { "P", "PI", "UB" };
+    private static final String[] ERRORS = {
+            "o C First%d Last%d 1/1/1990 100", // lowercase command
+            "D %s First%d Last%d 1/1/1990", // missing amount
+            "W %s First%d Last%d 1/1/1990 abc", // bad amount
+            "O %s First%d Last%d 2/30/1990 100", // impossible date
+            "O CC First%d Last%d 1/1/2005 100 7", // bad campus code
+            "X", // unknown command
+    };
+    private static final int CENTS = 50_000; // largest D or W amount, in cents
+
+    private final int holders;
+    private final long commands;
+    private final double[] mix; // cumulative weight of each type, by ordinal
+    private final double skew;
+    private final double errors;
+    private final long reports;
+    private final double churn;
+    private final long seed;
+    private double[] zipf; // cumulative probability of each rank
+
+    /**
+     * Creates a generator.
+     *
+     * @param holders  the number of account holders
+     * @param commands the number of lines after the opening ones
+     * @param mix      the weight of each account type, by ordinal
+     * @param skew     the Zipf exponent, 0 for uniform
+     * @param errors   the fraction of malformed lines
+     * @param reports  the lines between reports, 0 for none
+     * @param churn    the fraction of lines that close an account
+     * @param seed     the random seed
+     */
+    public WorkloadGenerator(int holders, long commands, double[] mix, double skew, double errors, long reports,
+            double churn, long seed) {
+        this.holders = holders;
+        this.commands = commands;
+        this.mix = new double[mix.length];
+        double total = 0;
+        for (int type = 0; type < mix.length; type++) {
+            total += mix[type];
+            this.mix[type] = total;
+        }
+        for (int type = 0; type < mix.length; type++) {
+            this.mix[type] /= total;
+        }
+        this.skew = skew;
+        this.errors = errors;
+        this.reports = reports;
+        this.churn = churn;
+        this.seed = seed;
+    }
+
+    /**
+     * Reads the settings and writes the stream.
+     *
+     * @param args settings as name=value
+     * @throws IOException if the stream cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int holders = 10_000;
+        long commands = 1_000_000;
+        double[] mix = { 40, 10, 20, 30 };
+        double skew = 0.99;
+        double errors = 0.01;
+        long reports = 100_000;
+        double churn = 0.01;
+        long seed = 42;
+        Path out = null;
+        for (String arg : args) {
+            String name = arg.substring(0, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "holders" -> holders = Integer.parseInt(value);
+                case "commands" -> commands = Long.parseLong(value);
+                case "mix" -> mix = parseMix(value);
+                case "skew" -> skew = Double.parseDouble(value);
+                case "errors" -> errors = Double.parseDouble(value);
+                case "reports" -> reports = Long.parseLong(value);
+                case "churn" -> churn = Double.parseDouble(value);
+                case "seed" -> seed = Long.parseLong(value);
+                case "out" -> out = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown setting " + name);
+            }
+        }
+        WorkloadGenerator generator = new WorkloadGenerator(holders, commands, mix, skew, errors, reports, churn,
+                seed);
+        try (Writer writer = out == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII))
+                : Files.newBufferedWriter(out, StandardCharsets.US_ASCII)) {
+            generator.write(writer);
+        }
+    }
+
+    /**
+     * Parses account type weights such as C:40,CC:10,S:30,MM:20. Types that
+     * are left out get no accounts.
+     *
+     * @param text the weights
+     * @return the weight of each type, by ordinal
+     */
+    static double[] parseMix(String text) {
+        double[] mix = new double[Constants.ACCOUNT_TYPES];
+        for (String part : text.split(",")) {
+            String[] weight = part.split(":");
+            mix[AccountType.fromCode(weight[0]).ordinal()] = Double.parseDouble(weight[1]);
+        }
+        return mix;
+    }
+
+    /**
+     * Writes the stream, ending with a Q command.
+     *
+     * @param out the writer
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(Writer out) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        AccountType[] types = new AccountType[holders];
+        boolean[] closed = new boolean[holders];
+        StringBuilder line = new StringBuilder(64);
+        for (int holder = 0; holder < holders; holder++) {
+            types[holder] = pickType(random.nextDouble());
+            open(line, random, types[holder], holder);
+            out.append(line).append('\n');
+        }
+        zipf = zipf(holders, skew);
+        for (long i = 1; i <= commands; i++) {
+            line.setLength(0);
+            int holder = pickHolder(random.nextDouble());
+            AccountType type = types[holder];
+            double draw = random.nextDouble();
+            if (reports > 0 && i % reports == 0) {
+                line.append(REPORTS[(int) (i / reports % REPORTS.length)]);
+            } else if (draw < errors) {
+                error(line, random, type, holder);
+            } else if (closed[holder]) {
+                // A closed account is opened again before it is used.
+                open(line, random, type, holder);
+                closed[holder] = false;
+            } else if (draw < errors + churn) {
+                line.append("C ").append(type.getCode());
+                profile(line, type, holder);
+                closed[holder] = true;
+            } else {
+                line.append(random.nextBoolean() ? "D " : "W ").append(type.getCode());
+                profile(line, type, holder);
+                amount(line, 1 + random.nextInt(CENTS));
+            }
+            out.append(line).append('\n');
+        }
+        out.append("Q\n");
+    }
+
+    /**
+     * Picks an account type by weight.
+     *
+     * @param draw a uniform value in [0, 1)
+     * @return the type
+     */
+    private AccountType pickType(double draw) {
+        for (int type = 0; type < mix.length - 1; type++) {
+            if (draw < mix[type]) {
+                return AccountType.of(type);
+            }
+        }
+        return AccountType.of(mix.length - 1);
+    }
+
+    /**
+     * Picks a holder from the Zipf distribution. Rank 0 is the hottest.
+     *
+     * @param draw a uniform value in [0, 1)
+     * @return the holder number
+     */
+    private int pickHolder(double draw) {
+        int rank = Arrays.binarySearch(zipf, draw);
+        rank = rank >= 0 ? rank : -rank - 1;
+        return Math.min(rank, holders - 1);
+    }
+
+    /**
+     * Works out the cumulative probabilities of a Zipf distribution.
+     *
+     * @param count the number of ranks
+     * @param skew  the exponent
+     * @return the probability of each rank or a lower one
+     */
+    static double[] zipf(int count, double skew) {
+        double[] cumulative = new double[count];
+        double total = 0;
+        for (int rank = 0; rank < count; rank++) {
+            total += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < count; rank++) {
+            cumulative[rank] /= total;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Writes an O command for a holder.
+     *
+     * @param line   the builder, which is cleared first
+     * @param random the random source
+     * @param type   the holder's account type
+     * @param holder the holder number
+     */
+    private static void open(StringBuilder line, SplittableRandom random, AccountType type, int holder) {
+        line.setLength(0);
+        line.append("O ").append(type.getCode());
+        profile(line, type, holder);
+        // Money markets need $2,000 to open.
+        amount(line, 200_000 + random.nextInt(300_000));
+        switch (type) {
+            case COLLEGE_CHECKING -> line.append(' ').append(random.nextInt(Campus.values().length));
+            case SAVINGS -> line.append(' ').append(random.nextInt(2));
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Writes a malformed line.
+     *
+     * @param line   the builder
+     * @param random the random source
+     * @param type   the holder's account type
+     * @param holder the holder number
+     */
+    private static void error(StringBuilder line, SplittableRandom random, AccountType type, int holder) {
+        String format = ERRORS[random.nextInt(ERRORS.length)];
+        if (format.startsWith("o ") || format.startsWith("O CC")) {
+            line.append(String.format(format, holder, holder));
+        } else if (format.equals("X")) {
+            line.append(format);
+        } else {
+            line.append(String.format(format, type.getCode(), holder, holder));
+        }
+    }
+
+    /**
+     * Writes a holder's names and date of birth. College checking holders
+     * are born in 2005, so they are under 24 in 2026; the rest in 1960-1999.
+     *
+     * @param line   the builder
+     * @param type   the holder's account type
+     * @param holder the holder number
+     */
+    private static void profile(StringBuilder line, AccountType type, int holder) {
+        int year = type == AccountType.COLLEGE_CHECKING ? 2005 : 1960 + holder % 40;
+        line.append(" First").append(holder).append(" Last").append(holder).append(' ').append(1 + holder % 12)
+                .append('/').append(1 + holder % 28).append('/').append(year);
+    }
+
+    /**
+     * Writes an amount of money.
+     *
+     * @param line  the builder
+     * @param cents the amount in cents
+     */
+    private static void amount(StringBuilder line, long cents) {
+        line.append(' ').append(cents / 100).append('.');
+        long rest = cents % 100;
+        if (rest < 10) {
+            line.append('0');
+        }
+        line.append(rest);
+    }
+}
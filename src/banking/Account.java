@@ -1,5 +1,8 @@
 package banking;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * This class represents a general banking account. It is abstract because
  * specific types
@@ -12,18 +15,54 @@ public abstract class Account implements Comparable<Account> {
     // The profile of the account holder.
     protected Profile holder;
 
-    // The current balance of the account.
-    protected double balance;
+    // The current balance of the account, in cents.
+    protected volatile long balance;
+
+    // The type of the account, fixed when it is created.
+    private final AccountType type;
+
+    // Atomic access to the balance field.
+    private static final VarHandle BALANCE;
+
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(Account.class, "balance", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     /**
-     * Constructor for Account class.
+     * Constructor for Account class. Accounts of classes other than the four
+     * account types are filed as checking.
      * 
      * @param holder  The profile of the account holder.
      * @param balance The initial balance of the account.
      */
     public Account(Profile holder, double balance) {
+        this(holder, balance, AccountType.CHECKING);
+    }
+
+    /**
+     * Constructor for Account class with its type.
+     * 
+     * @param holder  The profile of the account holder.
+     * @param balance The initial balance of the account.
+     * @param type    The type of the account.
+     */
+    protected Account(Profile holder, double balance, AccountType type) {
         this.holder = holder;
-        this.balance = balance;
+        this.balance = Money.toCents(balance);
+        this.type = type;
+    }
+
+    /**
+     * Gets the type of the account.
+     * 
+     * @return The account type.
+     */
+    public AccountType getType() {
+        return type;
     }
 
     /**
@@ -43,7 +82,7 @@ public abstract class Account implements Comparable<Account> {
      * @return The new balance of the account.
      */
     public void setBalance(double amount) {
-        balance = amount;
+        balance = Money.toCents(amount);
     }
 
     /**
@@ -52,9 +91,47 @@ public abstract class Account implements Comparable<Account> {
      * @return The balance of the account.
      */
     public double getBalance() {
+        return Money.toDollars(balance);
+    }
+
+    /**
+     * Gets the current balance of the account in cents.
+     * 
+     * @return The balance of the account in cents.
+     */
+    public long getBalanceCents() {
         return balance;
     }
 
+    /**
+     * Adds an amount to the balance atomically.
+     * 
+     * @param cents The amount to deposit, in cents.
+     */
+    public void deposit(long cents) {
+        BALANCE.getAndAdd(this, cents);
+    }
+
+    /**
+     * Takes an amount from the balance if the balance covers it. The check
+     * and the update are one compare-and-set, so concurrent withdrawals can
+     * never overdraw the account.
+     * 
+     * @param cents The amount to withdraw, in cents.
+     * @return true if the amount was withdrawn, false if funds are
+     *         insufficient.
+     */
+    public boolean withdraw(long cents) {
+        long current;
+        do {
+            current = balance;
+            if (current < cents) {
+                return false;
+            }
+        } while (!BALANCE.compareAndSet(this, current, current - cents));
+        return true;
+    }
+
     /**
      * Calculates and returns the monthly interest for the account.
      * 
@@ -69,6 +146,26 @@ public abstract class Account implements Comparable<Account> {
      */
     public abstract double monthlyFee();
 
+    /**
+     * Calculates the monthly interest for the account in cents. Account types
+     * override this with exact fixed-point math.
+     * 
+     * @return The monthly interest amount in cents.
+     */
+    public long monthlyInterestCents() {
+        return Money.toCents(monthlyInterest());
+    }
+
+    /**
+     * Calculates the monthly fee for the account in cents. Account types
+     * override this with exact fixed-point math.
+     * 
+     * @return The monthly fee amount in cents.
+     */
+    public long monthlyFeeCents() {
+        return Money.toCents(monthlyFee());
+    }
+
     /**
      * Compares this account with another account. The comparison is first based
      * on the balance, and then on the holder's profile.
@@ -80,7 +177,7 @@ public abstract class Account implements Comparable<Account> {
     @Override
     public int compareTo(Account otherAccount) {
         if (this.balance != otherAccount.balance) {
-            return Double.compare(this.balance, otherAccount.balance);
+            return Long.compare(this.balance, otherAccount.balance);
         }
         return this.holder.compareTo(otherAccount.holder);
     }
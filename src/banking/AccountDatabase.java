@@ -1,15 +1,35 @@
 package banking;
 
-import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
 
 /**
  * This class represents a database of various banking accounts.
  * It includes operations to manipulate and retrieve account data.
  * 
  */
-public class AccountDatabase {
-    private Account[] accounts; // list of various types of accounts
-    private int numAcct; // number of accounts in the array
+public class AccountDatabase implements AccountStore {
+    private Account[] accounts; // accounts by slot, null where a slot is free
+    private int numAcct; // number of accounts in the database
+    private int numSlots; // number of slots handed out so far
+    private int[] freeSlots; // stack of slots released by close
+    private int numFree; // number of slots on the free stack
+    private HashMap<ProfileKey, int[]> lookup; // slots of each holder's accounts, by type ordinal
+    private TreeSet<Account> sorted; // accounts ordered by type and profile
+    private final AccountTotals totals; // running totals by type and campus
+    private AccountStore.ChangeLog log; // receives every change, or null
+
+    // Orders accounts by the sort rank of their type and then by holder's profile.
+    static final Comparator<Account> TYPE_AND_PROFILE = (first, second) -> {
+        if (first.getType() != second.getType()) {
+            return Integer.compare(first.getType().ordinal(), second.getType().ordinal());
+        }
+        return first.getHolder().compareTo(second.getHolder());
+    };
 
     /**
      * Default constructor initializes the account database with
@@ -18,93 +38,110 @@ public class AccountDatabase {
     public AccountDatabase() {
         this.accounts = new Account[Constants.INITIAL_CAPACITY];
         this.numAcct = 0;
+        this.numSlots = 0;
+        this.freeSlots = new int[Constants.INITIAL_CAPACITY];
+        this.numFree = 0;
+        this.lookup = new HashMap<>();
+        this.sorted = new TreeSet<>(TYPE_AND_PROFILE);
+        this.totals = new AccountTotals();
     }
 
     /**
-     * Finds the index of a specific account in the database.
-     * 
-     * @param account The account to find.
-     * @return The index of the account if found, otherwise returns
+     * Finds the slot of the account of the given type held by the given
+     * holder.
+     *
+     * @param holder The profile of the account holder.
+     * @param type   The type of the account.
+     * @return The slot of the account if found, otherwise returns
      *         Constants.NOT_FOUND.
      */
-    private int find(Account account) {
-        for (int i = 0; i < numAcct; i++) {
-            if (accounts[i].getHolder().getFname().toUpperCase().equals(account.getHolder().getFname().toUpperCase())
-                    && accounts[i].getHolder().getLname().toUpperCase()
-                            .equals(account.getHolder().getLname().toUpperCase())
-                    && accounts[i].getHolder().getDob().equals(account.getHolder().getDob())) {
-                return i;
-            }
-        }
-        return Constants.NOT_FOUND;
+    private int find(Profile holder, AccountType type) {
+        int[] slots = lookup.get(holder.getKey());
+        return slots == null ? Constants.NOT_FOUND : slots[type.ordinal()];
     }
 
     /**
-     * Finds the index of a specific account in the database based on
-     * the account holder's details and exact account type.
+     * Finds the slot of the account in the database with the same holder and
+     * exact account type as the given account.
      *
      * @param account The account to find based on exact details.
-     * @return The index of the account if found, otherwise returns
+     * @return The slot of the account if found, otherwise returns
      *         Constants.NOT_FOUND.
      */
     private int findExact(Account account) {
-        for (int i = 0; i < numAcct; i++) {
-            if (accounts[i].getHolder().getFname().toUpperCase().equals(account.getHolder().getFname().toUpperCase())
-                    && accounts[i].getHolder().getLname().toUpperCase()
-                            .equals(account.getHolder().getLname().toUpperCase())
-                    && accounts[i].getHolder().getDob().equals(account.getHolder().getDob())
-                    && accounts[i].getClass() == account.getClass()) {
-                return i;
-            }
-        }
-        return Constants.NOT_FOUND;
+        return find(account.getHolder(), account.getType());
     }
 
     /**
-     * Increases the size of the accounts array to accommodate more accounts.
+     * Multiplies the size of the slot array by Constants.GROWTH_FACTOR so
+     * that a series of opens copies each account a constant number of times
+     * on average. Slots keep their numbers when the array grows.
      */
     private void grow() {
-        Account[] newAccounts = new Account[accounts.length + Constants.GROWTH_AMOUNT];
-        for (int i = 0; i < numAcct; i++) {
-            newAccounts[i] = accounts[i];
+        accounts = Arrays.copyOf(accounts, accounts.length * Constants.GROWTH_FACTOR);
+    }
+
+    /**
+     * Takes a slot for a new account, reusing one released by close if there
+     * is one.
+     *
+     * @return The slot to store the new account in.
+     */
+    private int allocateSlot() {
+        if (numFree > 0) {
+            numFree--;
+            return freeSlots[numFree];
         }
-        accounts = newAccounts;
+        if (numSlots >= accounts.length) {
+            grow();
+        }
+        return numSlots++;
     }
 
     /**
-     * Checks if the database contains a specific account.
+     * Returns a slot to the free stack so that a later open can reuse it.
+     *
+     * @param slot The slot that is no longer in use.
+     */
+    private void releaseSlot(int slot) {
+        if (numFree >= freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * Constants.GROWTH_FACTOR);
+        }
+        freeSlots[numFree] = slot;
+        numFree++;
+    }
+
+    /**
+     * Checks if the database contains a specific account. A holder may only
+     * have one of Checking and CollegeChecking, so a checking account is
+     * reported as present if the holder has either one.
      * 
      * @param account The account to check.
      * @return true if the account exists, false otherwise.
      */
+    @Override
     public boolean contains(Account account) {
-        int index = find(account);
-        if (index != Constants.NOT_FOUND && (accounts[index] instanceof Checking && account instanceof Checking)) {
-            return true;
-        } else if (index != Constants.NOT_FOUND && (accounts[index].getClass() != account.getClass())
-                && findExact(account) == Constants.NOT_FOUND) {
+        int[] slots = lookup.get(account.getHolder().getKey());
+        if (slots == null) {
             return false;
         }
-        return index != Constants.NOT_FOUND;
+        if (account.getType().isChecking()) {
+            return slots[AccountType.CHECKING.ordinal()] != Constants.NOT_FOUND
+                    || slots[AccountType.COLLEGE_CHECKING.ordinal()] != Constants.NOT_FOUND;
+        }
+        return slots[account.getType().ordinal()] != Constants.NOT_FOUND;
     }
 
     /**
-     * Retrieves the account details from the database based on the account
-     * holder's first name, last name, and date of birth.
+     * Retrieves the account from the database with the same holder's first
+     * name, last name, date of birth and account type as the given account.
      *
      * @param account The account to find based on holder's details.
      * @return The account if found, otherwise returns null.
      */
     public Account getAccount(Account account) {
-        for (int i = 0; i < numAcct; i++) {
-            if (accounts[i].getHolder().getFname().toUpperCase().equals(account.getHolder().getFname().toUpperCase())
-                    && accounts[i].getHolder().getLname().toUpperCase()
-                            .equals(account.getHolder().getLname().toUpperCase())
-                    && accounts[i].getHolder().getDob().equals(account.getHolder().getDob())) {
-                return accounts[i];
-            }
-        }
-        return null;
+        int slot = findExact(account);
+        return slot == Constants.NOT_FOUND ? null : accounts[slot];
     }
 
     /**
@@ -112,39 +149,235 @@ public class AccountDatabase {
      * If the database is full, it will expand.
      * 
      * @param account The account to be added.
-     * @return true if the account was added successfully, false otherwise.
+     * @return true if the account was added successfully, false if the
+     *         database already contains it.
      */
+    @Override
     public boolean open(Account account) {
-        if (numAcct >= accounts.length) {
-            grow();
-        }
-        if (numAcct < accounts.length) {
-            accounts[numAcct] = account;
-            numAcct++;
-            return true;
-        } else {
+        if (contains(account)) {
             return false;
         }
+        int[] slots = lookup.get(account.getHolder().getKey());
+        if (slots == null) {
+            slots = new int[Constants.ACCOUNT_TYPES];
+            Arrays.fill(slots, Constants.NOT_FOUND);
+            lookup.put(account.getHolder().getKey(), slots);
+        }
+        int slot = allocateSlot();
+        accounts[slot] = account;
+        numAcct++;
+        slots[account.getType().ordinal()] = slot;
+        sorted.add(account);
+        totals.add(account);
+        if (log != null) {
+            log.append(Operation.Kind.OPEN, account, account.getBalanceCents());
+        }
+        return true;
     }
 
     /**
-     * Removes a specific account from the database.
+     * Removes a specific account from the database. The account's slot is
+     * released in constant time; no other account moves.
      * 
      * @param account The account to be removed.
      * @return true if the account was removed successfully, false otherwise.
      */
+    @Override
     public boolean close(Account account) {
-        int index = find(account);
-        if (index == Constants.NOT_FOUND)
+        int slot = findExact(account);
+        if (slot == Constants.NOT_FOUND)
             return false;
-        for (int i = index; i < numAcct - 1; i++) {
-            accounts[i] = accounts[i + 1];
+        remove(slot);
+        if (log != null) {
+            log.append(Operation.Kind.CLOSE, account, 0);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the account in a slot from every index and frees the slot.
+     *
+     * @param slot The slot of the account to remove.
+     */
+    private void remove(int slot) {
+        Account stored = accounts[slot];
+        int[] slots = lookup.get(stored.getHolder().getKey());
+        slots[stored.getType().ordinal()] = Constants.NOT_FOUND;
+        if (isEmpty(slots)) {
+            lookup.remove(stored.getHolder().getKey());
         }
+        sorted.remove(stored);
+        totals.remove(stored);
+        accounts[slot] = null;
+        releaseSlot(slot);
         numAcct--;
-        accounts[numAcct] = null;
+    }
+
+    /**
+     * Checks if a holder has no accounts left.
+     *
+     * @param slots The slots of the holder's accounts, by type ordinal.
+     * @return true if every slot is Constants.NOT_FOUND.
+     */
+    private static boolean isEmpty(int[] slots) {
+        for (int slot : slots) {
+            if (slot != Constants.NOT_FOUND) {
+                return false;
+            }
+        }
         return true;
     }
 
+    /**
+     * Applies a batch of operations in order and reports the outcome of each.
+     * Operations are grouped by holder, using the key each profile already
+     * carries, and every group is applied in its original order. Because all
+     * of the rules in contains() concern a single holder, this gives the same
+     * outcomes as applying the whole batch one operation at a time. Within a
+     * group, each account type is looked up once. Opens follow the same
+     * rules as on the command line, with ages worked out on today's date.
+     *
+     * @param operations The operations to apply.
+     * @return The outcome of each operation, in the same order.
+     */
+    public List<Operation.Result> apply(List<Operation> operations) {
+        return apply(operations, DateClock.system().today());
+    }
+
+    /**
+     * Applies a batch of operations in order, as apply(operations) does,
+     * with ages worked out on the given date.
+     *
+     * @param operations The operations to apply.
+     * @param today      The date to work out holders' ages on.
+     * @return The outcome of each operation, in the same order.
+     */
+    public List<Operation.Result> apply(List<Operation> operations, Date today) {
+        int count = operations.size();
+        Operation[] batch = operations.toArray(new Operation[count]);
+        Operation.Result[] results = new Operation.Result[count];
+        // Chain the operations of each holder together, in batch order.
+        int[] next = new int[count];
+        HashMap<ProfileKey, int[]> groups = new HashMap<>();
+        ArrayList<int[]> order = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            next[i] = Constants.NOT_FOUND;
+            int[] group = groups.get(batch[i].getHolder().getKey());
+            if (group == null) {
+                group = new int[] { i, i }; // first and last operation
+                groups.put(batch[i].getHolder().getKey(), group);
+                order.add(group);
+            } else {
+                next[group[1]] = i;
+                group[1] = i;
+            }
+        }
+        AccountType[] cachedTypes = new AccountType[Constants.ACCOUNT_TYPES];
+        int[] cachedSlots = new int[Constants.ACCOUNT_TYPES];
+        for (int[] group : order) {
+            int cached = 0;
+            for (int i = group[0]; i != Constants.NOT_FOUND; i = next[i]) {
+                Operation operation = batch[i];
+                int entry = 0;
+                while (entry < cached && cachedTypes[entry] != operation.getType()) {
+                    entry++;
+                }
+                if (entry == cached) {
+                    cachedTypes[entry] = operation.getType();
+                    cachedSlots[entry] = find(operation.getHolder(), operation.getType());
+                    cached++;
+                }
+                results[i] = apply(operation, cachedSlots, entry, today);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Applies one operation of a batch.
+     *
+     * @param operation The operation to apply.
+     * @param slots     The cached slots of the holder's accounts; updated
+     *                  when the operation opens or closes an account.
+     * @param entry     The entry in slots for the operation's account type.
+     * @param today     The date to work out the holder's age on.
+     * @return The outcome of the operation.
+     */
+    private Operation.Result apply(Operation operation, int[] slots, int entry, Date today) {
+        int slot = slots[entry];
+        switch (operation.getKind()) {
+            case OPEN:
+                if (operation.getAmount() <= 0) {
+                    return Operation.Result.INVALID_AMOUNT;
+                }
+                Operation.Result broken = Operation.checkOpen(operation.getType(), operation.getHolder(),
+                        operation.getAmount(), operation.getCode(), today);
+                if (broken != Operation.Result.OK) {
+                    return broken;
+                }
+                if (!open(operation.newAccount())) {
+                    return Operation.Result.ALREADY_EXISTS;
+                }
+                slots[entry] = find(operation.getHolder(), operation.getType());
+                return Operation.Result.OK;
+            case CLOSE:
+                if (slot == Constants.NOT_FOUND) {
+                    return Operation.Result.NOT_FOUND;
+                }
+                remove(slot);
+                slots[entry] = Constants.NOT_FOUND;
+                if (log != null) {
+                    log.append(operation);
+                }
+                return Operation.Result.OK;
+            case DEPOSIT:
+                if (operation.getAmount() <= 0) {
+                    return Operation.Result.INVALID_AMOUNT;
+                }
+                if (slot == Constants.NOT_FOUND) {
+                    return Operation.Result.NOT_FOUND;
+                }
+                deposit(slot, operation.getAmount());
+                if (log != null) {
+                    log.append(operation);
+                }
+                return Operation.Result.OK;
+            default:
+                if (operation.getAmount() <= 0) {
+                    return Operation.Result.INVALID_AMOUNT;
+                }
+                if (slot == Constants.NOT_FOUND) {
+                    return Operation.Result.NOT_FOUND;
+                }
+                if (!withdraw(slot, operation.getAmount())) {
+                    return Operation.Result.INSUFFICIENT_FUNDS;
+                }
+                if (log != null) {
+                    log.append(operation);
+                }
+                return Operation.Result.OK;
+        }
+    }
+
+    /**
+     * Returns the accounts ordered by type and profile. The view is live, so
+     * the database must not change while it is being iterated.
+     *
+     * @return The accounts in report order.
+     */
+    Iterable<Account> sortedAccounts() {
+        return sorted;
+    }
+
+    /**
+     * Returns the number of accounts in the database.
+     *
+     * @return The number of accounts.
+     */
+    public int size() {
+        return numAcct;
+    }
+
     /**
      * Processes a withdrawal operation on a specific account.
      * 
@@ -152,189 +385,162 @@ public class AccountDatabase {
      *                account object represents the amount to be withdrawn.
      * @return true if the withdrawal was successful, false otherwise.
      */
+    @Override
     public boolean withdraw(Account account) {
-        int index = findExact(account);
-        if (index == Constants.NOT_FOUND) {
+        int slot = findExact(account);
+        if (slot == Constants.NOT_FOUND) {
             account.setBalance(Constants.NOT_FOUND);
             return false; // Account not found
         }
-        if (accounts[index].balance < account.getBalance()) {
-            return false; // Insufficient funds
+        long cents = account.getBalanceCents();
+        if (!withdraw(slot, cents)) {
+            return false;
         }
-        accounts[index].balance -= account.getBalance(); // Deduct the amount from the balance
-        if (accounts[index] instanceof MoneyMarket) {
-            ((MoneyMarket) accounts[index]).incrementWithdrawals();
+        if (log != null) {
+            log.append(Operation.Kind.WITHDRAW, account, cents);
         }
         return true;
     } // false if insufficient fund
 
+    /**
+     * Withdraws from the account in a slot and updates the totals.
+     *
+     * @param slot  The slot of the account.
+     * @param cents The amount to withdraw, in cents.
+     * @return true if the withdrawal was successful, false otherwise.
+     */
+    private boolean withdraw(int slot, long cents) {
+        Account stored = accounts[slot];
+        totals.remove(stored);
+        boolean withdrawn = stored.withdraw(cents);
+        totals.add(stored);
+        return withdrawn;
+    }
+
+    /**
+     * Deposits into the account in a slot and updates the totals.
+     *
+     * @param slot  The slot of the account.
+     * @param cents The amount to deposit, in cents.
+     */
+    private void deposit(int slot, long cents) {
+        Account stored = accounts[slot];
+        totals.remove(stored);
+        stored.deposit(cents);
+        totals.add(stored);
+    }
+
     /**
      * Processes a deposit operation on a specific account.
      * 
      * @param account The account in which to deposit. The balance of this
      *                account object represents the amount to be deposited.
+     * @return true if the account was found, false otherwise.
      */
-    public void deposit(Account account) {
-        int index = findExact(account);
-        if (index != Constants.NOT_FOUND) {
-            accounts[index].balance += account.getBalance(); // Update the balance
-            account.setBalance(Constants.ACCOUNT_FOUND);
+    @Override
+    public boolean deposit(Account account) {
+        int slot = findExact(account);
+        if (slot == Constants.NOT_FOUND) {
+            return false;
+        }
+        long cents = account.getBalanceCents();
+        deposit(slot, cents); // Update the balance
+        account.setBalance(Constants.ACCOUNT_FOUND);
+        if (log != null) {
+            log.append(Operation.Kind.DEPOSIT, account, cents);
         }
+        return true;
     }
 
     /**
-     * Sorts the accounts in the database based on their type and profile.
+     * Prints the sorted list of accounts.
+     *
+     * @param out The sink to print to.
      */
-    private void sortAccounts() {
-        for (int i = 0; i < numAcct - 1; i++) {
-            for (int j = 0; j < numAcct - i - 1; j++) {
-                String type1 = accounts[j].getClass().getName();
-                String type2 = accounts[j + 1].getClass().getName();
-                int cmpType = type1.compareTo(type2);
-                if (cmpType > 0) {
-                    Account temp = accounts[j];
-                    accounts[j] = accounts[j + 1];
-                    accounts[j + 1] = temp;
-                } else if (cmpType == 0) {
-                    Profile profile1 = accounts[j].getHolder();
-                    Profile profile2 = accounts[j + 1].getHolder();
-                    int cmpProfile = profile1.compareTo(profile2);
-                    if (cmpProfile > 0) {
-                        Account temp = accounts[j];
-                        accounts[j] = accounts[j + 1];
-                        accounts[j + 1] = temp;
-                    }
-                }
-            }
-        }
+    @Override
+    public void printSorted(OutputSink out) {
+        ReportRenderer.render(ReportRenderer.Report.SORTED, sorted, out);
+    }
+
+    /**
+     * Prints detailed account information including fees and monthly interests.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printFeesAndInterests(OutputSink out) {
+        ReportRenderer.render(ReportRenderer.Report.FEES_AND_INTERESTS, sorted, out);
     }
 
     /**
-     * Prints the sorted list of accounts to the console.
+     * Posts the month end for every account, in parallel partitions of slots.
+     * Each partition totals its posted accounts and adds them to the
+     * database's totals when it is done.
      */
-    public void printSorted() {
-        sortAccounts();
-        if (numAcct == 0) {
-            System.out.println("Account Database is empty!");
-        } else {
-            DecimalFormat decimalFormat = new DecimalFormat("#,##0.00");
-            System.out.println("\n*Accounts sorted by account type and profile.");
-            for (int i = 0; i < numAcct; i++) {
-                Account index = accounts[i];
-                if (index instanceof MoneyMarket) {
-                    System.out.print("Money Market::Savings::" + index.getHolder().getFname() + " "
-                            + index.getHolder().getLname() + " " + index.getHolder().getDob() + "::Balance $"
-                            + decimalFormat.format(index.getBalance()));
-                    if (((MoneyMarket) index).isLoyal()) {
-                        System.out.print("::is loyal");
-                    }
-                    System.out.println("::withdrawal: 0");
-                } else if (index instanceof Savings) {
-                    System.out.print("Savings::" + index.getHolder().getFname() + " " + index.getHolder().getLname()
-                            + " " + index.getHolder().getDob() + "::Balance $"
-                            + decimalFormat.format(index.getBalance()));
-                    if (((Savings) index).isLoyal()) {
-                        System.out.print("::is loyal");
-                    }
-                    System.out.println();
-                } else if (index instanceof CollegeChecking) {
-                    System.out.println("College Checking::" + index.getHolder().getFname() + " "
-                            + index.getHolder().getLname() + " " + index.getHolder().getDob() + "::Balance $"
-                            + decimalFormat.format(index.getBalance()) + "::" + ((CollegeChecking) index).getCampus());
-                } else if (index instanceof Checking) {
-                    System.out.println("Checking::" + index.getHolder().getFname() + " " + index.getHolder().getLname()
-                            + " " + index.getHolder().getDob() + "::Balance $"
-                            + decimalFormat.format(index.getBalance()));
+    @Override
+    public void postMonthEnd() {
+        totals.clear();
+        MonthEnd.post(numSlots, (from, to) -> {
+            AccountTotals posted = new AccountTotals();
+            for (int slot = from; slot < to; slot++) {
+                if (accounts[slot] != null) {
+                    MonthEnd.post(accounts[slot]);
+                    posted.add(accounts[slot]);
                 }
             }
-            System.out.println("*end of list.\n");
+            synchronized (totals) {
+                totals.add(posted);
+            }
+        });
+        if (log != null) {
+            log.appendMonthEnd();
         }
     }
 
     /**
-     * Prints detailed account information including fees and monthly interests.
+     * Sets the log that receives every change from now on, including those
+     * made by apply().
+     *
+     * @param log The change log.
+     */
+    @Override
+    public void setChangeLog(AccountStore.ChangeLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Gets the running totals of the database by account type and campus.
+     *
+     * @return The totals; they change as the database changes.
+     */
+    public AccountTotals getTotals() {
+        return totals;
+    }
+
+    /**
+     * Prints the totals of each account type and campus, in O(1).
+     *
+     * @param out The sink to print to.
      */
-    public void printFeesAndInterests() {
-        sortAccounts();
+    @Override
+    public void printSummary(OutputSink out) {
         if (numAcct == 0) {
-            System.out.println("Account Database is empty!");
-        } else {
-            DecimalFormat decimalFormat = new DecimalFormat("#,##0.00");
-            System.out.println("\n*list of accounts with fee and monthly interest");
-            for (Account index : accounts) {
-                if (index instanceof MoneyMarket) {
-                    System.out.print("Money Market::Savings::" + index.getHolder().getFname() + " "
-                            + index.getHolder().getLname() + " " + index.getHolder().getDob() + "::Balance $"
-                            + decimalFormat.format(index.getBalance()));
-                    if (((MoneyMarket) index).isLoyal())
-                        System.out.print("::is loyal");
-                    System.out.println("::withdrawal: " + ((MoneyMarket) index).getWithdrawals() + "::fee $"
-                            + decimalFormat.format(index.monthlyFee()) + "::monthly interest $"
-                            + decimalFormat.format(index.monthlyInterest()));
-                } else if (index instanceof Savings) {
-                    System.out.print("Savings::" + index.getHolder().getFname() + " " + index.getHolder().getLname()
-                            + " " + index.getHolder().getDob() + "::Balance $" + decimalFormat.format(index.getBalance()));
-                    if (((Savings) index).isLoyal())
-                        System.out.print("::is loyal");
-                    System.out.println("::fee $" + decimalFormat.format(index.monthlyFee()) + "::monthly interest $"
-                            + decimalFormat.format(index.monthlyInterest()));
-                } else if (index instanceof CollegeChecking) {
-                    System.out.println("College Checking::" + index.getHolder().getFname() + " "
-                            + index.getHolder().getLname() + " " + index.getHolder().getDob() + "::Balance $"
-                            + decimalFormat.format(index.getBalance()) + "::" + ((CollegeChecking) index).getCampus()
-                            + "::fee $" + decimalFormat.format(index.monthlyFee()) + "::monthly interest $"
-                            + decimalFormat.format(index.monthlyInterest()));
-                } else if (index instanceof Checking) {
-                    System.out.println("Checking::" + index.getHolder().getFname() + " "
-                            + index.getHolder().getLname() + " " + index.getHolder().getDob() + "::Balance $"
-                            + decimalFormat.format(index.getBalance()) + "::fee $"
-                            + decimalFormat.format(index.monthlyFee()) + "::monthly interest $"
-                            + decimalFormat.format(index.monthlyInterest()));}
-            }
-            System.out.println("*end of list.\n");
+            ReportRenderer.empty(out);
+            return;
         }
+        totals.print(out);
     }
 
     /**
-     * Prints the accounts after applying the monthly fees and interests to their balances.
+     * Posts the month end and prints the accounts with their new balances.
+     *
+     * @param out The sink to print to.
      */
-    public void printUpdatedBalances() {
-        sortAccounts();
-        if (numAcct == 0) {
-            System.out.println("Account Database is empty!");
-        } else {
-            DecimalFormat decimalFormat = new DecimalFormat("#,##0.00");
-            System.out.println("\n*list of accounts with fees and interests applied.");
-            for (Account index : accounts) {
-                double updatedBalance = 0;
-                if (index != null)
-                    updatedBalance = index.getBalance() + index.monthlyInterest() - index.monthlyFee();
-                if (index instanceof MoneyMarket) {
-                    ((MoneyMarket) index).resetWithdrawals();
-                    System.out.print("Money Market::Savings::" + index.getHolder().getFname() + " "
-                            + index.getHolder().getLname() + " " + index.getHolder().getDob() + "::Balance $"
-                            + decimalFormat.format(updatedBalance));
-                    if (((MoneyMarket) index).isLoyal())
-                        System.out.print("::is loyal");
-                    System.out.println("::withdrawal: " + ((MoneyMarket) index).getWithdrawals());
-                } else if (index instanceof Savings) {
-                    System.out.print("Savings::" + index.getHolder().getFname() + " "
-                            + index.getHolder().getLname() + " " + index.getHolder().getDob() + "::Balance $"
-                            + decimalFormat.format(updatedBalance));
-                    if (((Savings) index).isLoyal())
-                        System.out.print("::is loyal");
-                    System.out.println("");
-                } else if (index instanceof CollegeChecking) {
-                    System.out.println("College Checking::" + index.getHolder().getFname() + " "
-                            + index.getHolder().getLname() + " " + index.getHolder().getDob() + "::Balance $"
-                            + decimalFormat.format(updatedBalance) + "::" + ((CollegeChecking) index).getCampus());
-                } else if (index instanceof Checking) {
-                    System.out.println("Checking::" + index.getHolder().getFname() + " " + index.getHolder().getLname()
-                            + " " + index.getHolder().getDob() + "::Balance $"
-                            + decimalFormat.format(updatedBalance));
-                }
-            }
-            System.out.println("*end of list.\n");
+    @Override
+    public void printUpdatedBalances(OutputSink out) {
+        if (numAcct > 0) {
+            postMonthEnd();
         }
+        ReportRenderer.render(ReportRenderer.Report.UPDATED_BALANCES, sorted, out);
     }
 }
\ No newline at end of file
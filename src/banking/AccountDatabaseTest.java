@@ -1,5 +1,8 @@
 package banking;
 
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -57,4 +60,202 @@ public class AccountDatabaseTest {
         // Test close false case (already closed)
         Assertions.assertFalse(db.close(mockAccount), "Expected account to not be found.");
     }
+
+    /**
+     * Tests that closing an account frees its slot for reuse without
+     * disturbing the other accounts in the database.
+     */
+    @Test
+    public void testReopenAfterClose() {
+        Account first = new Checking(new Profile("Jane", "Doe", new Date("10/1/1995")), 100);
+        Account second = new Savings(new Profile("Jane", "Doe", new Date("10/1/1995")), 100, 0);
+        Account third = new Checking(new Profile("Roy", "Brooks", new Date("10/31/1979")), 100);
+        Assertions.assertTrue(db.open(first));
+        Assertions.assertTrue(db.open(second));
+        Assertions.assertTrue(db.close(first));
+        Assertions.assertTrue(db.open(third));
+        Assertions.assertFalse(db.contains(first), "Expected closed account to be gone.");
+        Assertions.assertTrue(db.contains(second), "Expected savings account to remain.");
+        Assertions.assertTrue(db.contains(third), "Expected new account to be found.");
+    }
+
+    /**
+     * Tests that a batch applies each holder's operations in order and
+     * reports the outcome of every operation.
+     */
+    @Test
+    public void testApplyBatch() {
+        Profile jane = new Profile("Jane", "Doe", new Date("10/1/1995"));
+        Profile roy = new Profile("Roy", "Brooks", new Date("10/31/1979"));
+        List<Operation.Result> results = db.apply(List.of(
+                Operation.open("C", jane, 10000, 0),
+                Operation.deposit("MM", roy, 500),
+                Operation.open("CC", jane, 10000, 0),
+                Operation.withdraw("C", jane, 20000),
+                Operation.deposit("C", jane, 15000),
+                Operation.withdraw("C", jane, 20000),
+                Operation.close("C", jane),
+                Operation.close("C", jane)), new Date("1/1/2015"));
+        Assertions.assertEquals(List.of(Operation.Result.OK, Operation.Result.NOT_FOUND,
+                Operation.Result.ALREADY_EXISTS, Operation.Result.INSUFFICIENT_FUNDS, Operation.Result.OK,
+                Operation.Result.OK, Operation.Result.OK, Operation.Result.NOT_FOUND), results);
+        Assertions.assertFalse(db.contains(new Checking(jane, 0)), "Expected account to be closed.");
+    }
+
+    /**
+     * Tests that a batch opens accounts under the same rules as the command
+     * line.
+     */
+    @Test
+    public void testApplyChecksOpenRules() {
+        Profile born1950 = new Profile("Roy", "Brooks", new Date("10/31/1950"));
+        Profile born2005 = new Profile("Jane", "Doe", new Date("10/1/2005"));
+        Profile born2020 = new Profile("Kate", "Lindsey", new Date("8/31/2020"));
+        List<Operation.Result> results = db.apply(List.of(
+                Operation.open("CC", born1950, 10000, 0),
+                Operation.open("MM", born2020, 250000, 0),
+                Operation.open("CC", born2005, 10000, 7),
+                Operation.open("MM", born1950, 199999, 0),
+                Operation.open("MM", born1950, 200000, 0),
+                Operation.open("CC", born2005, 10000, 2)), new Date("1/1/2026"));
+        Assertions.assertEquals(List.of(Operation.Result.OVER_AGE, Operation.Result.UNDER_AGE,
+                Operation.Result.INVALID_CAMPUS, Operation.Result.BELOW_MINIMUM, Operation.Result.OK,
+                Operation.Result.OK), results);
+        Assertions.assertEquals(2, db.size());
+    }
+
+    /**
+     * Tests that a batch refuses a date of birth that is not a calendar date
+     * or is not before today, as the command line does.
+     */
+    @Test
+    public void testApplyChecksDob() {
+        Profile leapless = new Profile("Roy", "Brooks", new Date("2/30/2000"));
+        Profile today = new Profile("Jane", "Doe", new Date("1/1/2026"));
+        Profile future = new Profile("Kate", "Lindsey", new Date("3/1/2030"));
+        Profile valid = new Profile("Bob", "Smith", new Date("2/29/2000"));
+        List<Operation.Result> results = db.apply(List.of(
+                Operation.open("C", leapless, 10000, 0),
+                Operation.open("C", today, 10000, 0),
+                Operation.open("S", future, 10000, 0),
+                Operation.open("C", valid, 10000, 0)), new Date("1/1/2026"));
+        Assertions.assertEquals(List.of(Operation.Result.INVALID_DOB, Operation.Result.FUTURE_DOB,
+                Operation.Result.FUTURE_DOB, Operation.Result.OK), results);
+        Assertions.assertEquals(1, db.size());
+    }
+
+    /**
+     * Tests that the running totals follow a checking account across the
+     * no-fee threshold and a money market below the loyalty minimum.
+     */
+    @Test
+    public void testTotalsFollowFeeTiers() {
+        Profile jane = new Profile("Jane", "Doe", new Date("10/1/1995"));
+        db.open(new Checking(jane, 900));
+        db.open(new MoneyMarket(jane, 2000, 0));
+        AccountTotals totals = db.getTotals();
+        Assertions.assertEquals(Constants.CHECKING_MONTHLY_FEE, totals.getFee(AccountType.CHECKING.ordinal()));
+        db.deposit(new Checking(jane, 100));
+        Assertions.assertEquals(0, totals.getFee(AccountType.CHECKING.ordinal()), "Expected the fee to be waived.");
+        Assertions.assertEquals(100000, totals.getBalance(AccountType.CHECKING.ordinal()));
+        Assertions.assertEquals(0, totals.getFee(AccountType.MONEY_MARKET.ordinal()));
+        db.withdraw(new MoneyMarket(jane, 1, 0));
+        Assertions.assertEquals(Constants.SAVINGS_FEE, totals.getFee(AccountType.MONEY_MARKET.ordinal()));
+        Assertions.assertEquals(MoneyMarket.interestFor(199900),
+                totals.getInterest(AccountType.MONEY_MARKET.ordinal()));
+        db.close(new Checking(jane, 0));
+        Assertions.assertEquals(0, totals.getCount(AccountType.CHECKING.ordinal()));
+        Assertions.assertEquals(0, totals.getBalance(AccountType.CHECKING.ordinal()));
+    }
+
+    /**
+     * Tests that each account carries its type and that the type's rules
+     * give the same fee and interest as the account.
+     */
+    @Test
+    public void testAccountTypeRules() {
+        Profile jane = new Profile("Jane", "Doe", new Date("10/1/1995"));
+        for (AccountType type : AccountType.values()) {
+            Account account = type.newAccount(jane, 1500, 0);
+            Assertions.assertEquals(type, account.getType());
+            Assertions.assertEquals(type, AccountType.fromCode(type.getCode()));
+            Assertions.assertEquals(account.monthlyFeeCents(), type.fee(account.getBalanceCents(), 0));
+            Assertions.assertEquals(account.monthlyInterestCents(),
+                    type.interest(account.getBalanceCents(), false));
+        }
+        Assertions.assertEquals(AccountType.CHECKING, mockAccount.getType());
+    }
+
+    /**
+     * Tests that a deposit that rounds to zero cents still tells a missing
+     * account from a found one.
+     */
+    @Test
+    public void testDepositUnderOneCent() {
+        Profile jane = new Profile("Jane", "Doe", new Date("10/1/1995"));
+        Assertions.assertFalse(db.deposit(new Checking(jane, 0.001)), "Expected the account to be missing.");
+        db.open(new Checking(jane, 100));
+        Assertions.assertTrue(db.deposit(new Checking(jane, 0.001)), "Expected the account to be found.");
+        Assertions.assertEquals(10000, db.getAccount(new Checking(jane, 0)).getBalanceCents());
+    }
+
+    /**
+     * Tests that the columnar store prints each account under the holder's
+     * name as typed when it was opened, as the default store does, when the
+     * same holder opens accounts under two spellings.
+     */
+    @Test
+    public void testColumnarKeepsEachSpelling() {
+        ColumnarAccountDatabase columnar = new ColumnarAccountDatabase();
+        for (AccountStore store : List.of(db, columnar)) {
+            store.open(new Checking(new Profile("John", "Doe", new Date("2/19/1990")), 100));
+            store.open(new Savings(new Profile("JOHN", "DOE", new Date("2/19/1990")), 100, 1));
+        }
+        String expected = print(db);
+        Assertions.assertTrue(expected.contains("Savings::JOHN DOE"), "Expected the savings under its own spelling.");
+        Assertions.assertTrue(expected.contains("Checking::John Doe"), "Expected the checking under its own spelling.");
+        Assertions.assertEquals(expected, print(columnar));
+    }
+
+    /**
+     * Tests that the columnar store lists accounts in the same order as the
+     * default store while accounts open, close and reopen between reports,
+     * including slots reused by other holders and accounts closed and
+     * reopened between two reports.
+     */
+    @Test
+    public void testColumnarOrderFollowsOpensAndCloses() {
+        ColumnarAccountDatabase columnar = new ColumnarAccountDatabase();
+        Date dob = new Date("3/4/1985");
+        for (int step = 0; step < 600; step++) {
+            Profile holder = new Profile("First" + step * 7 % 23, "Last" + step % 5, dob);
+            for (AccountStore store : List.of(db, columnar)) {
+                Account account = step % 3 == 0 ? new Savings(holder, 100 + step, 0) : new Checking(holder, step);
+                if (!store.open(account)) {
+                    store.close(account);
+                    if (step % 4 == 0) {
+                        store.open(account);
+                    }
+                }
+            }
+            if (step % 9 == 0) {
+                Assertions.assertEquals(print(db), print(columnar), "Expected the same order after step " + step);
+            }
+        }
+        Assertions.assertEquals(print(db), print(columnar), "Expected the same order at the end.");
+    }
+
+    /**
+     * Prints the P report of a store.
+     *
+     * @param store The store.
+     * @return The report.
+     */
+    private static String print(AccountStore store) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputSink out = new OutputSink(bytes);
+        store.printSorted(out);
+        out.flush();
+        return bytes.toString();
+    }
 }
\ No newline at end of file
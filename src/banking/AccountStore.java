@@ -0,0 +1,188 @@
+package banking;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * The operations TransactionManager needs from a store of accounts.
+ * Accounts passed in are used as lookup keys: only their holder and type
+ * matter, except for deposit and withdraw, where the balance carries the
+ * amount of the transaction.
+ *
+ */
+public interface AccountStore {
+
+    /**
+     * Checks if the store contains a specific account. A holder may only
+     * have one of Checking and CollegeChecking, so a checking account is
+     * reported as present if the holder has either one.
+     *
+     * @param account The account to check.
+     * @return true if the account exists, false otherwise.
+     */
+    boolean contains(Account account);
+
+    /**
+     * Adds a new account to the store, unless contains() reports it as
+     * present already. The check and the add happen as one step.
+     *
+     * @param account The account to be added.
+     * @return true if the account was added successfully, false if the store
+     *         already contains it.
+     */
+    boolean open(Account account);
+
+    /**
+     * Removes the account with the same holder and type as the given one.
+     *
+     * @param account The account to be removed.
+     * @return true if the account was removed successfully, false otherwise.
+     */
+    boolean close(Account account);
+
+    /**
+     * Processes a withdrawal. If the account does not exist, the balance of
+     * the given account is set to Constants.NOT_FOUND.
+     *
+     * @param account The account from which to withdraw. The balance of this
+     *                account object represents the amount to be withdrawn.
+     * @return true if the withdrawal was successful, false otherwise.
+     */
+    boolean withdraw(Account account);
+
+    /**
+     * Processes a deposit. If the account exists, the balance of the given
+     * account is set to Constants.ACCOUNT_FOUND. An amount that rounds to
+     * zero cents leaves the balance at the same value, so callers go by the
+     * result instead.
+     *
+     * @param account The account in which to deposit. The balance of this
+     *                account object represents the amount to be deposited.
+     * @return true if the account was found, false otherwise.
+     */
+    boolean deposit(Account account);
+
+    /**
+     * Prints the accounts sorted by account type and profile.
+     *
+     * @param out The sink to print to.
+     */
+    void printSorted(OutputSink out);
+
+    /**
+     * Prints the accounts with their monthly fees and interests.
+     *
+     * @param out The sink to print to.
+     */
+    void printFeesAndInterests(OutputSink out);
+
+    /**
+     * Prints the number of accounts, total balance, total monthly fee and
+     * total monthly interest of each account type and campus.
+     *
+     * @param out The sink to print to.
+     */
+    void printSummary(OutputSink out);
+
+    /**
+     * Posts the month end: takes each account's monthly fee, adds its
+     * monthly interest and resets money market withdrawal counters.
+     */
+    void postMonthEnd();
+
+    /**
+     * Posts the month end and prints the accounts with their new balances.
+     * Posting and printing happen as one step.
+     *
+     * @param out The sink to print to.
+     */
+    void printUpdatedBalances(OutputSink out);
+
+    /**
+     * Receives every change a store makes, such as a Journal recording them.
+     * A store calls it for each open, close, deposit, withdrawal and month
+     * end that changes anything, right after the change and before it lets
+     * any other change touch the same accounts, so the log holds the
+     * changes in an order that replays to the same accounts.
+     */
+    interface ChangeLog {
+
+        /**
+         * Records an operation that was applied.
+         *
+         * @param operation The operation.
+         * @return The sequence number of the record.
+         */
+        long append(Operation operation);
+
+        /**
+         * Records a month-end posting.
+         *
+         * @return The sequence number of the record.
+         */
+        long appendMonthEnd();
+
+        /**
+         * Records a change to an account.
+         *
+         * @param kind    The kind of change.
+         * @param account The account, which gives the holder, type and code.
+         * @param amount  The amount in cents: the opening balance, or the
+         *                amount deposited or withdrawn.
+         * @return The sequence number of the record.
+         */
+        default long append(Operation.Kind kind, Account account, long amount) {
+            return append(Operation.of(kind, account, amount));
+        }
+    }
+
+    /**
+     * Sets the log that receives every change from now on. It must be set
+     * before the store is shared between threads.
+     *
+     * @param log The change log.
+     * @throws UnsupportedOperationException if the store cannot log its
+     *                                       changes.
+     */
+    default void setChangeLog(ChangeLog log) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot log its changes.");
+    }
+
+    /**
+     * A UB report whose month end has been posted and which is yet to be
+     * printed. Closing it releases anything the store keeps for it.
+     */
+    interface PostedReport extends AutoCloseable {
+
+        /**
+         * Prints the accounts with their balances as posted.
+         *
+         * @param out The sink to print to.
+         */
+        void print(OutputSink out);
+
+        /**
+         * Releases anything the store keeps for the report, if it was not
+         * printed.
+         */
+        @Override
+        default void close() {
+        }
+    }
+
+    /**
+     * Posts the month end as printUpdatedBalances() does, but leaves the
+     * report to be printed later, so that a caller can first wait for the
+     * posting to be journaled without holding up other changes meanwhile.
+     * By default the report is rendered at once, with posting and rendering
+     * as one step, into memory.
+     *
+     * @return The report, to print and close.
+     */
+    default PostedReport postUpdatedBalances() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputSink rendered = new OutputSink(bytes);
+        printUpdatedBalances(rendered);
+        rendered.flush();
+        return out -> out.write(bytes.toByteArray());
+    }
+}
@@ -0,0 +1,230 @@
+package banking;
+
+/**
+ * Running totals of the accounts in a store: how many there are, their
+ * balances, the fees they will be charged and the interest they will earn
+ * this month, for each account type and for each campus of college
+ * checking. A store updates the totals as accounts change, by taking an
+ * account out of them before the change and putting it back after, so the
+ * totals are always exact and cost O(1) per change. Fee tiers need no
+ * special handling: an account that crosses a fee or loyalty threshold
+ * simply comes back with its new fee and interest.
+ *
+ * The totals are not thread-safe; the store guards them.
+ *
+ */
+public class AccountTotals {
+    // The account types come first, by ordinal, then college checking
+    // campuses, by ordinal.
+    private static final int CAMPUS_ROWS = Constants.ACCOUNT_TYPES;
+    static final int ROWS = CAMPUS_ROWS + Campus.values().length;
+
+    private final long[] counts; // number of accounts in each row
+    private final long[] balances; // total balance of each row, in cents
+    private final long[] fees; // total monthly fee of each row, in cents
+    private final long[] interests; // total monthly interest of each row, in cents
+
+    /**
+     * Creates empty totals.
+     */
+    public AccountTotals() {
+        this.counts = new long[ROWS];
+        this.balances = new long[ROWS];
+        this.fees = new long[ROWS];
+        this.interests = new long[ROWS];
+    }
+
+    /**
+     * Gets the row of a campus.
+     *
+     * @param campus The campus.
+     * @return The row of the campus's college checking accounts.
+     */
+    static int campusRow(Campus campus) {
+        return CAMPUS_ROWS + campus.ordinal();
+    }
+
+    /**
+     * Adds an account to the totals.
+     *
+     * @param account The account, with its current balance.
+     */
+    public void add(Account account) {
+        update(account, 1);
+    }
+
+    /**
+     * Takes an account out of the totals.
+     *
+     * @param account The account, with the balance it was added with.
+     */
+    public void remove(Account account) {
+        update(account, -1);
+    }
+
+    /**
+     * Adds or takes out an account.
+     *
+     * @param account The account.
+     * @param sign    1 to add the account, -1 to take it out.
+     */
+    private void update(Account account, int sign) {
+        AccountType type = account.getType();
+        Campus campus = type == AccountType.COLLEGE_CHECKING ? ((CollegeChecking) account).getCampus() : null;
+        update(type, campus, account.getBalanceCents(), account.monthlyFeeCents(), account.monthlyInterestCents(),
+                sign);
+    }
+
+    /**
+     * Adds or takes out an account given by its fields.
+     *
+     * @param type     The account type.
+     * @param campus   The campus of a college checking account, else null.
+     * @param balance  The balance in cents.
+     * @param fee      The monthly fee in cents.
+     * @param interest The monthly interest in cents.
+     * @param sign     1 to add the account, -1 to take it out.
+     */
+    void update(AccountType type, Campus campus, long balance, long fee, long interest, int sign) {
+        update(type.ordinal(), balance, fee, interest, sign);
+        if (campus != null) {
+            update(campusRow(campus), balance, fee, interest, sign);
+        }
+    }
+
+    /**
+     * Adds or takes out an account in one row.
+     *
+     * @param row      The row.
+     * @param balance  The balance in cents.
+     * @param fee      The monthly fee in cents.
+     * @param interest The monthly interest in cents.
+     * @param sign     1 to add the account, -1 to take it out.
+     */
+    private void update(int row, long balance, long fee, long interest, int sign) {
+        counts[row] += sign;
+        balances[row] += sign * balance;
+        fees[row] += sign * fee;
+        interests[row] += sign * interest;
+    }
+
+    /**
+     * Adds every row of other totals to these.
+     *
+     * @param other The totals to add.
+     */
+    public void add(AccountTotals other) {
+        for (int row = 0; row < ROWS; row++) {
+            counts[row] += other.counts[row];
+            balances[row] += other.balances[row];
+            fees[row] += other.fees[row];
+            interests[row] += other.interests[row];
+        }
+    }
+
+    /**
+     * Sets one row of the totals, as when copying them from totals kept
+     * some other way.
+     *
+     * @param row      The row: an account type's ordinal or campusRow(campus).
+     * @param count    The number of accounts.
+     * @param balance  The total balance in cents.
+     * @param fee      The total monthly fee in cents.
+     * @param interest The total monthly interest in cents.
+     */
+    void set(int row, long count, long balance, long fee, long interest) {
+        counts[row] = count;
+        balances[row] = balance;
+        fees[row] = fee;
+        interests[row] = interest;
+    }
+
+    /**
+     * Empties the totals.
+     */
+    public void clear() {
+        for (int row = 0; row < ROWS; row++) {
+            counts[row] = 0;
+            balances[row] = 0;
+            fees[row] = 0;
+            interests[row] = 0;
+        }
+    }
+
+    /**
+     * Gets the number of accounts in a row.
+     *
+     * @param row The row: an account type's ordinal or campusRow(campus).
+     * @return The number of accounts.
+     */
+    public long getCount(int row) {
+        return counts[row];
+    }
+
+    /**
+     * Gets the total balance of a row.
+     *
+     * @param row The row: an account type's ordinal or campusRow(campus).
+     * @return The total balance in cents.
+     */
+    public long getBalance(int row) {
+        return balances[row];
+    }
+
+    /**
+     * Gets the total monthly fee of a row.
+     *
+     * @param row The row: an account type's ordinal or campusRow(campus).
+     * @return The total fee in cents.
+     */
+    public long getFee(int row) {
+        return fees[row];
+    }
+
+    /**
+     * Gets the total monthly interest of a row.
+     *
+     * @param row The row: an account type's ordinal or campusRow(campus).
+     * @return The total interest in cents.
+     */
+    public long getInterest(int row) {
+        return interests[row];
+    }
+
+    /**
+     * Prints the totals of each account type, with the college checking
+     * totals of each campus after their type.
+     *
+     * @param out The sink to print to.
+     */
+    public void print(OutputSink out) {
+        out.println("\n*summary of accounts by type and campus.");
+        StringBuilder line = new StringBuilder(Constants.COMMAND_LINE_SIZE);
+        for (AccountType type : AccountType.values()) {
+            printRow(out, line, type.getLabel(), type.ordinal());
+            if (type == AccountType.COLLEGE_CHECKING) {
+                for (Campus campus : Campus.values()) {
+                    printRow(out, line, type.getLabel() + campus.name() + "::", campusRow(campus));
+                }
+            }
+        }
+        out.println("*end of summary.\n");
+    }
+
+    /**
+     * Prints the totals of one row.
+     *
+     * @param out   The sink to print to.
+     * @param line  The builder to reuse for the line.
+     * @param label The label of the row.
+     * @param row   The row.
+     */
+    private void printRow(OutputSink out, StringBuilder line, String label, int row) {
+        line.setLength(0);
+        line.append(label).append("accounts ").append(counts[row]);
+        Money.format(balances[row], line.append("::balance $"));
+        Money.format(fees[row], line.append("::fee $"));
+        Money.format(interests[row], line.append("::monthly interest $"));
+        out.println(line);
+    }
+}
@@ -0,0 +1,170 @@
+package banking;
+
+/**
+ * The four types of account. Constants are declared in report order, so
+ * the ordinal of a type is its sort rank, and every per-type rule is held
+ * in a table indexed by the ordinal: the command line code, the label in
+ * reports, the number in journal and snapshot records, the monthly fee and
+ * the interest rate. Each account stores its type when it is created, so
+ * stores and reports find an account's rules with one array lookup instead
+ * of instanceof tests or class comparisons.
+ *
+ */
+public enum AccountType {
+    CHECKING,
+    COLLEGE_CHECKING,
+    MONEY_MARKET,
+    SAVINGS;
+
+    private static final AccountType[] TYPES = values();
+    // Codes as typed on the command line, by ordinal.
+    static final String[] CODES = { "C", "CC", "MM", "S" };
+    private static final String[] LABELS = { "Checking::", "College Checking::", "Money Market::Savings::",
+            "Savings::" };
+    // Numbers in journal and snapshot records, by ordinal.
+    private static final byte[] RECORD_CODES = { 0, 1, 3, 2 };
+    private static final AccountType[] BY_RECORD_CODE = { CHECKING, COLLEGE_CHECKING, SAVINGS, MONEY_MARKET };
+    // Monthly fee, and the balance from which it is waived, by ordinal.
+    private static final long[] FEES = { Constants.CHECKING_MONTHLY_FEE, 0, Constants.SAVINGS_FEE,
+            Constants.SAVINGS_FEE };
+    private static final long[] NO_FEE_BALANCES = { Constants.CHECKING_MIN_BALANCE_FOR_NO_FEE, 0,
+            Constants.MIN_BALANCE_LOYAL, Constants.NO_FEE_BALANCE };
+    // Annual interest rate in basis points, before any loyalty bonus, by ordinal.
+    private static final long[] RATES = { Constants.CHECKING_ANNUAL_INTEREST_RATE,
+            Constants.CHECKING_ANNUAL_INTEREST_RATE, Constants.MM_INTEREST, Constants.SAVINGS_INTEREST };
+
+    /**
+     * Gets the type with a given ordinal.
+     *
+     * @param ordinal The ordinal, as stored by an account.
+     * @return The type.
+     */
+    public static AccountType of(int ordinal) {
+        return TYPES[ordinal];
+    }
+
+    /**
+     * Gets the type for a command line code. Unknown codes mean checking, as
+     * they always have on the command line.
+     *
+     * @param code The code: "C", "CC", "S" or "MM".
+     * @return The type.
+     */
+    public static AccountType fromCode(String code) {
+        switch (code) {
+            case "CC":
+                return COLLEGE_CHECKING;
+            case "S":
+                return SAVINGS;
+            case "MM":
+                return MONEY_MARKET;
+            default:
+                return CHECKING;
+        }
+    }
+
+    /**
+     * Gets the type with a number from a journal or snapshot record.
+     *
+     * @param recordCode The number, as returned by getRecordCode().
+     * @return The type.
+     */
+    static AccountType fromRecordCode(int recordCode) {
+        return BY_RECORD_CODE[recordCode];
+    }
+
+    /**
+     * Gets the command line code of the type.
+     *
+     * @return The code: "C", "CC", "S" or "MM".
+     */
+    public String getCode() {
+        return CODES[ordinal()];
+    }
+
+    /**
+     * Gets the label that starts the type's rows in reports.
+     *
+     * @return The label, such as "Checking::".
+     */
+    public String getLabel() {
+        return LABELS[ordinal()];
+    }
+
+    /**
+     * Gets the number of the type in journal and snapshot records. The
+     * numbers predate this enum and do not follow report order.
+     *
+     * @return The record number.
+     */
+    byte getRecordCode() {
+        return RECORD_CODES[ordinal()];
+    }
+
+    /**
+     * Checks if the type is one of the two a holder may only have one of.
+     *
+     * @return true for checking and college checking.
+     */
+    public boolean isChecking() {
+        return this == CHECKING || this == COLLEGE_CHECKING;
+    }
+
+    /**
+     * Calculates the monthly fee of an account of this type. The fee is
+     * waived from a set balance, except that a money market over the
+     * withdrawal limit pays a fee in any case.
+     *
+     * @param balance     The balance in cents.
+     * @param withdrawals The money market withdrawals this month.
+     * @return The fee in cents.
+     */
+    public long fee(long balance, int withdrawals) {
+        int type = ordinal();
+        if (type == MONEY_MARKET.ordinal() && withdrawals > Constants.WITHDRAW_LIMIT) {
+            return balance >= Constants.MIN_BALANCE_LOYAL ? Constants.FEE_WITHDRAW_OVER_LIMIT
+                    : Constants.MM_PLUS_FEE;
+        }
+        return balance >= NO_FEE_BALANCES[type] ? 0 : FEES[type];
+    }
+
+    /**
+     * Calculates the monthly interest of an account of this type. Loyal
+     * savings, and money markets at the loyalty minimum, earn a bonus.
+     *
+     * @param balance The balance in cents.
+     * @param loyal   The loyalty status of a savings account.
+     * @return The interest in cents.
+     */
+    public long interest(long balance, boolean loyal) {
+        int type = ordinal();
+        long interestRate = RATES[type];
+        if (type == MONEY_MARKET.ordinal() ? balance >= Constants.MIN_BALANCE_LOYAL
+                : type == SAVINGS.ordinal() && loyal) {
+            interestRate += Constants.LOYAL_BONUS;
+        }
+        return Money.monthlyInterest(balance, interestRate);
+    }
+
+    /**
+     * Creates an account of this type.
+     *
+     * @param holder  The profile of the account holder.
+     * @param balance The initial balance.
+     * @param code    The campus code for college checking or the loyalty code
+     *                for savings; ignored for the other types.
+     * @return The new account.
+     */
+    public Account newAccount(Profile holder, double balance, int code) {
+        switch (this) {
+            case COLLEGE_CHECKING:
+                return new CollegeChecking(holder, balance, code);
+            case SAVINGS:
+                return new Savings(holder, balance, code);
+            case MONEY_MARKET:
+                return new MoneyMarket(holder, balance, 0);
+            default:
+                return new Checking(holder, balance);
+        }
+    }
+}
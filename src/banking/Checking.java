@@ -15,7 +15,18 @@ public class Checking extends Account {
      * @param balance the initial balance of the account
      */
     public Checking(Profile holder, double balance) {
-        super(holder, balance);
+        super(holder, balance, AccountType.CHECKING);
+    }
+
+    /**
+     * Constructs a new account of a checking type.
+     *
+     * @param holder  the profile of the account holder
+     * @param balance the initial balance of the account
+     * @param type    the type of the account
+     */
+    protected Checking(Profile holder, double balance, AccountType type) {
+        super(holder, balance, type);
     }
 
     /**
@@ -25,7 +36,17 @@ public class Checking extends Account {
      */
     @Override
     public double monthlyInterest() {
-        return balance * (Constants.CHECKING_ANNUAL_INTEREST_RATE / Constants.MONTHS_COUNT);
+        return Money.toDollars(monthlyInterestCents());
+    }
+
+    /**
+     * Calculates the monthly interest for the checking account in cents.
+     *
+     * @return the monthly interest amount in cents
+     */
+    @Override
+    public long monthlyInterestCents() {
+        return interestFor(balance);
     }
 
     /**
@@ -36,10 +57,39 @@ public class Checking extends Account {
      */
     @Override
     public double monthlyFee() {
-        if (balance >= Constants.CHECKING_MIN_BALANCE_FOR_NO_FEE) {
-            return 0;
-        }
-        return Constants.CHECKING_MONTHLY_FEE;
+        return Money.toDollars(monthlyFeeCents());
+    }
+
+    /**
+     * Calculates the monthly fee for the checking account in cents.
+     * Fee is waived if the balance is greater than or equal to the threshold.
+     *
+     * @return the monthly fee amount in cents
+     */
+    @Override
+    public long monthlyFeeCents() {
+        return feeFor(balance);
+    }
+
+    /**
+     * Calculates the monthly interest on a checking balance.
+     *
+     * @param balance the balance in cents
+     * @return the monthly interest amount in cents
+     */
+    public static long interestFor(long balance) {
+        return AccountType.CHECKING.interest(balance, false);
+    }
+
+    /**
+     * Calculates the monthly fee on a checking balance.
+     * Fee is waived if the balance is greater than or equal to the threshold.
+     *
+     * @param balance the balance in cents
+     * @return the monthly fee amount in cents
+     */
+    public static long feeFor(long balance) {
+        return AccountType.CHECKING.fee(balance, 0);
     }
 
     /**
@@ -20,7 +20,7 @@ public class CollegeChecking extends Checking {
      *                1 for NEWARK, 2 for CAMDEN).
      */
     public CollegeChecking(Profile holder, double balance, int code) {
-        super(holder, balance);
+        super(holder, balance, AccountType.COLLEGE_CHECKING);
         switch (code) {
             case 0 -> this.campus = Campus.NEW_BRUNSWICK;
             case 1 -> this.campus = Campus.NEWARK;
@@ -35,7 +35,18 @@ public class CollegeChecking extends Checking {
      */
     @Override
     public double monthlyInterest() {
-        return balance * (Constants.CHECKING_ANNUAL_INTEREST_RATE / Constants.MONTHS_COUNT);
+        return Money.toDollars(monthlyInterestCents());
+    }
+
+    /**
+     * Calculates the monthly interest for the college checking account in
+     * cents.
+     *
+     * @return The monthly interest amount in cents.
+     */
+    @Override
+    public long monthlyInterestCents() {
+        return Checking.interestFor(balance);
     }
 
     /**
@@ -50,6 +61,17 @@ public class CollegeChecking extends Checking {
         return 0;
     }
 
+    /**
+     * Retrieves the monthly fee for the college checking account in cents,
+     * which is always 0.
+     *
+     * @return The monthly fee amount in cents.
+     */
+    @Override
+    public long monthlyFeeCents() {
+        return 0;
+    }
+
     /**
      * Gets the campus associated with this college checking account.
      *
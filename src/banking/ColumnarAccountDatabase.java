@@ -0,0 +1,623 @@
+package banking;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An account store that keeps accounts as parallel arrays of primitives
+ * indexed by slot, rather than as one object per account. Every account
+ * keeps the holder's names as typed for that account, as numbers in a
+ * shared table of names, and the packed date of birth, so it prints and
+ * sorts under the spelling it was opened with; it refers to its holder by
+ * number in a holder table, which the lookup and one-checking rules use.
+ * Reports walk an array of slots in report order, which opens and closes
+ * bring up to date by a merge before the next report. Month-end math runs
+ * as loops over the balance, withdrawal and loyalty arrays, in parallel
+ * partitions of slots.
+ *
+ */
+public class ColumnarAccountDatabase implements AccountStore {
+    // Type tags: the AccountType ordinals, as constants for switch labels.
+    private static final byte CHECKING = 0;
+    private static final byte COLLEGE_CHECKING = 1;
+    private static final byte MONEY_MARKET = 2;
+    private static final byte SAVINGS = 3;
+    private static final int TYPE_COUNT = Constants.ACCOUNT_TYPES;
+    private static final byte NO_CAMPUS = -1;
+
+    private byte[] types; // type tag of each slot
+    private long[] balances; // balance of each slot, in cents
+    private int[] withdrawals; // money market withdrawals this month
+    private boolean[] loyal; // savings loyalty status
+    private byte[] campuses; // college checking campus code, NO_CAMPUS otherwise
+    private int[] holderOf; // holder number of each slot
+    private int[] firstNames; // number of the first name as opened, of each slot
+    private int[] lastNames; // number of the last name as opened, of each slot
+    private int[] dobs; // packed date of birth of each slot
+    private int numAcct; // number of accounts in the database
+    private int numSlots; // number of slots handed out so far
+    private int[] freeSlots; // stack of slots released by close
+    private int numFree; // number of slots on the free stack
+
+    private int[] holderSlots; // slot of each holder's account, TYPE_COUNT per holder
+    private int numHolders; // number of holders seen so far
+    private HashMap<ProfileKey, Integer> holderIds; // holder numbers by profile key
+    private String[] names; // every spelling of a name seen so far, by number
+    private int numNames; // number of names in the table
+    private HashMap<String, Integer> nameIds; // name numbers by spelling
+
+    private int[] order; // slots ordered by type and profile, as of the last merge
+    private int numOrdered; // number of slots in order
+    private int[] added; // slots opened since the last merge, in no order
+    private int numAdded; // number of slots in added
+    private boolean[] pending; // true for a slot opened since the last merge
+    private final AccountTotals totals; // running totals by type and campus
+    private AccountStore.ChangeLog log; // receives every change, or null
+
+    /**
+     * Default constructor initializes the database with a default initial
+     * capacity.
+     */
+    public ColumnarAccountDatabase() {
+        int capacity = Constants.INITIAL_CAPACITY;
+        this.types = new byte[capacity];
+        this.balances = new long[capacity];
+        this.withdrawals = new int[capacity];
+        this.loyal = new boolean[capacity];
+        this.campuses = new byte[capacity];
+        this.holderOf = new int[capacity];
+        this.firstNames = new int[capacity];
+        this.lastNames = new int[capacity];
+        this.dobs = new int[capacity];
+        this.pending = new boolean[capacity];
+        this.freeSlots = new int[capacity];
+        this.holderSlots = new int[capacity * TYPE_COUNT];
+        Arrays.fill(holderSlots, Constants.NOT_FOUND);
+        this.holderIds = new HashMap<>();
+        this.names = new String[capacity];
+        this.nameIds = new HashMap<>();
+        this.order = new int[capacity];
+        this.added = new int[capacity];
+        this.totals = new AccountTotals();
+    }
+
+    /**
+     * Finds the slot of a holder's account of the given type.
+     *
+     * @param holder The profile of the account holder.
+     * @param type   The type tag of the account.
+     * @return The slot of the account if found, otherwise returns
+     *         Constants.NOT_FOUND.
+     */
+    private int find(Profile holder, int type) {
+        Integer holderId = holderIds.get(holder.getKey());
+        if (holderId == null) {
+            return Constants.NOT_FOUND;
+        }
+        return holderSlots[holderId * TYPE_COUNT + type];
+    }
+
+    /**
+     * Finds the slot of the account with the same holder and type as the
+     * given account.
+     *
+     * @param account The account to find.
+     * @return The slot of the account if found, otherwise returns
+     *         Constants.NOT_FOUND.
+     */
+    private int findExact(Account account) {
+        return find(account.getHolder(), account.getType().ordinal());
+    }
+
+    /**
+     * Looks up a holder's number, adding the holder to the holder table if
+     * it is new.
+     *
+     * @param holder The profile of the holder.
+     * @return The holder number.
+     */
+    private int holderId(Profile holder) {
+        Integer holderId = holderIds.get(holder.getKey());
+        if (holderId != null) {
+            return holderId;
+        }
+        if ((numHolders + 1) * TYPE_COUNT > holderSlots.length) {
+            int capacity = holderSlots.length / TYPE_COUNT * Constants.GROWTH_FACTOR;
+            holderSlots = Arrays.copyOf(holderSlots, capacity * TYPE_COUNT);
+            Arrays.fill(holderSlots, numHolders * TYPE_COUNT, holderSlots.length, Constants.NOT_FOUND);
+        }
+        holderIds.put(holder.getKey(), numHolders);
+        return numHolders++;
+    }
+
+    /**
+     * Looks up the number of a name as spelled, adding it to the name table
+     * if it is new.
+     *
+     * @param name The name.
+     * @return The name number.
+     */
+    private int nameId(String name) {
+        Integer nameId = nameIds.get(name);
+        if (nameId != null) {
+            return nameId;
+        }
+        if (numNames >= names.length) {
+            names = Arrays.copyOf(names, names.length * Constants.GROWTH_FACTOR);
+        }
+        names[numNames] = name;
+        nameIds.put(name, numNames);
+        return numNames++;
+    }
+
+    /**
+     * Takes a slot for a new account, reusing one released by close if there
+     * is one, and growing every column geometrically when full.
+     *
+     * @return The slot to store the new account in.
+     */
+    private int allocateSlot() {
+        if (numFree > 0) {
+            numFree--;
+            return freeSlots[numFree];
+        }
+        if (numSlots >= types.length) {
+            int capacity = types.length * Constants.GROWTH_FACTOR;
+            types = Arrays.copyOf(types, capacity);
+            balances = Arrays.copyOf(balances, capacity);
+            withdrawals = Arrays.copyOf(withdrawals, capacity);
+            loyal = Arrays.copyOf(loyal, capacity);
+            campuses = Arrays.copyOf(campuses, capacity);
+            holderOf = Arrays.copyOf(holderOf, capacity);
+            firstNames = Arrays.copyOf(firstNames, capacity);
+            lastNames = Arrays.copyOf(lastNames, capacity);
+            dobs = Arrays.copyOf(dobs, capacity);
+            pending = Arrays.copyOf(pending, capacity);
+        }
+        return numSlots++;
+    }
+
+    /**
+     * Checks if the database contains a specific account. A holder may only
+     * have one of Checking and CollegeChecking, so a checking account is
+     * reported as present if the holder has either one.
+     *
+     * @param account The account to check.
+     * @return true if the account exists, false otherwise.
+     */
+    @Override
+    public boolean contains(Account account) {
+        if (findExact(account) != Constants.NOT_FOUND) {
+            return true;
+        }
+        if (account.getType().isChecking()) {
+            return find(account.getHolder(), CHECKING) != Constants.NOT_FOUND
+                    || find(account.getHolder(), COLLEGE_CHECKING) != Constants.NOT_FOUND;
+        }
+        return false;
+    }
+
+    /**
+     * Adds a new account to the database. The holder's date of birth must be
+     * a valid date, as for every open the transaction manager lets through,
+     * so that it packs into an int.
+     *
+     * @param account The account to be added.
+     * @return true if the account was added successfully, false if the
+     *         database already contains it.
+     */
+    @Override
+    public boolean open(Account account) {
+        if (contains(account)) {
+            return false;
+        }
+        int type = account.getType().ordinal();
+        int holderId = holderId(account.getHolder());
+        int slot = allocateSlot();
+        types[slot] = (byte) type;
+        balances[slot] = account.getBalanceCents();
+        withdrawals[slot] = type == MONEY_MARKET ? ((MoneyMarket) account).getWithdrawals() : 0;
+        loyal[slot] = (type == SAVINGS || type == MONEY_MARKET) && ((Savings) account).isLoyal();
+        campuses[slot] = type == COLLEGE_CHECKING
+                ? (byte) ((CollegeChecking) account).getCampus().ordinal()
+                : NO_CAMPUS;
+        holderOf[slot] = holderId;
+        firstNames[slot] = nameId(account.getHolder().getFname());
+        lastNames[slot] = nameId(account.getHolder().getLname());
+        dobs[slot] = account.getHolder().getDob().pack();
+        holderSlots[holderId * TYPE_COUNT + type] = slot;
+        if (numAdded >= added.length) {
+            added = Arrays.copyOf(added, added.length * Constants.GROWTH_FACTOR);
+        }
+        added[numAdded++] = slot;
+        pending[slot] = true;
+        count(slot, 1);
+        numAcct++;
+        if (log != null) {
+            log.append(Operation.Kind.OPEN, account, account.getBalanceCents());
+        }
+        return true;
+    }
+
+    /**
+     * Removes the account with the same holder and type as the given one. The
+     * slot is released in constant time; the next merge drops it from the
+     * report order. The holder stays in the holder table so that reopening
+     * an account reuses the holder number.
+     *
+     * @param account The account to be removed.
+     * @return true if the account was removed successfully, false otherwise.
+     */
+    @Override
+    public boolean close(Account account) {
+        int slot = findExact(account);
+        if (slot == Constants.NOT_FOUND) {
+            return false;
+        }
+        count(slot, -1);
+        holderSlots[holderOf[slot] * TYPE_COUNT + types[slot]] = Constants.NOT_FOUND;
+        if (numFree >= freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * Constants.GROWTH_FACTOR);
+        }
+        freeSlots[numFree] = slot;
+        numFree++;
+        numAcct--;
+        if (log != null) {
+            log.append(Operation.Kind.CLOSE, account, 0);
+        }
+        return true;
+    }
+
+    /**
+     * Processes a withdrawal operation on a specific account.
+     *
+     * @param account The account from which to withdraw. The balance of this
+     *                account object represents the amount to be withdrawn.
+     * @return true if the withdrawal was successful, false otherwise.
+     */
+    @Override
+    public boolean withdraw(Account account) {
+        int slot = findExact(account);
+        if (slot == Constants.NOT_FOUND) {
+            account.setBalance(Constants.NOT_FOUND);
+            return false; // Account not found
+        }
+        if (balances[slot] < account.getBalanceCents()) {
+            return false; // Insufficient funds
+        }
+        count(slot, -1);
+        balances[slot] -= account.getBalanceCents();
+        if (types[slot] == MONEY_MARKET) {
+            withdrawals[slot]++;
+        }
+        count(slot, 1);
+        if (log != null) {
+            log.append(Operation.Kind.WITHDRAW, account, account.getBalanceCents());
+        }
+        return true;
+    }
+
+    /**
+     * Processes a deposit operation on a specific account.
+     *
+     * @param account The account in which to deposit. The balance of this
+     *                account object represents the amount to be deposited.
+     * @return true if the account was found, false otherwise.
+     */
+    @Override
+    public boolean deposit(Account account) {
+        int slot = findExact(account);
+        if (slot == Constants.NOT_FOUND) {
+            return false;
+        }
+        long cents = account.getBalanceCents();
+        count(slot, -1);
+        balances[slot] += cents;
+        count(slot, 1);
+        account.setBalance(Constants.ACCOUNT_FOUND);
+        if (log != null) {
+            log.append(Operation.Kind.DEPOSIT, account, cents);
+        }
+        return true;
+    }
+
+    /**
+     * Adds the account in a slot to the totals, or takes it out.
+     *
+     * @param slot The slot of the account.
+     * @param sign 1 to add the account, -1 to take it out.
+     */
+    private void count(int slot, int sign) {
+        count(totals, slot, sign);
+    }
+
+    /**
+     * Adds the account in a slot to some totals, or takes it out.
+     *
+     * @param into The totals to update.
+     * @param slot The slot of the account.
+     * @param sign 1 to add the account, -1 to take it out.
+     */
+    private void count(AccountTotals into, int slot, int sign) {
+        Campus campus = types[slot] == COLLEGE_CHECKING ? Campus.values()[campuses[slot]] : null;
+        into.update(AccountType.of(types[slot]), campus, balances[slot], monthlyFee(slot), monthlyInterest(slot), sign);
+    }
+
+    /**
+     * Checks if a slot holds an account, rather than being free.
+     *
+     * @param slot The slot.
+     * @return true if the slot holds an open account.
+     */
+    private boolean inUse(int slot) {
+        return holderSlots[holderOf[slot] * TYPE_COUNT + types[slot]] == slot;
+    }
+
+    /**
+     * Checks if the account in a slot shows as loyal. Money market loyalty
+     * follows the balance; savings loyalty is fixed when the account opens.
+     *
+     * @param slot The slot of the account.
+     * @return true if the account is loyal.
+     */
+    private boolean isLoyal(int slot) {
+        if (types[slot] == MONEY_MARKET) {
+            return MoneyMarket.isLoyalFor(balances[slot]);
+        }
+        return loyal[slot];
+    }
+
+    /**
+     * Calculates the monthly fee of a slot.
+     *
+     * @param slot The slot of the account.
+     * @return The fee in cents.
+     */
+    private long monthlyFee(int slot) {
+        return AccountType.of(types[slot]).fee(balances[slot], withdrawals[slot]);
+    }
+
+    /**
+     * Calculates the monthly interest of a slot.
+     *
+     * @param slot The slot of the account.
+     * @return The interest in cents.
+     */
+    private long monthlyInterest(int slot) {
+        return AccountType.of(types[slot]).interest(balances[slot], loyal[slot]);
+    }
+
+    /**
+     * Compares the accounts in two slots by type, then by the holder's last
+     * name, first name and date of birth, as AccountDatabase orders accounts.
+     *
+     * @param first  The slot of the first account.
+     * @param second The slot of the second account.
+     * @return A negative integer, zero, or a positive integer as the first
+     *         account comes before, with or after the second.
+     */
+    private int compareSlots(int first, int second) {
+        if (types[first] != types[second]) {
+            return Byte.compare(types[first], types[second]);
+        }
+        if (lastNames[first] != lastNames[second]) {
+            int comparison = names[lastNames[first]].compareTo(names[lastNames[second]]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        if (firstNames[first] != firstNames[second]) {
+            int comparison = names[firstNames[first]].compareTo(names[firstNames[second]]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(dobs[first], dobs[second]);
+    }
+
+    /**
+     * Sorts part of an array of slots in report order, by merge sort.
+     *
+     * @param slots  The slots.
+     * @param from   The first index to sort.
+     * @param to     Just after the last index to sort.
+     * @param buffer Scratch space for the same indexes.
+     */
+    private void sort(int[] slots, int from, int to, int[] buffer) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(slots, from, middle, buffer);
+        sort(slots, middle, to, buffer);
+        System.arraycopy(slots, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || left < middle && compareSlots(buffer[left], buffer[right]) <= 0) {
+                slots[i] = buffer[left++];
+            } else {
+                slots[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * Brings the report order up to date with the opens and closes since the
+     * last merge: drops closed slots, and slots reopened since, from the
+     * order, sorts the new slots and merges the two runs.
+     */
+    private void merge() {
+        if (numAdded == 0 && numOrdered == numAcct) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < numOrdered; i++) {
+            int slot = order[i];
+            if (inUse(slot) && !pending[slot]) {
+                order[kept++] = slot;
+            }
+        }
+        int fresh = 0;
+        for (int i = 0; i < numAdded; i++) {
+            int slot = added[i];
+            if (inUse(slot) && pending[slot]) {
+                added[fresh++] = slot; // a slot opened twice since the merge is kept once
+            }
+            pending[slot] = false;
+        }
+        int[] merged = new int[Math.max(numAcct, order.length)];
+        sort(added, 0, fresh, merged);
+        int left = 0;
+        int right = 0;
+        for (int i = 0; i < numAcct; i++) {
+            if (right >= fresh || left < kept && compareSlots(order[left], added[right]) <= 0) {
+                merged[i] = order[left++];
+            } else {
+                merged[i] = added[right++];
+            }
+        }
+        order = merged;
+        numOrdered = numAcct;
+        numAdded = 0;
+    }
+
+    /**
+     * Prints the row of a slot.
+     *
+     * @param renderer    The renderer of the report.
+     * @param slot        The slot of the account.
+     * @param balance     The balance to show, in cents.
+     * @param withdrawals The withdrawal count to show for a money market.
+     * @param fee         The monthly fee in cents.
+     * @param interest    The monthly interest in cents.
+     */
+    private void row(ReportRenderer renderer, int slot, long balance, int withdrawals, long fee, long interest) {
+        renderer.holder(AccountType.of(types[slot]), names[firstNames[slot]], names[lastNames[slot]], dobs[slot]);
+        switch (types[slot]) {
+            case COLLEGE_CHECKING -> renderer.rest(balance, Campus.values()[campuses[slot]], false,
+                    ReportRenderer.NO_WITHDRAWALS, fee, interest);
+            case MONEY_MARKET -> renderer.rest(balance, null, isLoyal(slot), withdrawals, fee, interest);
+            case SAVINGS -> renderer.rest(balance, null, isLoyal(slot), ReportRenderer.NO_WITHDRAWALS, fee,
+                    interest);
+            default -> renderer.rest(balance, null, false, ReportRenderer.NO_WITHDRAWALS, fee, interest);
+        }
+    }
+
+    /**
+     * Prints the sorted list of accounts.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printSorted(OutputSink out) {
+        if (numAcct == 0) {
+            ReportRenderer.empty(out);
+            return;
+        }
+        ReportRenderer renderer = new ReportRenderer(ReportRenderer.Report.SORTED, out);
+        renderer.begin();
+        merge();
+        for (int i = 0; i < numOrdered; i++) {
+            int slot = order[i];
+            row(renderer, slot, balances[slot], 0, 0, 0);
+        }
+        renderer.end();
+    }
+
+    /**
+     * Prints detailed account information including fees and monthly interests.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printFeesAndInterests(OutputSink out) {
+        if (numAcct == 0) {
+            ReportRenderer.empty(out);
+            return;
+        }
+        ReportRenderer renderer = new ReportRenderer(ReportRenderer.Report.FEES_AND_INTERESTS, out);
+        renderer.begin();
+        merge();
+        for (int i = 0; i < numOrdered; i++) {
+            int slot = order[i];
+            row(renderer, slot, balances[slot], withdrawals[slot], monthlyFee(slot), monthlyInterest(slot));
+        }
+        renderer.end();
+    }
+
+    /**
+     * Posts the month end in parallel partitions of slots, working on the
+     * balance and withdrawal columns in place and skipping free slots. Each
+     * partition totals its open accounts and adds them to the database's
+     * totals when it is done.
+     */
+    @Override
+    public void postMonthEnd() {
+        totals.clear();
+        MonthEnd.post(numSlots, (from, to) -> {
+            AccountTotals posted = new AccountTotals();
+            for (int slot = from; slot < to; slot++) {
+                if (!inUse(slot)) {
+                    continue;
+                }
+                long fee = monthlyFee(slot);
+                balances[slot] += monthlyInterest(slot) - fee;
+                withdrawals[slot] = 0;
+                count(posted, slot, 1);
+            }
+            synchronized (totals) {
+                totals.add(posted);
+            }
+        });
+        if (log != null) {
+            log.appendMonthEnd();
+        }
+    }
+
+    /**
+     * Sets the log that receives every change from now on.
+     *
+     * @param log The change log.
+     */
+    @Override
+    public void setChangeLog(AccountStore.ChangeLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Prints the totals of each account type and campus, in O(1).
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printSummary(OutputSink out) {
+        if (numAcct == 0) {
+            ReportRenderer.empty(out);
+            return;
+        }
+        totals.print(out);
+    }
+
+    /**
+     * Posts the month end and prints the accounts with their new balances.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printUpdatedBalances(OutputSink out) {
+        if (numAcct == 0) {
+            ReportRenderer.empty(out);
+            return;
+        }
+        postMonthEnd();
+        ReportRenderer renderer = new ReportRenderer(ReportRenderer.Report.UPDATED_BALANCES, out);
+        renderer.begin();
+        merge();
+        for (int i = 0; i < numOrdered; i++) {
+            int slot = order[i];
+            row(renderer, slot, balances[slot], 0, 0, 0);
+        }
+        renderer.end();
+    }
+}
@@ -0,0 +1,152 @@
+package banking;
+
+/**
+ * One decoded command line: what to do, the account it concerns, and once
+ * it has been carried out, whether it succeeded. TransactionManager fills a
+ * command from a line without touching the store, applies it to the store,
+ * and then prints its response, so the three steps can run one after the
+ * other or, in a CommandPipeline, on different threads. Commands are
+ * mutable and reused from line to line.
+ *
+ */
+public class Command {
+
+    /**
+     * What a command line asks for.
+     */
+    public enum Kind {
+        NONE, // a blank line, which has no response
+        MESSAGE, // a line rejected before reaching the store
+        QUIT,
+        OPEN,
+        CLOSE,
+        DEPOSIT,
+        WITHDRAW,
+        PRINT_SORTED,
+        PRINT_FEES_AND_INTERESTS,
+        UPDATE_BALANCES,
+        PRINT_SUMMARY;
+
+        /**
+         * Checks if the command prints a report from the store, so it is
+         * printed as it is applied rather than afterwards.
+         *
+         * @return true for P, PI, UB and PS.
+         */
+        public boolean isReport() {
+            return this == PRINT_SORTED || this == PRINT_FEES_AND_INTERESTS || this == UPDATE_BALANCES
+                    || this == PRINT_SUMMARY;
+        }
+    }
+
+    private Kind kind;
+    private String message; // the response of a rejected line
+    private String typeCode; // the account type as typed
+    private Account account; // the account to open, or the one to find with the amount
+    private boolean succeeded; // the outcome in the store
+
+    /**
+     * Creates an empty command.
+     */
+    public Command() {
+        clear();
+    }
+
+    /**
+     * Empties the command, as for a blank line.
+     */
+    void clear() {
+        set(Kind.NONE);
+    }
+
+    /**
+     * Makes the command one that needs no account.
+     *
+     * @param kind The kind of command.
+     */
+    void set(Kind kind) {
+        this.kind = kind;
+        this.message = null;
+        this.typeCode = null;
+        this.account = null;
+        this.succeeded = false;
+    }
+
+    /**
+     * Makes the command one that changes an account.
+     *
+     * @param kind     The kind of command: OPEN, CLOSE, DEPOSIT or WITHDRAW.
+     * @param typeCode The account type as typed.
+     * @param account  The account to open, or for the others an account
+     *                 with the holder, type and amount to look up.
+     */
+    void set(Kind kind, String typeCode, Account account) {
+        set(kind);
+        this.typeCode = typeCode;
+        this.account = account;
+    }
+
+    /**
+     * Makes the command a rejected line.
+     *
+     * @param message The response to print.
+     */
+    void reject(String message) {
+        set(Kind.MESSAGE);
+        this.message = message;
+    }
+
+    /**
+     * Records the outcome in the store.
+     *
+     * @param succeeded true if the store made the change.
+     */
+    void setSucceeded(boolean succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    /**
+     * Gets the kind of command.
+     *
+     * @return The kind.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the response of a rejected line.
+     *
+     * @return The message, or null if the line was not rejected.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Gets the account type as typed.
+     *
+     * @return The type code, or null if the command has no account.
+     */
+    public String getTypeCode() {
+        return typeCode;
+    }
+
+    /**
+     * Gets the account the command concerns.
+     *
+     * @return The account, or null if the command has none.
+     */
+    public Account getAccount() {
+        return account;
+    }
+
+    /**
+     * Checks if the store made the change.
+     *
+     * @return true if the command succeeded.
+     */
+    public boolean isSucceeded() {
+        return succeeded;
+    }
+}
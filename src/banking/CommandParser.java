@@ -0,0 +1,282 @@
+package banking;
+
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits a command line into tokens and parses them in place. The line is
+ * held in a reusable char buffer and the parser moves a cursor over it, so
+ * reading the command, account type, date, amount and codes of a command
+ * does not allocate. Only names, which become part of a profile, are
+ * copied out as strings.
+ *
+ * Tokens are separated by the same characters as StringTokenizer's
+ * defaults. Numbers and dates in their usual forms are parsed directly;
+ * anything else is handed to Integer.parseInt, Double.parseDouble or
+ * new Date(String), so every input is accepted, rejected and reported
+ * exactly as before.
+ *
+ */
+public class CommandParser {
+    private static final int MAX_FAST_INT_DIGITS = 9;
+    private static final int MAX_FAST_DOUBLE_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private char[] chars; // the current line
+    private int length; // number of chars in the line
+    private int position; // cursor, just after the current token
+    private int start; // first char of the current token
+    private int end; // just after the last char of the current token
+
+    /**
+     * Creates a parser with an empty line.
+     */
+    public CommandParser() {
+        this.chars = new char[Constants.COMMAND_LINE_SIZE];
+    }
+
+    /**
+     * Starts parsing a new line.
+     *
+     * @param line The command line.
+     */
+    public void reset(String line) {
+        ensureCapacity(line.length());
+        line.getChars(0, line.length(), chars, 0);
+        length = line.length();
+        position = 0;
+        start = 0;
+        end = 0;
+    }
+
+    /**
+     * Starts parsing a new line given as UTF-8 bytes. ASCII lines are copied
+     * char by char; others are decoded.
+     *
+     * @param bytes The bytes of the line.
+     * @param count The number of bytes in the line.
+     */
+    public void reset(byte[] bytes, int count) {
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            if (bytes[i] < 0) {
+                reset(new String(bytes, 0, count, StandardCharsets.UTF_8));
+                return;
+            }
+            chars[i] = (char) bytes[i];
+        }
+        length = count;
+        position = 0;
+        start = 0;
+        end = 0;
+    }
+
+    /**
+     * Grows the line buffer to hold at least the given number of chars.
+     *
+     * @param capacity The number of chars needed.
+     */
+    private void ensureCapacity(int capacity) {
+        if (chars.length < capacity) {
+            chars = new char[Math.max(capacity, chars.length * Constants.GROWTH_FACTOR)];
+        }
+    }
+
+    /**
+     * Checks if a char separates tokens.
+     *
+     * @param c The char.
+     * @return true for space, tab, newline, carriage return and form feed.
+     */
+    private static boolean isDelimiter(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    /**
+     * Checks if another token follows the cursor.
+     *
+     * @return true if there is another token.
+     */
+    public boolean hasNext() {
+        while (position < length && isDelimiter(chars[position])) {
+            position++;
+        }
+        return position < length;
+    }
+
+    /**
+     * Moves the cursor over the next token, which the other methods then
+     * read.
+     *
+     * @throws NoSuchElementException if there are no more tokens.
+     */
+    public void next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        start = position;
+        while (position < length && !isDelimiter(chars[position])) {
+            position++;
+        }
+        end = position;
+    }
+
+    /**
+     * Finds the current token among a set of known strings.
+     *
+     * @param known The strings to look for.
+     * @return The matching string from known, or null if none matches.
+     */
+    public String match(String[] known) {
+        for (String candidate : known) {
+            if (tokenEquals(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the current token equals a string.
+     *
+     * @param text The string to compare with.
+     * @return true if the token has the same chars.
+     */
+    private boolean tokenEquals(String text) {
+        if (text.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (chars[start + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the current token out as a string.
+     *
+     * @return The token.
+     */
+    public String token() {
+        return new String(chars, start, end - start);
+    }
+
+    /**
+     * Parses the current token as an int, like Integer.parseInt.
+     *
+     * @return The value of the token.
+     * @throws NumberFormatException if the token is not an int.
+     */
+    public int parseInt() {
+        int value = digits(start, end);
+        if (value != Constants.NOT_FOUND) {
+            return value;
+        }
+        return Integer.parseInt(token());
+    }
+
+    /**
+     * Parses a run of ASCII digits short enough not to overflow.
+     *
+     * @param from The first char of the run.
+     * @param to   Just after the last char of the run.
+     * @return The value, or Constants.NOT_FOUND if the run is empty, too long
+     *         or not all digits.
+     */
+    private int digits(int from, int to) {
+        if (from == to || to - from > MAX_FAST_INT_DIGITS) {
+            return Constants.NOT_FOUND;
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Constants.NOT_FOUND;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Parses the current token as a double, like Double.parseDouble. A plain
+     * decimal of up to fifteen digits is exact as a long, and ten to the
+     * power of its number of fraction digits is exact as a double, so one
+     * correctly rounded division gives the same double Double.parseDouble
+     * would.
+     *
+     * @return The value of the token.
+     * @throws NumberFormatException if the token is not a number.
+     */
+    public double parseDouble() {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digitCount = 0;
+        int fractionDigits = 0;
+        boolean point = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digitCount++;
+                if (point) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                digitCount = Integer.MAX_VALUE; // not a plain decimal
+                break;
+            }
+        }
+        if (digitCount == 0 || digitCount > MAX_FAST_DOUBLE_DIGITS) {
+            return Double.parseDouble(token());
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses the current token as a date in the form "mm/dd/yyyy", like new
+     * Date(String).
+     *
+     * @return The date.
+     */
+    public Date parseDate() {
+        int firstSlash = indexOf('/', start);
+        int secondSlash = firstSlash < 0 ? Constants.NOT_FOUND : indexOf('/', firstSlash + 1);
+        if (secondSlash >= 0) {
+            int month = digits(start, firstSlash);
+            int day = digits(firstSlash + 1, secondSlash);
+            int year = digits(secondSlash + 1, end);
+            if (month != Constants.NOT_FOUND && day != Constants.NOT_FOUND && year != Constants.NOT_FOUND) {
+                return new Date(year, month, day);
+            }
+        }
+        return new Date(token());
+    }
+
+    /**
+     * Finds a char in the current token.
+     *
+     * @param c    The char to look for.
+     * @param from Where to start looking.
+     * @return The index of the char, or Constants.NOT_FOUND.
+     */
+    private int indexOf(char c, int from) {
+        for (int i = from; i < end; i++) {
+            if (chars[i] == c) {
+                return i;
+            }
+        }
+        return Constants.NOT_FOUND;
+    }
+}
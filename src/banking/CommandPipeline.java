@@ -0,0 +1,229 @@
+package banking;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * Runs a TransactionManager's batch as a pipeline of threads joined by a
+ * ring of preallocated slots. The calling thread reads lines into slots;
+ * one or more parser threads decode them into commands; a single writer
+ * thread applies the commands to the store, so the store needs no locks;
+ * and an output thread prints the responses. Each stage publishes how far
+ * it has got in a sequence counter, and waits on the counter of the stage
+ * before it, spinning briefly and then yielding, instead of handing slots
+ * through blocking queues. Slot n of the input always goes through slot
+ * n % size of the ring, so commands are applied and answered in input
+ * order and the output is the same as runBatch's.
+ *
+ * Reports read the store, so the writer prints them itself, once the
+ * output thread has printed every earlier response; the output thread
+ * then skips them. After Q the writer and output thread let the remaining
+ * slots go by, and the reader stops.
+ *
+ */
+public class CommandPipeline {
+    private static final int SPINS = 100; // busy spins before each yield while waiting
+
+    /**
+     * One slot of the ring: a line and the command decoded from it.
+     */
+    private static final class Slot {
+        private final CommandParser parser = new CommandParser(); // the line, as read
+        private final Command command = new Command();
+        private volatile long decoded = -1; // the sequence last decoded into this slot
+    }
+
+    private final TransactionManager manager;
+    private final int parsers;
+    private final Slot[] slots;
+    private final int mask;
+    private volatile long read = -1; // the last sequence read into its slot
+    private volatile long applied = -1; // the last sequence the writer is done with
+    private volatile long printed = -1; // the last sequence the output thread is done with
+    private volatile long end = Long.MAX_VALUE; // the sequence after the last line read
+    private volatile boolean stopped; // the writer has applied a Q command
+    private volatile Throwable failure; // the first error in a stage
+
+    /**
+     * Creates a pipeline for a transaction manager.
+     *
+     * @param manager The manager whose decode, execute and respond steps run
+     *                in the stages.
+     * @param parsers The number of parser threads.
+     */
+    public CommandPipeline(TransactionManager manager, int parsers) {
+        this.manager = manager;
+        this.parsers = parsers;
+        this.slots = new Slot[Constants.PIPELINE_SLOTS];
+        this.mask = slots.length - 1;
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * Processes every line a reader returns, up to a Q command or the end
+     * of input, and waits for the stages to finish.
+     *
+     * @param reader The reader to take lines from.
+     * @throws IOException if the lines cannot be read.
+     */
+    public void run(CommandReader reader) throws IOException {
+        Thread[] threads = new Thread[parsers + 2];
+        for (int i = 0; i < parsers; i++) {
+            int first = i;
+            threads[i] = stage("parser-" + i, () -> parse(first));
+        }
+        threads[parsers] = stage("writer", this::write);
+        threads[parsers + 1] = stage("output", this::print);
+        try {
+            read(reader);
+        } finally {
+            // On a read error the stages still finish the lines already read.
+            end = read + 1;
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the pipeline.");
+                }
+            }
+        }
+        if (failure != null) {
+            throw new IllegalStateException("A pipeline stage failed.", failure);
+        }
+    }
+
+    /**
+     * Starts a stage thread that records any error it ends with.
+     *
+     * @param name The name of the thread.
+     * @param body The work of the stage.
+     * @return The started thread.
+     */
+    private Thread stage(String name, Runnable body) {
+        Thread thread = new Thread(() -> {
+            try {
+                body.run();
+            } catch (RuntimeException | Error e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }, name);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Reads lines into slots until Q has been applied or input ends,
+     * publishing each line in the read counter.
+     *
+     * @param reader The reader to take lines from.
+     * @throws IOException if the lines cannot be read.
+     */
+    private void read(CommandReader reader) throws IOException {
+        long sequence = 0;
+        while (!stopped) {
+            // Wait until the output thread is done with the slot's last use.
+            for (int waits = 0; printed < sequence - slots.length; waits++) {
+                if (stopped) {
+                    return;
+                }
+                idle(waits);
+            }
+            if (!reader.readLine(slots[(int) sequence & mask].parser)) {
+                break;
+            }
+            read = sequence;
+            sequence++;
+        }
+    }
+
+    /**
+     * Decodes every slot this parser owns: first, first + parsers, and so
+     * on.
+     *
+     * @param first The first sequence this parser decodes.
+     */
+    private void parse(long first) {
+        for (long sequence = first; ; sequence += parsers) {
+            for (int waits = 0; read < sequence; waits++) {
+                if (end <= sequence) {
+                    return;
+                }
+                idle(waits);
+            }
+            Slot slot = slots[(int) sequence & mask];
+            manager.decode(slot.parser, slot.command);
+            slot.decoded = sequence;
+        }
+    }
+
+    /**
+     * Applies every decoded command in order. Only this thread uses the
+     * store.
+     */
+    private void write() {
+        for (long sequence = 0; ; sequence++) {
+            Slot slot = slots[(int) sequence & mask];
+            for (int waits = 0; slot.decoded != sequence; waits++) {
+                if (end <= sequence) {
+                    return;
+                }
+                idle(waits);
+            }
+            Command command = slot.command;
+            if (!stopped) {
+                if (command.getKind().isReport()) {
+                    // The report goes straight to the sink, after every earlier response.
+                    for (int waits = 0; printed < sequence - 1; waits++) {
+                        idle(waits);
+                    }
+                }
+                manager.execute(command);
+                stopped = command.getKind() == Command.Kind.QUIT;
+            }
+            applied = sequence;
+        }
+    }
+
+    /**
+     * Prints the response of every applied command in order, up to Q.
+     */
+    private void print() {
+        boolean quit = false;
+        for (long sequence = 0; ; sequence++) {
+            for (int waits = 0; applied < sequence; waits++) {
+                if (end <= sequence) {
+                    return;
+                }
+                idle(waits);
+            }
+            Command command = slots[(int) sequence & mask].command;
+            if (!quit) {
+                manager.respond(command);
+                quit = command.getKind() == Command.Kind.QUIT;
+            }
+            printed = sequence;
+        }
+    }
+
+    /**
+     * Waits a little for another stage: a busy spin at first, then a yield
+     * of the processor. Gives up if a stage has failed.
+     *
+     * @param waits The number of times this wait has idled so far.
+     */
+    private void idle(int waits) {
+        if (failure != null) {
+            throw new IllegalStateException("A pipeline stage failed.", failure);
+        }
+        if (waits < SPINS) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+    }
+}
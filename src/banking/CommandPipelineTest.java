@@ -0,0 +1,128 @@
+package banking;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Tests the CommandPipeline class, focusing on giving the same output as
+ * processing the commands one at a time.
+ *
+ */
+
+public class CommandPipelineTest {
+    private static final DateClock CLOCK = new DateClock(Clock.fixed(Instant.parse("2024-01-15T12:00:00Z"),
+            ZoneOffset.UTC));
+
+    /**
+     * Tests that the pipeline prints what runBatch prints for a script of
+     * several thousand commands, including bad lines and every report, and
+     * that lines after Q are ignored by both.
+     */
+    @Test
+    public void testMatchesRunBatch() throws IOException {
+        StringBuilder script = new StringBuilder();
+        String[] types = { "C", "S", "MM" };
+        String[] codes = { "", " 1", "" };
+        for (int i = 0; i < 300; i++) {
+            script.append("O ").append(types[i % 3]).append(" First").append(i).append(" Doe 1/1/1990 ")
+                    .append(2000 + i).append(codes[i % 3]).append('\n');
+        }
+        for (int i = 0; i < 5000; i++) {
+            int holder = i * 7 % 300;
+            String type = types[holder % 3];
+            switch (i % 50) {
+                case 0 -> script.append("P\n");
+                case 1 -> script.append("PI\n");
+                case 2 -> script.append("X bad command\n");
+                case 3 -> script.append("D ").append(type).append(" Nobody Here 1/1/1990 5\n");
+                case 4 -> script.append("C ").append(type).append(" First").append(holder).append(" Doe 1/1/1990\n");
+                default -> script.append(i % 2 == 0 ? "D " : "W ").append(type).append(" First").append(holder)
+                        .append(" Doe 1/1/1990 ").append(i % 13 + 0.25).append('\n');
+            }
+        }
+        script.append("UB\nP\nQ\nO C After Quit 1/1/1990 100\nP\n");
+        String expected = run(script.toString(), 0);
+        Assertions.assertFalse(expected.contains("After"), "Expected lines after Q to be ignored.");
+        Assertions.assertTrue(expected.endsWith("Transaction Manager is terminated.\n"));
+        for (int parsers = 1; parsers <= 3; parsers++) {
+            Assertions.assertEquals(expected, run(script.toString(), parsers),
+                    "Expected the pipeline with " + parsers + " parsers to match runBatch.");
+        }
+    }
+
+    /**
+     * Tests that when the input fails, the commands read before the error
+     * are still applied and answered, instead of the stages waiting for
+     * lines that never come.
+     */
+    @Test
+    @Timeout(10)
+    public void testReadErrorFinishesLinesRead() {
+        byte[] lines = "O C John Doe 1/1/1990 100\nP\n".getBytes(StandardCharsets.UTF_8);
+        ReadableByteChannel failing = new ReadableByteChannel() {
+            private boolean sent;
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                if (sent) {
+                    throw new IOException("The input failed.");
+                }
+                sent = true;
+                dst.put(lines);
+                return lines.length;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputSink out = new OutputSink(bytes);
+        TransactionManager manager = new TransactionManager(new AccountDatabase(), out, CLOCK);
+        Assertions.assertThrows(IOException.class, () -> manager.runPipelined(failing, 2));
+        out.flush();
+        String output = bytes.toString();
+        Assertions.assertTrue(output.contains("John Doe 1/1/1990(C) opened."), "Expected the open to be answered.");
+        Assertions.assertTrue(output.contains("Checking::John Doe 1/1/1990::Balance $100.00"),
+                "Expected the P report to be printed.");
+    }
+
+    /**
+     * Runs a script through a new TransactionManager.
+     *
+     * @param script  The command lines.
+     * @param parsers The number of parser threads, or 0 for runBatch.
+     * @return Everything printed.
+     * @throws IOException if the script cannot be read.
+     */
+    private static String run(String script, int parsers) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputSink out = new OutputSink(bytes);
+        TransactionManager manager = new TransactionManager(new AccountDatabase(), out, CLOCK);
+        ReadableByteChannel input = Channels.newChannel(
+                new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)));
+        if (parsers == 0) {
+            manager.runBatch(input);
+        } else {
+            manager.runPipelined(input, parsers);
+        }
+        return bytes.toString();
+    }
+}
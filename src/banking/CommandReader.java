@@ -0,0 +1,135 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads command lines from a channel for batch mode. Input is read in large
+ * blocks into a direct buffer and split into lines there, so a file or pipe
+ * of commands is read without going through Scanner. Lines end at "\n",
+ * "\r\n" or "\r", like Scanner.nextLine(), and are decoded as UTF-8.
+ *
+ */
+public class CommandReader {
+    private final ReadableByteChannel input;
+    private final ByteBuffer buffer; // bytes read but not yet returned, in read mode
+    private byte[] line; // bytes of the line being assembled
+    private int lineLength; // number of bytes in line
+    private boolean skipNewline; // the last line ended in '\r'; drop a '\n' that follows it
+    private boolean eof; // the channel has no more input
+
+    /**
+     * Creates a reader over a channel.
+     *
+     * @param input The channel to read commands from.
+     */
+    public CommandReader(ReadableByteChannel input) {
+        this(input, Constants.COMMAND_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a reader over a channel with a buffer of a given size. A
+     * smaller buffer suits a socket that delivers a line at a time.
+     *
+     * @param input      The channel to read commands from.
+     * @param bufferSize The size of the read buffer in bytes.
+     */
+    public CommandReader(ReadableByteChannel input, int bufferSize) {
+        this.input = input;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.buffer.flip();
+        this.line = new byte[Constants.COMMAND_LINE_SIZE];
+    }
+
+    /**
+     * Reads the next line.
+     *
+     * @return The line without its terminator, or null at the end of input.
+     * @throws IOException if the channel cannot be read.
+     */
+    public String readLine() throws IOException {
+        return nextLine() ? new String(line, 0, lineLength, StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Reads the next line into a parser, without making a String of it.
+     *
+     * @param parser The parser to load the line into.
+     * @return true if a line was read, false at the end of input.
+     * @throws IOException if the channel cannot be read.
+     */
+    public boolean readLine(CommandParser parser) throws IOException {
+        if (!nextLine()) {
+            return false;
+        }
+        parser.reset(line, lineLength);
+        return true;
+    }
+
+    /**
+     * Assembles the bytes of the next line, without its terminator.
+     *
+     * @return true if a line was read, false at the end of input.
+     * @throws IOException if the channel cannot be read.
+     */
+    private boolean nextLine() throws IOException {
+        lineLength = 0;
+        while (true) {
+            if (skipNewline && buffer.hasRemaining()) {
+                skipNewline = false;
+                if (buffer.get(buffer.position()) == '\n') {
+                    buffer.get();
+                }
+            }
+            int start = buffer.position();
+            int end = start;
+            while (end < buffer.limit() && buffer.get(end) != '\n' && buffer.get(end) != '\r') {
+                end++;
+            }
+            append(end - start);
+            if (buffer.hasRemaining()) {
+                skipNewline = buffer.get() == '\r';
+                return true;
+            }
+            if (eof || !fill()) {
+                return lineLength > 0;
+            }
+        }
+    }
+
+    /**
+     * Moves bytes from the buffer onto the end of the line being assembled.
+     *
+     * @param count The number of bytes to move.
+     */
+    private void append(int count) {
+        if (lineLength + count > line.length) {
+            line = Arrays.copyOf(line, Math.max(lineLength + count, line.length * Constants.GROWTH_FACTOR));
+        }
+        buffer.get(line, lineLength, count);
+        lineLength += count;
+    }
+
+    /**
+     * Reads the next block of input into the buffer.
+     *
+     * @return true if any bytes were read, false at the end of input.
+     * @throws IOException if the channel cannot be read.
+     */
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read = 0;
+        while (read == 0) {
+            read = input.read(buffer);
+        }
+        buffer.flip();
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,517 @@
+package banking;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe account store. Holders are spread over a number of stripes
+ * by the hash of their profile key; each stripe is an AccountDatabase
+ * guarded by its own lock. Every rule in contains() concerns a single
+ * holder, and all of a holder's accounts live in the same stripe, so opens
+ * and closes for holders in different stripes never wait on each other.
+ * Deposits, withdrawals and contains take no lock at all: they find the
+ * account through a concurrent index and update its balance with a
+ * compare-and-set. Reports lock every stripe and merge the stripes' sorted
+ * views, except the summary, which reads running totals without a lock.
+ * Once a change log is set, deposits and withdrawals take their holder's
+ * stripe lock as well, so that each change reaches the log before any
+ * later change to the same holder or any month end.
+ *
+ * The running totals are LongAdders by row of AccountTotals. Each account
+ * records the share of the totals it last put in; after every change, the
+ * thread that made it swaps in the account's new share with a
+ * compare-and-set and adds the difference. The last swap for an account
+ * always reads its state after its last change, so once changes settle the
+ * totals are exact, and while they run every account counts as in some
+ * state it really had.
+ *
+ */
+public class ConcurrentAccountDatabase implements AccountStore {
+    private final AccountDatabase[] stripes;
+    private final ReentrantLock[] locks;
+    private final int mask; // stripe count minus one; the count is a power of two
+    private final List<ConcurrentHashMap<ProfileKey, Entry>> lookup; // by type ordinal, then holder
+    private final LongAdder[] counts; // number of accounts by row of AccountTotals
+    private final LongAdder[] balances; // total balance by row, in cents
+    private final LongAdder[] fees; // total monthly fee by row, in cents
+    private final LongAdder[] interests; // total monthly interest by row, in cents
+    private AccountStore.ChangeLog log; // receives every change, or null
+
+    /**
+     * The part of the running totals one account accounts for. Shares are
+     * never changed, so swapping one for another is a single compare-and-set.
+     */
+    private static final class Share {
+        static final Share NONE = new Share(0, 0, 0, 0); // the share of an account not in the store
+
+        final long count; // 1 for an account in the store
+        final long balance; // balance in cents
+        final long fee; // monthly fee in cents
+        final long interest; // monthly interest in cents
+
+        /**
+         * Creates a share.
+         *
+         * @param count    1 for an account in the store, else 0.
+         * @param balance  The balance in cents.
+         * @param fee      The monthly fee in cents.
+         * @param interest The monthly interest in cents.
+         */
+        Share(long count, long balance, long fee, long interest) {
+            this.count = count;
+            this.balance = balance;
+            this.fee = fee;
+            this.interest = interest;
+        }
+    }
+
+    /**
+     * An account in the lookup, with the share of the totals it last put in.
+     */
+    private static final class Entry {
+        private static final VarHandle SHARE;
+
+        static {
+            try {
+                SHARE = MethodHandles.lookup().findVarHandle(Entry.class, "share", Share.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        final Account account; // the stored account
+        final int campusRow; // the row of a college checking account's campus, else Constants.NOT_FOUND
+        volatile Share share = Share.NONE; // the share in the totals
+        volatile boolean closed; // set once the account is closed
+
+        /**
+         * Creates an entry that has no share yet.
+         *
+         * @param account The stored account.
+         */
+        Entry(Account account) {
+            this.account = account;
+            this.campusRow = account.getType() == AccountType.COLLEGE_CHECKING
+                    ? AccountTotals.campusRow(((CollegeChecking) account).getCampus())
+                    : Constants.NOT_FOUND;
+        }
+    }
+
+    /**
+     * Creates a store with four stripes per available processor.
+     */
+    public ConcurrentAccountDatabase() {
+        this(Runtime.getRuntime().availableProcessors() * Constants.STRIPES_PER_PROCESSOR);
+    }
+
+    /**
+     * Creates a store with at least the given number of stripes, rounded up
+     * to a power of two.
+     *
+     * @param stripeCount The minimum number of stripes.
+     */
+    public ConcurrentAccountDatabase(int stripeCount) {
+        int count = 1;
+        while (count < stripeCount) {
+            count <<= 1;
+        }
+        this.stripes = new AccountDatabase[count];
+        this.locks = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new AccountDatabase();
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = count - 1;
+        this.lookup = new ArrayList<>(Constants.ACCOUNT_TYPES);
+        for (int i = 0; i < Constants.ACCOUNT_TYPES; i++) {
+            lookup.add(new ConcurrentHashMap<>());
+        }
+        this.counts = adders();
+        this.balances = adders();
+        this.fees = adders();
+        this.interests = adders();
+    }
+
+    /**
+     * Creates a zero LongAdder for every row of AccountTotals.
+     *
+     * @return The adders.
+     */
+    private static LongAdder[] adders() {
+        LongAdder[] adders = new LongAdder[AccountTotals.ROWS];
+        for (int row = 0; row < adders.length; row++) {
+            adders[row] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Brings an account's share of the totals up to date: the share of its
+     * current state, or none once it is closed.
+     *
+     * @param entry The account's entry.
+     */
+    private void updateShare(Entry entry) {
+        Share old;
+        Share now;
+        do {
+            old = entry.share;
+            Account account = entry.account;
+            now = entry.closed ? Share.NONE
+                    : new Share(1, account.getBalanceCents(), account.monthlyFeeCents(),
+                            account.monthlyInterestCents());
+        } while (!Entry.SHARE.compareAndSet(entry, old, now));
+        if (old != now) {
+            addDifference(entry.account.getType().ordinal(), now, old);
+            if (entry.campusRow != Constants.NOT_FOUND) {
+                addDifference(entry.campusRow, now, old);
+            }
+        }
+    }
+
+    /**
+     * Adds the difference between two shares to a row of the totals.
+     *
+     * @param row The row.
+     * @param now The share put in.
+     * @param old The share taken out.
+     */
+    private void addDifference(int row, Share now, Share old) {
+        counts[row].add(now.count - old.count);
+        balances[row].add(now.balance - old.balance);
+        fees[row].add(now.fee - old.fee);
+        interests[row].add(now.interest - old.interest);
+    }
+
+    /**
+     * Picks the stripe that owns an account's holder.
+     *
+     * @param account The account whose holder to place.
+     * @return The stripe number.
+     */
+    private int stripeOf(Account account) {
+        int hash = account.getHolder().getKey().hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Finds the account of the given type held by the given holder, without
+     * locking.
+     *
+     * @param holder The profile of the account holder.
+     * @param type   The type of the account.
+     * @return The matching account if found, otherwise null.
+     */
+    private Entry find(Profile holder, AccountType type) {
+        return lookup.get(type.ordinal()).get(holder.getKey());
+    }
+
+    /**
+     * Checks if the store contains a specific account.
+     *
+     * @param account The account to check.
+     * @return true if the account exists, false otherwise.
+     */
+    @Override
+    public boolean contains(Account account) {
+        if (account.getType().isChecking()) {
+            return find(account.getHolder(), AccountType.CHECKING) != null
+                    || find(account.getHolder(), AccountType.COLLEGE_CHECKING) != null;
+        }
+        return find(account.getHolder(), account.getType()) != null;
+    }
+
+    /**
+     * Adds a new account unless the holder's stripe already contains it. The
+     * check and the add happen under the stripe lock, and the account puts
+     * its share in the totals before any other thread can find it.
+     *
+     * @param account The account to be added.
+     * @return true if the account was added successfully, false otherwise.
+     */
+    @Override
+    public boolean open(Account account) {
+        int stripe = stripeOf(account);
+        locks[stripe].lock();
+        try {
+            if (!stripes[stripe].open(account)) {
+                return false;
+            }
+            Entry entry = new Entry(account);
+            updateShare(entry);
+            lookup.get(account.getType().ordinal()).put(account.getHolder().getKey(), entry);
+            if (log != null) {
+                log.append(Operation.Kind.OPEN, account, account.getBalanceCents());
+            }
+            return true;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Removes a specific account from the store and takes its share out of
+     * the totals. A deposit or withdrawal that found the account just before
+     * may still change it, but its share stays out.
+     *
+     * @param account The account to be removed.
+     * @return true if the account was removed successfully, false otherwise.
+     */
+    @Override
+    public boolean close(Account account) {
+        int stripe = stripeOf(account);
+        locks[stripe].lock();
+        try {
+            if (!stripes[stripe].close(account)) {
+                return false;
+            }
+            Entry entry = lookup.get(account.getType().ordinal()).remove(account.getHolder().getKey());
+            entry.closed = true;
+            updateShare(entry);
+            if (log != null) {
+                log.append(Operation.Kind.CLOSE, account, 0);
+            }
+            return true;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Processes a withdrawal operation on a specific account, without a lock
+     * unless a change log is set.
+     *
+     * @param account The account from which to withdraw. The balance of this
+     *                account object represents the amount to be withdrawn.
+     * @return true if the withdrawal was successful, false otherwise.
+     */
+    @Override
+    public boolean withdraw(Account account) {
+        if (log == null) {
+            return withdrawInPlace(account);
+        }
+        int stripe = stripeOf(account);
+        locks[stripe].lock();
+        try {
+            long cents = account.getBalanceCents();
+            if (!withdrawInPlace(account)) {
+                return false;
+            }
+            log.append(Operation.Kind.WITHDRAW, account, cents);
+            return true;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Withdraws from an account. The balance check and update are a single
+     * compare-and-set on the account, and the account's share of the totals
+     * is updated after.
+     *
+     * @param account The account from which to withdraw. The balance of this
+     *                account object represents the amount to be withdrawn.
+     * @return true if the withdrawal was successful, false otherwise.
+     */
+    private boolean withdrawInPlace(Account account) {
+        Entry stored = find(account.getHolder(), account.getType());
+        if (stored == null) {
+            account.setBalance(Constants.NOT_FOUND);
+            return false; // Account not found
+        }
+        if (!stored.account.withdraw(account.getBalanceCents())) {
+            return false;
+        }
+        updateShare(stored);
+        return true;
+    }
+
+    /**
+     * Processes a deposit operation on a specific account, without a lock
+     * unless a change log is set.
+     *
+     * @param account The account in which to deposit. The balance of this
+     *                account object represents the amount to be deposited.
+     * @return true if the account was found, false otherwise.
+     */
+    @Override
+    public boolean deposit(Account account) {
+        if (log == null) {
+            return depositInPlace(account);
+        }
+        int stripe = stripeOf(account);
+        locks[stripe].lock();
+        try {
+            long cents = account.getBalanceCents();
+            if (!depositInPlace(account)) {
+                return false;
+            }
+            log.append(Operation.Kind.DEPOSIT, account, cents);
+            return true;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Deposits into an account, then updates the account's share of the
+     * totals.
+     *
+     * @param account The account in which to deposit. The balance of this
+     *                account object represents the amount to be deposited.
+     * @return true if the account was found, false otherwise.
+     */
+    private boolean depositInPlace(Account account) {
+        Entry stored = find(account.getHolder(), account.getType());
+        if (stored == null) {
+            return false;
+        }
+        stored.account.deposit(account.getBalanceCents());
+        updateShare(stored);
+        account.setBalance(Constants.ACCOUNT_FOUND);
+        return true;
+    }
+
+    /**
+     * Takes every stripe lock, always in stripe order so that two reports
+     * cannot deadlock.
+     */
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    /**
+     * Releases every stripe lock.
+     */
+    private void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    /**
+     * Merges the sorted views of every stripe. The caller must hold every
+     * stripe lock while iterating the result.
+     *
+     * @return All accounts in report order.
+     */
+    private Iterable<Account> sortedAccounts() {
+        List<Iterable<Account>> parts = new ArrayList<>(stripes.length);
+        for (AccountDatabase stripe : stripes) {
+            parts.add(stripe.sortedAccounts());
+        }
+        return new MergedAccounts(parts, AccountDatabase.TYPE_AND_PROFILE);
+    }
+
+    /**
+     * Prints the sorted list of accounts.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printSorted(OutputSink out) {
+        lockAll();
+        try {
+            ReportRenderer.render(ReportRenderer.Report.SORTED, sortedAccounts(), out);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Prints detailed account information including fees and monthly interests.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printFeesAndInterests(OutputSink out) {
+        lockAll();
+        try {
+            ReportRenderer.render(ReportRenderer.Report.FEES_AND_INTERESTS, sortedAccounts(), out);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Prints the totals of each account type and campus, in O(1), from the
+     * running totals and without taking a lock.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printSummary(OutputSink out) {
+        AccountTotals totals = new AccountTotals();
+        long count = 0;
+        for (int row = 0; row < AccountTotals.ROWS; row++) {
+            totals.set(row, counts[row].sum(), balances[row].sum(), fees[row].sum(), interests[row].sum());
+            count += row < Constants.ACCOUNT_TYPES ? totals.getCount(row) : 0;
+        }
+        if (count == 0) {
+            ReportRenderer.empty(out);
+        } else {
+            totals.print(out);
+        }
+    }
+
+    /**
+     * Posts the month end for every stripe, with every stripe locked so no
+     * account opens or closes meanwhile. Deposits and withdrawals may still
+     * run; each posting is applied to the balance atomically. Every account
+     * then updates its share of the totals.
+     */
+    @Override
+    public void postMonthEnd() {
+        lockAll();
+        try {
+            for (AccountDatabase stripe : stripes) {
+                stripe.postMonthEnd();
+            }
+            for (ConcurrentHashMap<ProfileKey, Entry> entries : lookup) {
+                for (Entry entry : entries.values()) {
+                    updateShare(entry);
+                }
+            }
+            if (log != null) {
+                log.appendMonthEnd();
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Sets the log that receives every change from now on. The stripes get
+     * no log of their own; this store records each change once.
+     *
+     * @param log The change log.
+     */
+    @Override
+    public void setChangeLog(AccountStore.ChangeLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Posts the month end and prints the accounts with their new balances,
+     * holding every stripe lock across both.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printUpdatedBalances(OutputSink out) {
+        lockAll();
+        try {
+            postMonthEnd();
+            ReportRenderer.render(ReportRenderer.Report.UPDATED_BALANCES, sortedAccounts(), out);
+        } finally {
+            unlockAll();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package banking;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Tests the ConcurrentAccountDatabase class, focusing on the running totals
+ * its summary reads while deposits and withdrawals go on without a lock.
+ *
+ */
+
+public class ConcurrentAccountDatabaseTest {
+    private static final Date DOB = new Date("1/1/1990");
+    private static final int THREADS = 4;
+    private static final int HOLDERS = 8;
+
+    /**
+     * Tests that threads changing their own holders' accounts, crossing fee,
+     * loyalty and withdrawal limits and closing and reopening accounts, while
+     * another thread prints summaries, leave the same summary as making the
+     * changes one thread at a time, before and after the month end.
+     */
+    @Test
+    @Timeout(30)
+    public void testSummaryMatchesAfterConcurrentChanges() throws InterruptedException {
+        ConcurrentAccountDatabase db = new ConcurrentAccountDatabase(2);
+        AccountDatabase plain = new AccountDatabase();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            open(plain, thread);
+            open(db, thread);
+            threads.add(new Thread(() -> change(db, thread, 3000), "writer" + t));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        while (threads.get(0).isAlive()) {
+            Assertions.assertTrue(print(db, AccountStore::printSummary).contains("*end of summary."),
+                    "Expected a whole summary.");
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int t = 0; t < THREADS; t++) {
+            change(plain, t, 3000);
+        }
+        Assertions.assertEquals(print(plain, AccountStore::printSummary), print(db, AccountStore::printSummary),
+                "Expected the same summary.");
+        plain.postMonthEnd();
+        db.postMonthEnd();
+        Assertions.assertEquals(print(plain, AccountStore::printSummary), print(db, AccountStore::printSummary),
+                "Expected the same summary after the month end.");
+        Assertions.assertEquals(print(plain, AccountStore::printSorted), print(db, AccountStore::printSorted),
+                "Expected the same accounts.");
+    }
+
+    /**
+     * Opens a money market, a savings and a college checking account for
+     * each of a thread's holders.
+     *
+     * @param store  The store.
+     * @param thread The thread whose holders to open.
+     */
+    private static void open(AccountStore store, int thread) {
+        for (int i = 0; i < HOLDERS; i++) {
+            Profile holder = holder(thread, i);
+            store.open(new MoneyMarket(holder, 2000, 0));
+            store.open(new Savings(holder, 400, i % 2));
+            store.open(new CollegeChecking(holder, 100, i % Campus.values().length));
+        }
+    }
+
+    /**
+     * Makes the same rounds of changes to a thread's holders: deposits and
+     * withdrawals that move balances across the fee and loyalty limits, and
+     * now and then a close and reopen.
+     *
+     * @param store  The store.
+     * @param thread The thread whose holders to change.
+     * @param rounds The number of rounds.
+     */
+    private static void change(AccountStore store, int thread, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            Profile holder = holder(thread, round % HOLDERS);
+            store.deposit(new MoneyMarket(holder, 1000, 0));
+            store.withdraw(new MoneyMarket(holder, round % 3 == 0 ? 1500 : 400, 0));
+            store.deposit(new Savings(holder, 300, 0));
+            store.withdraw(new Savings(holder, 250, 0));
+            store.withdraw(new CollegeChecking(holder, 80, 0));
+            store.deposit(new CollegeChecking(holder, 60, 0));
+            if (round % 17 == 0) {
+                store.close(new CollegeChecking(holder, 0, 0));
+                store.open(new CollegeChecking(holder, 150, round % Campus.values().length));
+            }
+        }
+    }
+
+    /**
+     * Gets one of a thread's holders.
+     *
+     * @param thread The thread.
+     * @param i      The number of the holder.
+     * @return The holder's profile.
+     */
+    private static Profile holder(int thread, int i) {
+        return new Profile("First" + i, "Thread" + thread, DOB);
+    }
+
+    /**
+     * Prints a report of a store.
+     *
+     * @param store  The store.
+     * @param report The report to print.
+     * @return The printed report.
+     */
+    private static String print(AccountStore store, BiConsumer<AccountStore, OutputSink> report) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputSink out = new OutputSink(bytes);
+        report.accept(store, out);
+        out.flush();
+        return bytes.toString();
+    }
+}
@@ -17,18 +17,39 @@ public class Constants {
     public static final int DAYS_28 = 28;
     public static final int INITIAL_CAPACITY = 4;
     public static final int NOT_FOUND = -1;
-    public static final int GROWTH_AMOUNT = 4;
-    public static final double CHECKING_MONTHLY_FEE = 12.0;
-    public static final double CHECKING_ANNUAL_INTEREST_RATE = 0.01;
-    public static final double CHECKING_MIN_BALANCE_FOR_NO_FEE = 1000;
-    public static final double SAVINGS_INTEREST = 0.04;
-    public static final double LOYAL_BONUS = 0.0025;
-    public static final double SAVINGS_FEE = 25.0;
-    public static final double MM_PLUS_FEE = 35.0;
-    public static final double NO_FEE_BALANCE = 500.0;
-    public static final double MM_INTEREST = 0.045; // 4.75%
-    public static final int MIN_BALANCE_LOYAL = 2000;
-    public static final double FEE_WITHDRAW_OVER_LIMIT = 10;
+    public static final int GROWTH_FACTOR = 2;
+    // Amounts of money are in cents and interest rates in basis points.
+    public static final long CHECKING_MONTHLY_FEE = 1200;
+    public static final long CHECKING_ANNUAL_INTEREST_RATE = 100; // 1%
+    public static final long CHECKING_MIN_BALANCE_FOR_NO_FEE = 100000;
+    public static final long SAVINGS_INTEREST = 400; // 4%
+    public static final long LOYAL_BONUS = 25; // 0.25%
+    public static final long SAVINGS_FEE = 2500;
+    public static final long MM_PLUS_FEE = 3500;
+    public static final long NO_FEE_BALANCE = 50000;
+    public static final long MM_INTEREST = 450; // 4.5%, 4.75% when loyal
+    public static final long MIN_BALANCE_LOYAL = 200000;
+    public static final long FEE_WITHDRAW_OVER_LIMIT = 1000;
     public static final int WITHDRAW_LIMIT = 3;
+    public static final int MIN_AGE = 16;
+    public static final int COLLEGE_MAX_AGE = 24; // college checking holders must be younger
+    public static final long MM_MIN_OPENING_BALANCE = 200000;
     public static final int ACCOUNT_FOUND = 0;
+    public static final int PACKED_YEAR_SHIFT = 9;
+    public static final int PACKED_MONTH_SHIFT = 5;
+    public static final int MAX_PACKED_YEAR = (1 << 22) - 1;
+    public static final int STRIPES_PER_PROCESSOR = 4;
+    public static final int ACCOUNT_TYPES = 4;
+    public static final int JOURNAL_BUFFER_SIZE = 1 << 20;
+    public static final int JOURNAL_GROUP_SIZE = 64;
+    public static final long JOURNAL_GROUP_MICROS = 0;
+    public static final long SNAPSHOT_REGION_SIZE = 1L << 30;
+    public static final int COMMAND_BUFFER_SIZE = 1 << 20;
+    public static final int COMMAND_LINE_SIZE = 256;
+    public static final int SINK_BUFFER_SIZE = 1 << 16;
+    public static final int MONTH_END_PARTITION = 1 << 14;
+    public static final int SESSION_BUFFER_SIZE = 1 << 12;
+    public static final int SERVER_BACKLOG = 4096;
+    public static final long SESSION_STACK_SIZE = 256 << 10;
+    public static final int PIPELINE_SLOTS = 1 << 12; // a power of two
 }
\ No newline at end of file
@@ -1,45 +1,89 @@
 package banking;
 
-import java.util.Calendar;
-
 /**
  * Represents a date, allowing for validation, comparison, and text
- * representation.
+ * representation. A date is held as a single int, packed as by pack(), so
+ * dates compare, hash and check ages with integer arithmetic. The rare
+ * date whose fields do not fit, which is never a valid date, keeps its
+ * fields as typed so that error messages can show them.
  * 
  */
 public class Date implements Comparable<Date> {
-    private int year;
-    private int month;
-    private int day;
+    private static final int DAY_MASK = (1 << Constants.PACKED_MONTH_SHIFT) - 1;
+    private static final int MONTH_MASK = (1 << (Constants.PACKED_YEAR_SHIFT - Constants.PACKED_MONTH_SHIFT)) - 1;
+    private static final int MONTH_AND_DAY_MASK = (1 << Constants.PACKED_YEAR_SHIFT) - 1;
+    private static final long NOT_A_NUMBER = Long.MIN_VALUE; // a field of a date that is not an int
+
+    private int packed; // the packed date, or Constants.NOT_FOUND if it does not fit
+    private int[] fields; // year, month and day of a date that does not fit, else null
 
     /**
-     * Initializes a new instance of the Date class with a specific date.
+     * Initializes a new instance of the Date class with a specific date. The
+     * string is read with a cursor, like CommandParser reads a command, and
+     * nothing is printed for a malformed one: a string that is not three
+     * fields separated by slashes gives 0/0/0, and fields after the first
+     * one that is not a number are left at zero, so isValid() rejects the
+     * date and error messages show what could be read.
      * 
      * @param date a string representing a date in the form "mm/dd/yyyy"
      */
     public Date(String date) {
-        String[] dateParts = date.split("/");
-        if (dateParts.length == 3) {
-            try {
-                this.month = Integer.parseInt(dateParts[0]);
-                this.day = Integer.parseInt(dateParts[1]);
-                this.year = Integer.parseInt(dateParts[2]);
-            } catch (NumberFormatException e) {
-                System.err.println("Invalid calendar date!");
+        int end = date.length();
+        while (end > 0 && date.charAt(end - 1) == '/') {
+            end--; // trailing slashes end no field, as with String.split
+        }
+        int firstSlash = date.indexOf('/');
+        int secondSlash = firstSlash < 0 ? Constants.NOT_FOUND : date.indexOf('/', firstSlash + 1);
+        if (secondSlash < 0 || secondSlash >= end || date.lastIndexOf('/', end - 1) != secondSlash) {
+            set(0, 0, 0);
+            return;
+        }
+        long month = number(date, 0, firstSlash);
+        long day = month == NOT_A_NUMBER ? NOT_A_NUMBER : number(date, firstSlash + 1, secondSlash);
+        long year = day == NOT_A_NUMBER ? NOT_A_NUMBER : number(date, secondSlash + 1, end);
+        set(year == NOT_A_NUMBER ? 0 : (int) year, month == NOT_A_NUMBER ? 0 : (int) month,
+                day == NOT_A_NUMBER ? 0 : (int) day);
+    }
+
+    /**
+     * Reads a field of a date as Integer.parseInt would, without creating a
+     * string or an exception.
+     * 
+     * @param date the date as typed
+     * @param from the first char of the field
+     * @param to   just after the last char of the field
+     * @return the value, or NOT_A_NUMBER if the field is not an int
+     */
+    private static long number(String date, int from, int to) {
+        boolean negative = false;
+        if (from < to && (date.charAt(from) == '-' || date.charAt(from) == '+')) {
+            negative = date.charAt(from) == '-';
+            from++;
+        }
+        if (from == to) {
+            return NOT_A_NUMBER;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = Character.digit(date.charAt(i), 10);
+            if (digit < 0) {
+                return NOT_A_NUMBER;
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return NOT_A_NUMBER;
             }
-        } else {
-            System.err.println("Invalid calendar date!");
         }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? NOT_A_NUMBER : value;
     }
 
     /**
-     * Initializes a new instance of the Date class with today's date.
+     * Initializes a new instance of the Date class with today's date, as
+     * told by the system clock.
      */
     public Date() {
-        Calendar today = Calendar.getInstance();
-        this.month = today.get(Calendar.MONTH) + 1;
-        this.day = today.get(Calendar.DAY_OF_MONTH);
-        this.year = today.get(Calendar.YEAR);
+        this(DateClock.system().today());
     }
 
     /**
@@ -48,9 +92,36 @@ public class Date implements Comparable<Date> {
      * @param date the date to clone
      */
     public Date(Date date) {
-        this.month = date.month;
-        this.day = date.day;
-        this.year = date.year;
+        this.packed = date.packed;
+        this.fields = date.fields;
+    }
+
+    /**
+     * Initializes a new instance of the Date class from its fields.
+     * 
+     * @param year  the year
+     * @param month the month, 1 to 12
+     * @param day   the day of the month
+     */
+    Date(int year, int month, int day) {
+        set(year, month, day);
+    }
+
+    /**
+     * Stores the fields of the date, packed if they fit.
+     * 
+     * @param year  the year
+     * @param month the month
+     * @param day   the day of the month
+     */
+    private void set(int year, int month, int day) {
+        if (year < 0 || year > Constants.MAX_PACKED_YEAR || month < 0 || month > Constants.MONTHS_COUNT || day < 0
+                || day > Constants.DAYS_31) {
+            packed = Constants.NOT_FOUND;
+            fields = new int[] { year, month, day };
+        } else {
+            packed = (year << Constants.PACKED_YEAR_SHIFT) | (month << Constants.PACKED_MONTH_SHIFT) | day;
+        }
     }
 
     /**
@@ -62,24 +133,24 @@ public class Date implements Comparable<Date> {
      */
     @Override
     public int compareTo(Date date) {
-        if (this.year != date.year) {
-            return Integer.compare(this.year, date.year);
-        } else if (this.month != date.month) {
-            return Integer.compare(this.month, date.month);
-        } else if (this.day != date.day) {
-            return Integer.compare(this.day, date.day);
-        } else {
-            return 0;
+        if (fields == null && date.fields == null) {
+            return Integer.compare(packed, date.packed);
+        }
+        if (getYear() != date.getYear()) {
+            return Integer.compare(getYear(), date.getYear());
+        } else if (getMonth() != date.getMonth()) {
+            return Integer.compare(getMonth(), date.getMonth());
         }
+        return Integer.compare(getDay(), date.getDay());
     }
 
     /**
-     * Returns today's date.
+     * Returns today's date, as told by the system clock.
      * 
      * @return a Date object representing today's date
      */
     public static Date today() {
-        return new Date();
+        return DateClock.system().today();
     }
 
     /**
@@ -88,6 +159,9 @@ public class Date implements Comparable<Date> {
      * @return true if this date is a valid calendar date, false otherwise
      */
     public boolean isValid() {
+        int year = getYear();
+        int month = getMonth();
+        int day = getDay();
         if (month < 1 || month > Constants.MONTHS_COUNT || day < 1 || year < 0) {
             return false;
         }
@@ -111,6 +185,58 @@ public class Date implements Comparable<Date> {
         return day <= maxDay;
     }
 
+    /**
+     * Packs this date into a single int with the year in the high bits, then
+     * the month and the day, so packed dates order the same way as compareTo.
+     * Dates whose fields cannot be packed all map to Constants.NOT_FOUND; such
+     * dates are never valid, so they never match a stored profile.
+     * 
+     * @return the packed date
+     */
+    public int pack() {
+        return packed;
+    }
+
+    /**
+     * Rebuilds a date from the int returned by pack().
+     * 
+     * @param packed a packed date other than Constants.NOT_FOUND
+     * @return the date
+     */
+    public static Date unpack(int packed) {
+        return new Date(yearOf(packed), monthOf(packed), dayOf(packed));
+    }
+
+    /**
+     * Gets the day of a packed date.
+     * 
+     * @param packed a packed date other than Constants.NOT_FOUND
+     * @return the day of the month
+     */
+    static int dayOf(int packed) {
+        return packed & DAY_MASK;
+    }
+
+    /**
+     * Gets the month of a packed date.
+     * 
+     * @param packed a packed date other than Constants.NOT_FOUND
+     * @return the month, 1 to 12
+     */
+    static int monthOf(int packed) {
+        return (packed >>> Constants.PACKED_MONTH_SHIFT) & MONTH_MASK;
+    }
+
+    /**
+     * Gets the year of a packed date.
+     * 
+     * @param packed a packed date other than Constants.NOT_FOUND
+     * @return the year
+     */
+    static int yearOf(int packed) {
+        return packed >>> Constants.PACKED_YEAR_SHIFT;
+    }
+
     /**
      * Returns the textual representation of this date.
      * 
@@ -118,7 +244,7 @@ public class Date implements Comparable<Date> {
      */
     @Override
     public String toString() {
-        return month + "/" + day + "/" + year;
+        return getMonth() + "/" + getDay() + "/" + getYear();
     }
 
     /**
@@ -127,7 +253,7 @@ public class Date implements Comparable<Date> {
      * @return day of date
      */
     public int getDay() {
-        return day;
+        return fields == null ? dayOf(packed) : fields[2];
     }
 
     /**
@@ -136,7 +262,7 @@ public class Date implements Comparable<Date> {
      * @return month of date
      */
     public int getMonth() {
-        return month;
+        return fields == null ? monthOf(packed) : fields[1];
     }
 
     /**
@@ -145,16 +271,32 @@ public class Date implements Comparable<Date> {
      * @return year of date
      */
     public int getYear() {
-        return year;
+        return fields == null ? yearOf(packed) : fields[0];
     }
 
     /**
-     * Getter method for age
+     * Getter method for age, as of today by the system clock
      * 
      * @return age
      */
     public int getAge() {
-        Date today = new Date();
+        return getAge(DateClock.system().today());
+    }
+
+    /**
+     * Calculates the age of someone born on this date, in whole years.
+     * 
+     * @param today the date to calculate the age on
+     * @return age on the given date
+     */
+    public int getAge(Date today) {
+        if (fields == null && today.fields == null) {
+            int age = (today.packed >>> Constants.PACKED_YEAR_SHIFT) - (packed >>> Constants.PACKED_YEAR_SHIFT);
+            if ((today.packed & MONTH_AND_DAY_MASK) < (packed & MONTH_AND_DAY_MASK)) {
+                age--;
+            }
+            return age;
+        }
         int age = today.getYear() - this.getYear();
         if (today.getMonth() < this.getMonth()
                 || (today.getMonth() == this.getMonth()
@@ -177,6 +319,16 @@ public class Date implements Comparable<Date> {
         if (obj == null || this.getClass() != obj.getClass())
             return false;
         Date date = (Date) obj;
-        return this.year == date.year && this.month == date.month && this.day == date.day;
+        return compareTo(date) == 0;
+    }
+
+    /**
+     * Returns a hash code consistent with equals.
+     * 
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return fields == null ? packed : 31 * (31 * fields[0] + fields[1]) + fields[2];
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package banking;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * Tells the date today. The date is worked out from a java.time.Clock once
+ * and kept until the clock passes the next midnight in its time zone, so
+ * asking for it costs one read of the clock. A fixed or offset clock makes
+ * the age and date of birth rules deterministic in tests.
+ *
+ */
+public class DateClock {
+    private static final DateClock SYSTEM = new DateClock(Clock.systemDefaultZone());
+
+    private final Clock clock;
+    private volatile Date today; // the cached date
+    private volatile long nextMidnight; // clock millis at which today ends
+
+    /**
+     * Creates a clock that reads the date from a java.time.Clock.
+     *
+     * @param clock The clock to read, in the time zone that decides the date.
+     */
+    public DateClock(Clock clock) {
+        this.clock = clock;
+        this.nextMidnight = Long.MIN_VALUE;
+    }
+
+    /**
+     * Gets the clock of the system's default time zone.
+     *
+     * @return The shared system clock.
+     */
+    public static DateClock system() {
+        return SYSTEM;
+    }
+
+    /**
+     * Gets the date today.
+     *
+     * @return Today's date.
+     */
+    public Date today() {
+        long now = clock.millis();
+        if (now >= nextMidnight) {
+            refresh();
+        }
+        return today;
+    }
+
+    /**
+     * Works out today's date and when it ends. Two threads may both refresh
+     * at midnight; they compute the same date.
+     */
+    private void refresh() {
+        LocalDate date = LocalDate.now(clock);
+        today = new Date(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+        nextMidnight = date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+    }
+}
@@ -1,5 +1,10 @@
 package banking;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -25,6 +30,23 @@ public class DateTest {
         assertFalse(new Date("02/12/-1").isValid()); // year is negative
     }
 
+    /**
+     * Tests that strings that are not three numbers separated by slashes
+     * give invalid dates, showing the fields read before the first one that
+     * is not a number, as the parse with String.split and Integer.parseInt
+     * did.
+     */
+    @Test
+    public void testMalformedDates() {
+        assertFalse(new Date("1/2").isValid()); // two fields
+        assertEquals("0/0/0", new Date("1/2/2000/4").toString()); // four fields
+        assertEquals("1/0/0", new Date("1/x/2000").toString()); // day is not a number
+        assertEquals("0/0/0", new Date("/1/2000").toString()); // month is empty
+        assertEquals("1/0/0", new Date("1/99999999999/2000").toString()); // day does not fit an int
+        assertEquals(new Date("1/2/2000"), new Date("+1/2/2000//")); // sign and trailing slashes
+        assertFalse(new Date("").isValid());
+    }
+
     /**
      * Tests the handling of valid date values by the Date class.
      */
@@ -42,4 +64,46 @@ public class DateTest {
         assertTrue(new Date("02/29/2020").isValid()); // 2020 is a leap year
         assertFalse(new Date("02/29/2021").isValid()); // 2021 is not a leap year
     }
+
+    /**
+     * Tests ages around a birthday, including a birthday on February 29,
+     * against a fixed clock.
+     */
+    @Test
+    public void testAgeOnFixedDate() {
+        Date today = new DateClock(Clock.fixed(Instant.parse("2024-02-28T12:00:00Z"), ZoneOffset.UTC)).today();
+        assertEquals(new Date("2/28/2024"), today);
+        assertEquals(16, new Date("2/28/2008").getAge(today));
+        assertEquals(15, new Date("2/29/2008").getAge(today));
+        assertEquals(15, new Date("3/1/2008").getAge(today));
+        assertEquals(24, new Date("1/31/2000").getAge(today));
+    }
+
+    /**
+     * Tests that the cached date moves on when the clock passes midnight.
+     */
+    @Test
+    public void testClockRefreshesAtMidnight() {
+        Instant[] now = { Instant.parse("2024-12-31T23:59:59Z") };
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now[0];
+            }
+        };
+        DateClock dates = new DateClock(clock);
+        assertEquals(new Date("12/31/2024"), dates.today());
+        now[0] = Instant.parse("2025-01-01T00:00:00Z");
+        assertEquals(new Date("1/1/2025"), dates.today());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,521 @@
+package banking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only journal of the operations that changed an account store,
+ * and the store's change log. Records are collected in a buffer and written
+ * and forced to disk as one group. append() only adds a record to the
+ * buffer and returns its sequence number, so a store may call it inside its
+ * own locks; a caller that must not report a change before it is durable
+ * then calls await() with that number, or with appended(), outside any
+ * lock. The first waiter to find no write in progress becomes the leader:
+ * once the group holds a set number of records, or its oldest record has
+ * waited a set number of microseconds, the leader takes the whole group,
+ * writes and forces it while new records collect in a second buffer, and
+ * wakes every caller the group covered. A crash can lose only records
+ * whose await() had not yet returned.
+ *
+ * Each record is its length, a body holding the operation kind, account
+ * type, amount, campus or loyalty code, packed date of birth and the two
+ * names, each as an int length and its UTF-8 bytes, and a CRC32C of the
+ * body. A month-end posting is a record whose body is the single byte
+ * MONTH_END. Replay stops at the first record that is cut short or fails its
+ * checksum, and cuts the file back to the records before it. A length
+ * larger than the rest of the file is treated the same way, so a corrupt
+ * length never makes replay allocate for it.
+ *
+ */
+public class Journal implements AccountStore.ChangeLog, Closeable {
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    private static final int CHECKSUM_BYTES = Integer.BYTES;
+    private static final byte MONTH_END = (byte) 0xFF; // kind of a month-end record
+    private static final int FIXED_BODY_BYTES = 3 + Long.BYTES + Integer.BYTES + 2 * Integer.BYTES;
+
+    private final FileChannel channel;
+    private final int groupSize; // records that make a full group
+    private final long groupNanos; // longest wait for a group to fill before it is forced
+    private ByteBuffer pending; // encoded records not yet written
+    private ByteBuffer spare; // the buffer of the group last forced, reused for the next
+    private int pendingCount; // number of records in pending
+    private long pendingSince; // System.nanoTime() of the oldest pending record
+    private long appended; // sequence number of the last record appended
+    private long forced; // sequence number of the last record forced to disk
+    private boolean forcing; // true while a leader writes a group outside the lock
+    private IOException failure; // the error that stopped a group being forced, if any
+    private final CRC32C checksum;
+
+    /**
+     * Opens a journal for appending, creating the file if it does not exist.
+     *
+     * @param path        The journal file.
+     * @param groupSize   The number of records that make a full group.
+     * @param groupMicros The longest a group that is not full waits for more
+     *                    records before it is forced, in microseconds; with 0
+     *                    it is forced at once, so a group holds the records
+     *                    appended while the one before it was being forced.
+     * @throws IOException if the file cannot be opened.
+     */
+    public Journal(Path path, int groupSize, long groupMicros) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.groupSize = Math.max(1, groupSize);
+        this.groupNanos = TimeUnit.MICROSECONDS.toNanos(groupMicros);
+        this.pending = ByteBuffer.allocateDirect(Constants.JOURNAL_BUFFER_SIZE);
+        this.spare = ByteBuffer.allocateDirect(Constants.JOURNAL_BUFFER_SIZE);
+        this.checksum = new CRC32C();
+    }
+
+    /**
+     * Adds an operation to the current group. The record is not durable
+     * until await() returns for its sequence number.
+     *
+     * @param operation The operation that was applied.
+     * @return The sequence number of the record.
+     * @throws UncheckedIOException if an earlier group could not be written.
+     */
+    @Override
+    public synchronized long append(Operation operation) {
+        checkFailure();
+        byte[] fname = operation.getHolder().getFname().getBytes(StandardCharsets.UTF_8);
+        byte[] lname = operation.getHolder().getLname().getBytes(StandardCharsets.UTF_8);
+        int bodyLength = FIXED_BODY_BYTES + fname.length + lname.length;
+        ensureRoom(LENGTH_BYTES + bodyLength + CHECKSUM_BYTES);
+        pending.putInt(bodyLength);
+        int bodyStart = pending.position();
+        pending.put((byte) operation.getKind().ordinal());
+        pending.put(operation.getType().getRecordCode());
+        pending.putLong(operation.getAmount());
+        pending.put((byte) operation.getCode());
+        pending.putInt(operation.getHolder().getDob().pack());
+        pending.putInt(fname.length).put(fname);
+        pending.putInt(lname.length).put(lname);
+        return endRecord(bodyStart);
+    }
+
+    /**
+     * Adds a month-end posting to the current group. The record is not
+     * durable until await() returns for its sequence number.
+     *
+     * @return The sequence number of the record.
+     * @throws UncheckedIOException if an earlier group could not be written.
+     */
+    @Override
+    public synchronized long appendMonthEnd() {
+        checkFailure();
+        ensureRoom(LENGTH_BYTES + 1 + CHECKSUM_BYTES);
+        pending.putInt(1);
+        int bodyStart = pending.position();
+        pending.put(MONTH_END);
+        return endRecord(bodyStart);
+    }
+
+    /**
+     * Gets the sequence number of the last record appended, which is at or
+     * after that of every record appended before this call.
+     *
+     * @return The sequence number, or 0 if nothing was appended.
+     */
+    public synchronized long appended() {
+        return appended;
+    }
+
+    /**
+     * Appends the checksum of the record being written and counts it in the
+     * current group, waking the waiters if the group is now full.
+     *
+     * @param bodyStart The buffer position of the record's body.
+     * @return The sequence number of the record.
+     */
+    private long endRecord(int bodyStart) {
+        checksum.reset();
+        checksum.update(pending.duplicate().position(bodyStart).limit(pending.position()));
+        pending.putInt((int) checksum.getValue());
+        if (pendingCount == 0) {
+            pendingSince = System.nanoTime();
+        }
+        pendingCount++;
+        if (pendingCount == groupSize) {
+            notifyAll();
+        }
+        return ++appended;
+    }
+
+    /**
+     * Throws the error that stopped an earlier group being forced, if any.
+     * Once a group is lost no later record is accepted, since replay would
+     * stop at the gap anyway.
+     *
+     * @throws UncheckedIOException if a group could not be written.
+     */
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException("An earlier journal group could not be forced.", failure);
+        }
+    }
+
+    /**
+     * Waits until the record with the given sequence number, and every one
+     * before it, is forced to disk. Must not be called while holding a lock
+     * other callers need to append, or the group could not fill.
+     *
+     * @param sequence The sequence number returned by append().
+     * @throws UncheckedIOException if the record's group cannot be written.
+     */
+    public void await(long sequence) {
+        sync(sequence, false);
+    }
+
+    /**
+     * Writes and forces every record appended so far, without waiting for
+     * the group to fill.
+     *
+     * @throws UncheckedIOException if the records cannot be written.
+     */
+    public void flush() {
+        long sequence;
+        synchronized (this) {
+            sequence = appended;
+        }
+        sync(sequence, true);
+    }
+
+    /**
+     * Waits until a record is forced, leading the write of the pending group
+     * when no other caller is writing one. The leader writes and forces the
+     * group without holding the lock, so records keep being appended to the
+     * other buffer meanwhile.
+     *
+     * @param sequence The sequence number of the record.
+     * @param now      true to force the pending group even if it is not due.
+     * @throws UncheckedIOException if the group cannot be written.
+     */
+    private void sync(long sequence, boolean now) {
+        ByteBuffer group;
+        long last;
+        synchronized (this) {
+            while (true) {
+                if (forced >= sequence) {
+                    return;
+                }
+                checkFailure();
+                try {
+                    if (forcing) {
+                        wait();
+                        continue;
+                    }
+                    long wait = now || pendingCount >= groupSize ? 0
+                            : groupNanos - (System.nanoTime() - pendingSince);
+                    if (wait <= 0) {
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the journal.", e);
+                }
+            }
+            group = pending;
+            pending = spare;
+            spare = null;
+            pendingCount = 0;
+            last = appended;
+            forcing = true;
+        }
+        IOException error = null;
+        try {
+            write(group);
+        } catch (IOException e) {
+            error = e;
+        }
+        synchronized (this) {
+            forcing = false;
+            spare = group;
+            if (error == null) {
+                forced = last;
+            } else {
+                failure = error;
+            }
+            notifyAll();
+            if (error != null) {
+                throw new UncheckedIOException(error);
+            }
+        }
+    }
+
+    /**
+     * Writes the records in a buffer, forces them to disk and empties the
+     * buffer.
+     *
+     * @param group The buffer of records, in write mode.
+     * @throws IOException if the records cannot be written.
+     */
+    private void write(ByteBuffer group) throws IOException {
+        try {
+            group.flip();
+            while (group.hasRemaining()) {
+                channel.write(group);
+            }
+            channel.force(false);
+        } finally {
+            group.clear();
+        }
+    }
+
+    /**
+     * Writes the pending records while holding the lock, after any group a
+     * leader is writing. Used where no record may be appended until it
+     * returns.
+     *
+     * @throws IOException if the records cannot be written.
+     */
+    private void drain() throws IOException {
+        while (forcing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                InterruptedIOException interrupted = new InterruptedIOException(
+                        "Interrupted while waiting for the journal.");
+                interrupted.initCause(e);
+                throw interrupted;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        try {
+            write(pending);
+            forced = appended;
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } finally {
+            pendingCount = 0;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Makes room in the buffer for a record, growing it if the pending
+     * records leave too little. Records are only written by a leader, so
+     * the buffer grows while the group before it is being forced.
+     *
+     * @param bytes The size of the record.
+     */
+    private void ensureRoom(int bytes) {
+        if (pending.remaining() >= bytes) {
+            return;
+        }
+        ByteBuffer larger = ByteBuffer.allocateDirect(
+                Math.max(pending.capacity() * Constants.GROWTH_FACTOR, pending.position() + bytes));
+        larger.put(pending.flip());
+        pending = larger;
+    }
+
+    /**
+     * Forces any pending records and closes the file.
+     *
+     * @throws IOException if the records cannot be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes a snapshot of a database and empties the journal, so that a
+     * restart loads the snapshot and replays only what came after it. The
+     * database must not change while the checkpoint runs: a change made to
+     * it but not yet appended would be in the snapshot and replayed again
+     * after it. RunProject2 checkpoints once every session has ended. The
+     * snapshot notes
+     * the length of the journal it covers until the journal is emptied, so
+     * restore() is correct wherever a crash interrupts the checkpoint.
+     *
+     * @param snapshot The snapshot file.
+     * @param database The database whose changes this journal records.
+     * @throws IOException if the snapshot or the journal cannot be written.
+     */
+    public synchronized void checkpoint(Path snapshot, AccountDatabase database) throws IOException {
+        drain();
+        Snapshot.write(snapshot, database, channel.size());
+        channel.truncate(0);
+        channel.force(true);
+        Snapshot.setJournalOffset(snapshot, 0);
+    }
+
+    /**
+     * Rebuilds a store from a snapshot, if there is one, and the journal
+     * records written after it.
+     *
+     * @param journal  The journal file.
+     * @param snapshot The snapshot file.
+     * @param store    The empty store to rebuild.
+     * @return The number of journal records replayed.
+     * @throws IOException if a file cannot be read.
+     */
+    public static long restore(Path journal, Path snapshot, AccountStore store) throws IOException {
+        long offset = Snapshot.load(snapshot, store);
+        long size = Files.exists(journal) ? Files.size(journal) : 0;
+        if (offset > size) {
+            // The journal was emptied after the snapshot was written.
+            Snapshot.setJournalOffset(snapshot, 0);
+            offset = 0;
+        }
+        return replay(journal, store, offset);
+    }
+
+    /**
+     * Replays a journal into a store, applying each recorded operation in
+     * order. A record cut short by a crash, and anything after it, is
+     * removed from the file.
+     *
+     * @param path  The journal file; nothing is replayed if it does not exist.
+     * @param store The store to rebuild.
+     * @return The number of records replayed.
+     * @throws IOException if the file cannot be read.
+     */
+    public static long replay(Path path, AccountStore store) throws IOException {
+        return replay(path, store, 0);
+    }
+
+    /**
+     * Replays the records of a journal that start at or after an offset.
+     *
+     * @param path  The journal file; nothing is replayed if it does not exist.
+     * @param store The store to rebuild.
+     * @param from  The file offset of the first record to replay.
+     * @return The number of records replayed.
+     * @throws IOException if the file cannot be read.
+     */
+    private static long replay(Path path, AccountStore store, long from) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            in.position(from);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Constants.JOURNAL_BUFFER_SIZE);
+            buffer.flip();
+            CRC32C crc = new CRC32C();
+            long good = from; // file offset after the last intact record
+            long count = 0;
+            while (true) {
+                if (!fill(in, buffer, LENGTH_BYTES)) {
+                    break;
+                }
+                int bodyLength = buffer.getInt(buffer.position());
+                if (bodyLength <= 0 || bodyLength > in.size() - good - LENGTH_BYTES - CHECKSUM_BYTES) {
+                    break;
+                }
+                int recordLength = LENGTH_BYTES + bodyLength + CHECKSUM_BYTES;
+                if (buffer.capacity() < recordLength) {
+                    ByteBuffer larger = ByteBuffer.allocateDirect(recordLength);
+                    larger.put(buffer).flip();
+                    buffer = larger;
+                }
+                if (!fill(in, buffer, recordLength)) {
+                    break;
+                }
+                int bodyStart = buffer.position() + LENGTH_BYTES;
+                crc.reset();
+                crc.update(buffer.duplicate().position(bodyStart).limit(bodyStart + bodyLength));
+                if ((int) crc.getValue() != buffer.getInt(bodyStart + bodyLength)) {
+                    break;
+                }
+                buffer.position(bodyStart);
+                if (buffer.get(bodyStart) == MONTH_END) {
+                    store.postMonthEnd();
+                } else {
+                    apply(decode(buffer), store);
+                }
+                buffer.position(bodyStart + bodyLength + CHECKSUM_BYTES);
+                good += recordLength;
+                count++;
+            }
+            if (good < in.size()) {
+                in.truncate(good);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Reads from a channel until the buffer holds at least the given number
+     * of unread bytes.
+     *
+     * @param in     The channel to read from.
+     * @param buffer The buffer, in read mode.
+     * @param bytes  The number of bytes needed.
+     * @return true if the bytes are available, false if the file ended first.
+     * @throws IOException if the file cannot be read.
+     */
+    private static boolean fill(FileChannel in, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        try {
+            while (buffer.position() < bytes) {
+                if (in.read(buffer) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Decodes the body of a record.
+     *
+     * @param buffer The buffer, positioned at the start of a body.
+     * @return The recorded operation.
+     */
+    private static Operation decode(ByteBuffer buffer) {
+        Operation.Kind kind = Operation.Kind.values()[buffer.get()];
+        AccountType type = AccountType.fromRecordCode(buffer.get());
+        long amount = buffer.getLong();
+        int code = buffer.get();
+        Date dob = Date.unpack(buffer.getInt());
+        byte[] fname = new byte[buffer.getInt()];
+        buffer.get(fname);
+        byte[] lname = new byte[buffer.getInt()];
+        buffer.get(lname);
+        Profile holder = new Profile(new String(fname, StandardCharsets.UTF_8),
+                new String(lname, StandardCharsets.UTF_8), dob);
+        return new Operation(kind, type, holder, amount, code);
+    }
+
+    /**
+     * Applies a replayed operation to a store.
+     *
+     * @param operation The operation.
+     * @param store     The store to apply it to.
+     */
+    private static void apply(Operation operation, AccountStore store) {
+        Account account = operation.newAccount();
+        switch (operation.getKind()) {
+            case OPEN -> store.open(account);
+            case CLOSE -> store.close(account);
+            case DEPOSIT -> store.deposit(account);
+            default -> store.withdraw(account);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package banking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the Journal class, focusing on rebuilding a database by replay and
+ * from a checkpoint.
+ *
+ */
+
+public class JournalTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests that replaying a journal rebuilds the accounts, balances and
+     * money market withdrawal counts it recorded.
+     */
+    @Test
+    public void testReplay() throws IOException {
+        Path path = directory.resolve("journal");
+        Profile jane = new Profile("Jane", "Doe", new Date("10/1/1995"));
+        Profile roy = new Profile("Roy", "Brooks", new Date("10/31/1979"));
+        try (Journal journal = new Journal(path, 4, 0)) {
+            AccountStore store = new JournaledAccountStore(new AccountDatabase(), journal);
+            store.open(new CollegeChecking(jane, 100, 2));
+            store.open(new MoneyMarket(roy, 2500, 0));
+            store.deposit(new MoneyMarket(roy, 10.5, 0));
+            store.withdraw(new MoneyMarket(roy, 100, 0));
+            store.withdraw(new CollegeChecking(jane, 500, 0)); // insufficient, not recorded
+            store.open(new Savings(jane, 50, 1));
+            store.close(new Savings(jane, 0, 0));
+        }
+        AccountDatabase replayed = new AccountDatabase();
+        Assertions.assertEquals(6, Journal.replay(path, replayed));
+        Assertions.assertEquals(2, replayed.size());
+        Account college = replayed.getAccount(new CollegeChecking(jane, 0, 0));
+        Assertions.assertEquals(10000, college.getBalanceCents());
+        Assertions.assertEquals(Campus.CAMDEN, ((CollegeChecking) college).getCampus());
+        MoneyMarket market = (MoneyMarket) replayed.getAccount(new MoneyMarket(roy, 0, 0));
+        Assertions.assertEquals(241050, market.getBalanceCents());
+        Assertions.assertEquals(1, market.getWithdrawals());
+    }
+
+    /**
+     * Tests that a record cut short by a crash is dropped on replay and cut
+     * from the file, so that later records follow the intact ones.
+     */
+    @Test
+    public void testTornTail() throws IOException {
+        Path path = directory.resolve("journal");
+        Profile jane = new Profile("Jane", "Doe", new Date("10/1/1995"));
+        try (Journal journal = new Journal(path, 1, 0)) {
+            AccountStore store = new JournaledAccountStore(new AccountDatabase(), journal);
+            store.open(new Checking(jane, 100));
+            store.deposit(new Checking(jane, 25));
+        }
+        long size = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+        AccountDatabase replayed = new AccountDatabase();
+        Assertions.assertEquals(1, Journal.replay(path, replayed));
+        Assertions.assertEquals(10000, replayed.getAccount(new Checking(jane, 0)).getBalanceCents());
+        Assertions.assertTrue(Files.size(path) < size - 3, "Expected the torn record to be cut.");
+    }
+
+    /**
+     * Tests that a record whose length field is corrupt ends the replay like
+     * a failed checksum, instead of being read as a huge record.
+     */
+    @Test
+    public void testCorruptLength() throws IOException {
+        Path path = directory.resolve("journal");
+        Profile jane = new Profile("Jane", "Doe", new Date("10/1/1995"));
+        try (Journal journal = new Journal(path, 1, 0)) {
+            AccountStore store = new JournaledAccountStore(new AccountDatabase(), journal);
+            store.open(new Checking(jane, 100));
+        }
+        long size = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, Integer.MAX_VALUE - 8));
+        }
+        AccountDatabase replayed = new AccountDatabase();
+        Assertions.assertEquals(1, Journal.replay(path, replayed));
+        Assertions.assertEquals(size, Files.size(path), "Expected the corrupt record to be cut.");
+    }
+
+    /**
+     * Tests that a name longer than a short can count is recorded whole,
+     * and that the records after it still replay.
+     */
+    @Test
+    public void testLongName() throws IOException {
+        Path path = directory.resolve("journal");
+        Profile longName = new Profile("J".repeat(40000), "Doe", new Date("10/1/1995"));
+        Profile jane = new Profile("Jane", "Doe", new Date("10/1/1995"));
+        try (Journal journal = new Journal(path, 1, 0)) {
+            AccountStore store = new JournaledAccountStore(new AccountDatabase(), journal);
+            store.open(new Checking(longName, 100));
+            store.open(new Checking(jane, 200));
+        }
+        AccountDatabase replayed = new AccountDatabase();
+        Assertions.assertEquals(2, Journal.replay(path, replayed));
+        Assertions.assertEquals(10000, replayed.getAccount(new Checking(longName, 0)).getBalanceCents());
+        Assertions.assertEquals(20000, replayed.getAccount(new Checking(jane, 0)).getBalanceCents());
+    }
+
+    /**
+     * Tests that changes made by several threads at once are on disk as soon
+     * as each call returns, before the journal is closed.
+     */
+    @Test
+    public void testConcurrentCommitsAreForced() throws IOException, InterruptedException {
+        Path path = directory.resolve("journal");
+        Profile jane = new Profile("Jane", "Doe", new Date("10/1/1995"));
+        AccountDatabase database = new AccountDatabase();
+        try (Journal journal = new Journal(path, 8, 200)) {
+            AccountStore store = new JournaledAccountStore(database, journal);
+            store.open(new Checking(jane, 100));
+            Thread[] threads = new Thread[8];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread(() -> {
+                    for (int j = 0; j < 50; j++) {
+                        store.deposit(new Checking(jane, 1));
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            AccountDatabase replayed = new AccountDatabase();
+            Assertions.assertEquals(401, Journal.replay(path, replayed));
+            Assertions.assertEquals(50000, replayed.getAccount(new Checking(jane, 0)).getBalanceCents());
+        }
+    }
+
+    /**
+     * Tests that stores which change different holders in parallel journal
+     * each change inside their own critical section: threads racing on the
+     * same accounts, with withdrawals that fail or succeed depending on
+     * the order and month ends in between, replay to the same accounts.
+     */
+    @Test
+    public void testParallelStoresReplay() throws IOException, InterruptedException {
+        try (ShardedAccountDatabase sharded = new ShardedAccountDatabase(2)) {
+            for (AccountStore parallel : new AccountStore[] { new ConcurrentAccountDatabase(4), sharded }) {
+                Path path = directory.resolve("journal-" + parallel.getClass().getSimpleName());
+                try (Journal journal = new Journal(path, 8, 100)) {
+                    AccountStore store = new JournaledAccountStore(parallel, journal);
+                    Thread[] threads = new Thread[4];
+                    for (int i = 0; i < threads.length; i++) {
+                        int thread = i;
+                        threads[i] = new Thread(() -> race(store, thread));
+                        threads[i].start();
+                    }
+                    for (Thread thread : threads) {
+                        thread.join();
+                    }
+                }
+                AccountDatabase replayed = new AccountDatabase();
+                Journal.replay(path, replayed);
+                Assertions.assertEquals(sorted(parallel), sorted(replayed),
+                        "Expected the journal of " + parallel.getClass().getSimpleName() + " to replay.");
+            }
+        }
+    }
+
+    /**
+     * Makes one thread's changes for testParallelStoresReplay(), on holders
+     * every thread shares.
+     *
+     * @param store  The journaled store.
+     * @param thread The number of the thread.
+     */
+    private static void race(AccountStore store, int thread) {
+        Date dob = new Date("1/1/1990");
+        for (int round = 0; round < 200; round++) {
+            Profile holder = new Profile("First" + round % 3, "Doe", dob);
+            store.open(new MoneyMarket(holder, 2000, 0));
+            store.deposit(new MoneyMarket(holder, 30, 0));
+            store.withdraw(new MoneyMarket(holder, 70, 0));
+            if ((round + thread) % 9 == 0) {
+                store.close(new Checking(holder, 0));
+            } else {
+                store.open(new Checking(holder, 50));
+                store.withdraw(new Checking(holder, 20));
+            }
+            if (thread == 0 && round % 50 == 0) {
+                store.postMonthEnd();
+            }
+        }
+    }
+
+    /**
+     * Prints the sorted list of a store's accounts.
+     *
+     * @param store The store.
+     * @return The printed list.
+     */
+    private static String sorted(AccountStore store) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputSink out = new OutputSink(bytes);
+        store.printSorted(out);
+        out.flush();
+        return bytes.toString();
+    }
+
+    /**
+     * Tests that a restart after a checkpoint loads the snapshot, including
+     * a very long name, and replays only the changes journaled after it.
+     */
+    @Test
+    public void testCheckpointAndRestore() throws IOException {
+        Path path = directory.resolve("journal");
+        Path snapshot = directory.resolve("snapshot");
+        Profile jane = new Profile("Jane", "Doe", new Date("10/1/1995"));
+        Profile roy = new Profile("Roy", "Brooks", new Date("10/31/1979"));
+        Profile longName = new Profile("J".repeat(40000), "Doe", new Date("10/1/1995"));
+        AccountDatabase database = new AccountDatabase();
+        try (Journal journal = new Journal(path, 1, 0)) {
+            AccountStore store = new JournaledAccountStore(database, journal);
+            store.open(new Savings(jane, 100, 1));
+            store.open(new MoneyMarket(roy, 2500, 0));
+            store.open(new Checking(longName, 300));
+            store.withdraw(new MoneyMarket(roy, 100, 0));
+            journal.checkpoint(snapshot, database);
+            Assertions.assertEquals(0, Files.size(path), "Expected the journal to be emptied.");
+            store.deposit(new Savings(jane, 5, 0));
+        }
+        AccountDatabase restored = new AccountDatabase();
+        Assertions.assertEquals(1, Journal.restore(path, snapshot, restored));
+        Savings savings = (Savings) restored.getAccount(new Savings(jane, 0, 0));
+        Assertions.assertEquals(10500, savings.getBalanceCents());
+        Assertions.assertTrue(savings.isLoyal(), "Expected loyalty to be restored.");
+        MoneyMarket market = (MoneyMarket) restored.getAccount(new MoneyMarket(roy, 0, 0));
+        Assertions.assertEquals(240000, market.getBalanceCents());
+        Assertions.assertEquals(1, market.getWithdrawals());
+        Assertions.assertEquals(30000, restored.getAccount(new Checking(longName, 0)).getBalanceCents(),
+                "Expected a name longer than a short can count to be restored.");
+    }
+
+    /**
+     * Tests that a journaled month end posts fees and interest again on
+     * replay and resets money market withdrawal counts.
+     */
+    @Test
+    public void testMonthEndReplay() throws IOException {
+        Path path = directory.resolve("journal");
+        Profile roy = new Profile("Roy", "Brooks", new Date("10/31/1979"));
+        AccountDatabase database = new AccountDatabase();
+        try (Journal journal = new Journal(path, 1, 0)) {
+            AccountStore store = new JournaledAccountStore(database, journal);
+            store.open(new MoneyMarket(roy, 2500, 0));
+            for (int i = 0; i < 4; i++) {
+                store.withdraw(new MoneyMarket(roy, 10, 0));
+            }
+            store.postMonthEnd();
+            store.deposit(new MoneyMarket(roy, 1, 0));
+        }
+        MoneyMarket posted = (MoneyMarket) database.getAccount(new MoneyMarket(roy, 0, 0));
+        // 2,460.00 plus 9.74 interest at 4.75%, less the 10.00 over-limit fee, plus the 1.00 deposit.
+        Assertions.assertEquals(246074, posted.getBalanceCents(), "Expected the fee and interest to be posted.");
+        AccountDatabase replayed = new AccountDatabase();
+        Assertions.assertEquals(7, Journal.replay(path, replayed));
+        MoneyMarket market = (MoneyMarket) replayed.getAccount(new MoneyMarket(roy, 0, 0));
+        Assertions.assertEquals(posted.getBalanceCents(), market.getBalanceCents());
+        Assertions.assertEquals(0, market.getWithdrawals());
+    }
+}
@@ -0,0 +1,164 @@
+package banking;
+
+/**
+ * An account store that records every change it makes in a Journal. The
+ * journal is the wrapped store's change log: the store appends each open,
+ * close, deposit, withdrawal and month end that changed anything inside
+ * its own critical section, so the journal holds the changes in an order
+ * that replays to the same accounts, and changes to different holders go
+ * on as much in parallel as the store allows. The caller then waits,
+ * without any lock, for the change's group to be forced.
+ *
+ * A change is therefore visible to other callers as soon as the store has
+ * made it, before it is durable, but it is reported to its own caller only
+ * once it is durable. After a crash, a change another caller saw may be
+ * lost, but only together with every change journaled after it, so the
+ * replayed store is one the callers could have seen.
+ *
+ */
+public class JournaledAccountStore implements AccountStore {
+    private final AccountStore store;
+    private final Journal journal;
+
+    /**
+     * Wraps a store with a journal, making the journal the store's change
+     * log. The store must not yet be shared between threads.
+     *
+     * @param store   The store that holds the accounts.
+     * @param journal The journal to record changes in.
+     */
+    public JournaledAccountStore(AccountStore store, Journal journal) {
+        this.store = store;
+        this.journal = journal;
+        store.setChangeLog(journal);
+    }
+
+    /**
+     * Checks if the store contains a specific account.
+     *
+     * @param account The account to check.
+     * @return true if the account exists, false otherwise.
+     */
+    @Override
+    public boolean contains(Account account) {
+        return store.contains(account);
+    }
+
+    /**
+     * Adds a new account, and returns once the opening is durable.
+     *
+     * @param account The account to be added.
+     * @return true if the account was added successfully, false otherwise.
+     */
+    @Override
+    public boolean open(Account account) {
+        if (!store.open(account)) {
+            return false;
+        }
+        journal.await(journal.appended());
+        return true;
+    }
+
+    /**
+     * Removes a specific account, and returns once the closing is durable.
+     *
+     * @param account The account to be removed.
+     * @return true if the account was removed successfully, false otherwise.
+     */
+    @Override
+    public boolean close(Account account) {
+        if (!store.close(account)) {
+            return false;
+        }
+        journal.await(journal.appended());
+        return true;
+    }
+
+    /**
+     * Processes a withdrawal, and returns once it is durable if it
+     * succeeded.
+     *
+     * @param account The account from which to withdraw. The balance of this
+     *                account object represents the amount to be withdrawn.
+     * @return true if the withdrawal was successful, false otherwise.
+     */
+    @Override
+    public boolean withdraw(Account account) {
+        if (!store.withdraw(account)) {
+            return false;
+        }
+        journal.await(journal.appended());
+        return true;
+    }
+
+    /**
+     * Processes a deposit, and returns once it is durable if the account
+     * was found.
+     *
+     * @param account The account in which to deposit. The balance of this
+     *                account object represents the amount to be deposited.
+     * @return true if the account was found, false otherwise.
+     */
+    @Override
+    public boolean deposit(Account account) {
+        if (!store.deposit(account)) {
+            return false;
+        }
+        journal.await(journal.appended());
+        return true;
+    }
+
+    /**
+     * Prints the sorted list of accounts.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printSorted(OutputSink out) {
+        store.printSorted(out);
+    }
+
+    /**
+     * Prints detailed account information including fees and monthly interests.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printFeesAndInterests(OutputSink out) {
+        store.printFeesAndInterests(out);
+    }
+
+    /**
+     * Prints the totals of each account type and campus.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printSummary(OutputSink out) {
+        store.printSummary(out);
+    }
+
+    /**
+     * Posts the month end, and returns once the posting is durable.
+     */
+    @Override
+    public void postMonthEnd() {
+        store.postMonthEnd();
+        journal.await(journal.appended());
+    }
+
+    /**
+     * Posts the month end and prints the new balances once the posting is
+     * durable. The store posts the month end and hands back the report,
+     * which is printed without holding up other changes.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printUpdatedBalances(OutputSink out) {
+        try (PostedReport report = store.postUpdatedBalances()) {
+            journal.await(journal.appended());
+            report.print(out);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package banking;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * A k-way merge of several sorted sequences of accounts into one sorted
+ * sequence. Used to build reports over stores that are split into parts,
+ * each of which keeps its own accounts in order.
+ *
+ */
+public class MergedAccounts implements Iterable<Account> {
+    private final List<? extends Iterable<Account>> parts;
+    private final Comparator<Account> order;
+
+    /**
+     * Creates a merged view of the given sorted sequences.
+     *
+     * @param parts The sequences to merge, each already sorted by order.
+     * @param order The order shared by the sequences.
+     */
+    public MergedAccounts(List<? extends Iterable<Account>> parts, Comparator<Account> order) {
+        this.parts = parts;
+        this.order = order;
+    }
+
+    /**
+     * Returns an iterator over the merged accounts. Each call to next costs
+     * O(log k) for k sequences.
+     *
+     * @return An iterator that yields the accounts of every part in order.
+     */
+    @Override
+    public Iterator<Account> iterator() {
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, parts.size()),
+                (first, second) -> order.compare(first.account, second.account));
+        for (Iterable<Account> part : parts) {
+            Iterator<Account> accounts = part.iterator();
+            if (accounts.hasNext()) {
+                heads.add(new Head(accounts.next(), accounts));
+            }
+        }
+        return new Iterator<Account>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Account next() {
+                Head head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                Account account = head.account;
+                if (head.rest.hasNext()) {
+                    head.account = head.rest.next();
+                    heads.add(head);
+                }
+                return account;
+            }
+        };
+    }
+
+    /**
+     * The next unmerged account of one sequence and the rest of it.
+     */
+    private static class Head {
+        private Account account;
+        private final Iterator<Account> rest;
+
+        /**
+         * Creates the head of a sequence.
+         *
+         * @param account The first unmerged account.
+         * @param rest    The remaining accounts.
+         */
+        Head(Account account, Iterator<Account> rest) {
+            this.account = account;
+            this.rest = rest;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package banking;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point arithmetic and formatting for amounts of money held as a long
+ * number of cents. Everything here works on primitives, so month-end math
+ * and report formatting do not go through double or DecimalFormat.
+ *
+ */
+public class Money {
+    public static final int CENTS_PER_DOLLAR = 100;
+    public static final long BASIS_POINTS = 10_000;
+
+    /**
+     * Converts an amount in dollars, as typed on a command line, into cents.
+     * The exact value of the double is rounded half-even to the nearest
+     * cent, as the "#,##0.00" DecimalFormat the reports used rounded it, so
+     * 1000.555, stored as just under that, becomes 1000.55.
+     *
+     * @param dollars the amount in dollars
+     * @return the amount in cents
+     * @throws NumberFormatException if the amount is not a finite number
+     */
+    public static long toCents(double dollars) {
+        return new BigDecimal(dollars).setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts an amount in cents into dollars.
+     *
+     * @param cents the amount in cents
+     * @return the amount in dollars
+     */
+    public static double toDollars(long cents) {
+        return (double) cents / CENTS_PER_DOLLAR;
+    }
+
+    /**
+     * Calculates one month of interest on a balance, rounded half-even to the
+     * nearest cent like the "#,##0.00" DecimalFormat the reports used.
+     *
+     * @param cents      the balance in cents
+     * @param annualRate the annual interest rate in basis points
+     * @return the monthly interest in cents
+     */
+    public static long monthlyInterest(long cents, long annualRate) {
+        return divideHalfEven(cents * annualRate, BASIS_POINTS * Constants.MONTHS_COUNT);
+    }
+
+    /**
+     * Divides two longs, rounding the quotient half-even.
+     *
+     * @param dividend the dividend
+     * @param divisor  the divisor, which must be positive
+     * @return the rounded quotient
+     */
+    private static long divideHalfEven(long dividend, long divisor) {
+        long quotient = Math.floorDiv(dividend, divisor);
+        long twiceRemainder = 2 * Math.floorMod(dividend, divisor);
+        if (twiceRemainder > divisor || (twiceRemainder == divisor && (quotient & 1) != 0)) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    /**
+     * Appends an amount in the "#,##0.00" format: grouped dollars, a decimal
+     * point and exactly two digits of cents.
+     *
+     * @param cents the amount in cents
+     * @param out   the builder to append to
+     * @return the builder, for chaining
+     */
+    public static StringBuilder format(long cents, StringBuilder out) {
+        if (cents < 0) {
+            out.append('-');
+            cents = -cents;
+        }
+        long dollars = cents / CENTS_PER_DOLLAR;
+        int fraction = (int) (cents % CENTS_PER_DOLLAR);
+        appendGrouped(dollars, out);
+        out.append('.');
+        out.append((char) ('0' + fraction / 10));
+        out.append((char) ('0' + fraction % 10));
+        return out;
+    }
+
+    /**
+     * Formats an amount in the "#,##0.00" format.
+     *
+     * @param cents the amount in cents
+     * @return the formatted amount
+     */
+    public static String format(long cents) {
+        return format(cents, new StringBuilder(16)).toString();
+    }
+
+    /**
+     * Appends a whole number of dollars with a comma between each group of
+     * three digits.
+     *
+     * @param dollars the non-negative number of dollars
+     * @param out     the builder to append to
+     */
+    private static void appendGrouped(long dollars, StringBuilder out) {
+        if (dollars < 1000) {
+            out.append(dollars);
+            return;
+        }
+        appendGrouped(dollars / 1000, out);
+        int group = (int) (dollars % 1000);
+        out.append(',');
+        out.append((char) ('0' + group / 100));
+        out.append((char) ('0' + group / 10 % 10));
+        out.append((char) ('0' + group % 10));
+    }
+}
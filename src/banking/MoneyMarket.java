@@ -1,5 +1,8 @@
 package banking;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * Represents a Money Market savings account.
  * This type of account has specific withdrawal limits, interest rates, and fees
@@ -9,7 +12,18 @@ package banking;
 public class MoneyMarket extends Savings {
 
     // Counter to keep track of the number of withdrawals made.
-    private int withdrawal;
+    private volatile int withdrawal;
+
+    // Atomic access to the withdrawal counter.
+    private static final VarHandle WITHDRAWAL;
+
+    static {
+        try {
+            WITHDRAWAL = MethodHandles.lookup().findVarHandle(MoneyMarket.class, "withdrawal", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     /**
      * Constructor for the MoneyMarket account.
@@ -20,7 +34,7 @@ public class MoneyMarket extends Savings {
      *                not detailed in the provided code).
      */
     public MoneyMarket(Profile holder, double balance, int code) {
-        super(holder, balance, code);
+        super(holder, balance, code, AccountType.MONEY_MARKET);
         this.withdrawal = 0;
         this.isLoyal = true; // By default, set the account as loyal.
     }
@@ -32,29 +46,63 @@ public class MoneyMarket extends Savings {
      */
     @Override
     public double monthlyInterest() {
-        double interestRate = Constants.MM_INTEREST;
-        if (isLoyal) {
-            interestRate += Constants.LOYAL_BONUS;
-        }
-        return balance * (interestRate / Constants.MONTHS_COUNT); // Monthly interest
+        return Money.toDollars(monthlyInterestCents());
+    }
+
+    /**
+     * Calculates the monthly interest for the money market account in cents.
+     * The loyalty bonus applies while the balance is at least the loyalty
+     * minimum.
+     *
+     * @return The monthly interest amount in cents.
+     */
+    @Override
+    public long monthlyInterestCents() {
+        return interestFor(balance);
     }
 
     /**
-     * Determines the monthly fee for the money market account.
+     * Determines the monthly fee for the money market account in cents.
      * The fee is based on the account balance and the number of withdrawals.
      *
-     * @return The monthly fee amount.
+     * @return The monthly fee amount in cents.
      */
     @Override
-    public double monthlyFee() {
-        if (balance >= Constants.MIN_BALANCE_LOYAL && withdrawal <= Constants.WITHDRAW_LIMIT) {
-            return 0;
-        } else if (withdrawal > Constants.WITHDRAW_LIMIT && balance >= Constants.MIN_BALANCE_LOYAL) {
-            return Constants.FEE_WITHDRAW_OVER_LIMIT;
-        } else if (withdrawal > Constants.WITHDRAW_LIMIT && balance < Constants.MIN_BALANCE_LOYAL) {
-            return Constants.MM_PLUS_FEE;
-        }
-        return Constants.SAVINGS_FEE;
+    public long monthlyFeeCents() {
+        return feeFor(balance, withdrawal);
+    }
+
+    /**
+     * Checks if a money market balance earns the loyalty bonus.
+     *
+     * @param balance The balance in cents.
+     * @return true if the balance is at least the loyalty minimum.
+     */
+    public static boolean isLoyalFor(long balance) {
+        return balance >= Constants.MIN_BALANCE_LOYAL;
+    }
+
+    /**
+     * Calculates the monthly interest on a money market balance. The loyalty
+     * bonus applies while the balance is at least the loyalty minimum.
+     *
+     * @param balance The balance in cents.
+     * @return The monthly interest amount in cents.
+     */
+    public static long interestFor(long balance) {
+        return AccountType.MONEY_MARKET.interest(balance, false);
+    }
+
+    /**
+     * Determines the monthly fee on a money market balance, based on the
+     * balance and the number of withdrawals.
+     *
+     * @param balance     The balance in cents.
+     * @param withdrawals The number of withdrawals this month.
+     * @return The monthly fee amount in cents.
+     */
+    public static long feeFor(long balance, int withdrawals) {
+        return AccountType.MONEY_MARKET.fee(balance, withdrawals);
     }
 
     /**
@@ -69,7 +117,34 @@ public class MoneyMarket extends Savings {
      * Increments the withdrawal counter for the account.
      */
     public void incrementWithdrawals() {
-        this.withdrawal++;
+        WITHDRAWAL.getAndAdd(this, 1);
+    }
+
+    /**
+     * Takes an amount from the balance if the balance covers it, and counts
+     * the withdrawal.
+     *
+     * @param cents The amount to withdraw, in cents.
+     * @return true if the amount was withdrawn, false if funds are
+     *         insufficient.
+     */
+    @Override
+    public boolean withdraw(long cents) {
+        if (!super.withdraw(cents)) {
+            return false;
+        }
+        incrementWithdrawals();
+        return true;
+    }
+
+    /**
+     * Sets the withdrawal counter, as when restoring the account from a
+     * snapshot.
+     *
+     * @param withdrawals The number of withdrawals this month.
+     */
+    void setWithdrawals(int withdrawals) {
+        this.withdrawal = withdrawals;
     }
 
     /**
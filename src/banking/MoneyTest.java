@@ -0,0 +1,54 @@
+package banking;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the fixed-point money helpers, focusing on formatting and on the
+ * rounding of monthly interest.
+ * 
+ */
+
+public class MoneyTest {
+
+    /**
+     * Tests that amounts are formatted like the "#,##0.00" DecimalFormat.
+     */
+    @Test
+    public void testFormat() {
+        assertEquals("0.00", Money.format(0));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("599.99", Money.format(59999));
+        assertEquals("1,200.00", Money.format(120000));
+        assertEquals("1,000,000.01", Money.format(100000001));
+        assertEquals("-12.50", Money.format(-1250));
+    }
+
+    /**
+     * Tests that dollar amounts typed on a command line convert to the
+     * nearest cent, rounding the double's exact value half-even as the
+     * "#,##0.00" DecimalFormat did.
+     */
+    @Test
+    public void testToCents() {
+        assertEquals(290910, Money.toCents(2909.10));
+        assertEquals(10099, Money.toCents(100.99));
+        assertEquals(-100, Money.toCents(-1));
+        assertEquals(100055, Money.toCents(1000.555)); // just under 1000.555
+        assertEquals(101, Money.toCents(1.015)); // just under 1.015
+        assertEquals(12, Money.toCents(0.125)); // exactly half, to the even cent
+        assertEquals(0, Money.toCents(0.004));
+        assertThrows(NumberFormatException.class, () -> Money.toCents(Double.NaN));
+    }
+
+    /**
+     * Tests monthly interest, including a half-cent result that rounds to the
+     * even cent.
+     */
+    @Test
+    public void testMonthlyInterest() {
+        assertEquals(100, Money.monthlyInterest(120000, Constants.CHECKING_ANNUAL_INTEREST_RATE)); // $1.00
+        assertEquals(1033, Money.monthlyInterest(260910, Constants.MM_INTEREST + Constants.LOYAL_BONUS));
+        assertEquals(128, Money.monthlyInterest(154200, Constants.CHECKING_ANNUAL_INTEREST_RATE)); // 128.5
+    }
+}
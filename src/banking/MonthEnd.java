@@ -0,0 +1,100 @@
+package banking;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Posts the month-end fees and interest of a store. The slots of the store
+ * are split into partitions of Constants.MONTH_END_PARTITION slots, which
+ * are posted in parallel on the common ForkJoinPool. Every account's fee and
+ * interest depend only on that account, so partitions never share state and
+ * need no locking between them; the caller keeps the store from changing
+ * shape while they run.
+ *
+ */
+public class MonthEnd {
+
+    /**
+     * Posts the month end for a range of slots.
+     */
+    @FunctionalInterface
+    interface Partition {
+
+        /**
+         * Posts the month end for every account in a range of slots.
+         *
+         * @param from The first slot.
+         * @param to   Just after the last slot.
+         */
+        void post(int from, int to);
+    }
+
+    /**
+     * Splits a range of slots in half until each part is no larger than one
+     * partition, and posts the parts in parallel.
+     */
+    private static class Posting extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Partition partition;
+        private final int from;
+        private final int to;
+
+        /**
+         * Creates the task for a range of slots.
+         *
+         * @param partition What to do with each partition.
+         * @param from      The first slot.
+         * @param to        Just after the last slot.
+         */
+        Posting(Partition partition, int from, int to) {
+            this.partition = partition;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Posts the range, or splits it and posts both halves.
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= Constants.MONTH_END_PARTITION) {
+                partition.post(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Posting(partition, from, middle), new Posting(partition, middle, to));
+        }
+    }
+
+    /**
+     * Posts the month end for slots 0 to count in parallel, and returns when
+     * every partition is done.
+     *
+     * @param count     The number of slots.
+     * @param partition What to do with each partition.
+     */
+    static void post(int count, Partition partition) {
+        if (count <= Constants.MONTH_END_PARTITION) {
+            partition.post(0, count);
+        } else {
+            ForkJoinPool.commonPool().invoke(new Posting(partition, 0, count));
+        }
+    }
+
+    /**
+     * Posts the month end for one account: the fee is taken and the interest
+     * added, both worked out from the balance before either is applied, and
+     * a money market's withdrawal counter starts again at zero.
+     *
+     * @param account The account.
+     */
+    static void post(Account account) {
+        long fee = account.monthlyFeeCents();
+        long interest = account.monthlyInterestCents();
+        account.deposit(interest - fee);
+        if (account.getType() == AccountType.MONEY_MARKET) {
+            ((MoneyMarket) account).resetWithdrawals();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package banking;
+
+/**
+ * One typed operation for AccountDatabase.apply(). An operation names the
+ * account by holder and type code ("C", "CC", "S" or "MM", as on the command
+ * line) and carries its amount in cents, so applying it does not need a
+ * temporary Account.
+ *
+ */
+public class Operation {
+
+    /**
+     * The kinds of operation a batch can contain.
+     */
+    public enum Kind {
+        OPEN,
+        CLOSE,
+        DEPOSIT,
+        WITHDRAW
+    }
+
+    /**
+     * The outcome of one operation in a batch.
+     */
+    public enum Result {
+        OK,
+        INVALID_DOB, // the date of birth is not a calendar date
+        FUTURE_DOB, // the date of birth is today or later
+        ALREADY_EXISTS,
+        NOT_FOUND,
+        INSUFFICIENT_FUNDS,
+        INVALID_AMOUNT,
+        UNDER_AGE, // the holder is under 16
+        OVER_AGE, // a college checking holder is 24 or older
+        INVALID_CAMPUS, // a college checking campus code is out of range
+        BELOW_MINIMUM // a money market's initial deposit is under $2000
+    }
+
+    private final Kind kind;
+    private final AccountType type;
+    private final Profile holder;
+    private final long amount;
+    private final int code;
+
+    /**
+     * Creates an operation.
+     *
+     * @param kind   The kind of operation.
+     * @param type   The account type.
+     * @param holder The profile of the account holder.
+     * @param amount The amount in cents; the initial deposit for OPEN.
+     * @param code   The campus code for CC or loyalty code for S when
+     *               opening, otherwise ignored.
+     */
+    Operation(Kind kind, AccountType type, Profile holder, long amount, int code) {
+        this.kind = kind;
+        this.type = type;
+        this.holder = holder;
+        this.amount = amount;
+        this.code = code;
+    }
+
+    /**
+     * Creates an operation that opens an account.
+     *
+     * @param typeCode The account type code.
+     * @param holder   The profile of the account holder.
+     * @param amount   The initial deposit in cents.
+     * @param code     The campus code for CC or loyalty code for S.
+     * @return The operation.
+     */
+    public static Operation open(String typeCode, Profile holder, long amount, int code) {
+        return new Operation(Kind.OPEN, AccountType.fromCode(typeCode), holder, amount, code);
+    }
+
+    /**
+     * Creates an operation that closes an account.
+     *
+     * @param typeCode The account type code.
+     * @param holder   The profile of the account holder.
+     * @return The operation.
+     */
+    public static Operation close(String typeCode, Profile holder) {
+        return new Operation(Kind.CLOSE, AccountType.fromCode(typeCode), holder, 0, 0);
+    }
+
+    /**
+     * Creates an operation that deposits into an account.
+     *
+     * @param typeCode The account type code.
+     * @param holder   The profile of the account holder.
+     * @param amount   The amount in cents.
+     * @return The operation.
+     */
+    public static Operation deposit(String typeCode, Profile holder, long amount) {
+        return new Operation(Kind.DEPOSIT, AccountType.fromCode(typeCode), holder, amount, 0);
+    }
+
+    /**
+     * Creates an operation that withdraws from an account.
+     *
+     * @param typeCode The account type code.
+     * @param holder   The profile of the account holder.
+     * @param amount   The amount in cents.
+     * @return The operation.
+     */
+    public static Operation withdraw(String typeCode, Profile holder, long amount) {
+        return new Operation(Kind.WITHDRAW, AccountType.fromCode(typeCode), holder, amount, 0);
+    }
+
+    /**
+     * Creates an operation on the account with the same holder and type as
+     * the given one. For OPEN, the account's campus or loyalty code is kept.
+     *
+     * @param kind    The kind of operation.
+     * @param account The account the operation applies to.
+     * @param amount  The amount in cents.
+     * @return The operation.
+     */
+    static Operation of(Kind kind, Account account, long amount) {
+        int code = 0;
+        switch (account.getType()) {
+            case SAVINGS -> code = ((Savings) account).isLoyal() ? 1 : 0;
+            case COLLEGE_CHECKING -> code = ((CollegeChecking) account).getCampus().ordinal();
+            default -> code = 0;
+        }
+        return new Operation(kind, account.getType(), account.getHolder(), amount, code);
+    }
+
+    /**
+     * Builds the account an OPEN operation adds.
+     *
+     * @return A new account with the operation's holder, balance and code.
+     */
+    Account newAccount() {
+        return type.newAccount(holder, Money.toDollars(amount), code);
+    }
+
+    /**
+     * Checks a holder's date of birth: it must be a calendar date before
+     * today. Both the command line and batches check dates through this.
+     *
+     * @param dob   The date of birth.
+     * @param today The current date.
+     * @return Result.OK if the date is valid, otherwise why it is not.
+     */
+    static Result checkDob(Date dob, Date today) {
+        if (!dob.isValid()) {
+            return Result.INVALID_DOB;
+        }
+        return dob.compareTo(today) >= 0 ? Result.FUTURE_DOB : Result.OK;
+    }
+
+    /**
+     * Checks the rules for opening an account of a given type: the date of
+     * birth must pass checkDob(), every holder must be 16 or older, college
+     * checking holders under 24 with a valid campus code, and a money market
+     * needs $2000 to open. Both the command line and batches open accounts
+     * through these rules.
+     *
+     * @param type   The account type.
+     * @param holder The profile of the holder.
+     * @param amount The initial deposit in cents.
+     * @param code   The campus code of a college checking account.
+     * @param today  The date to work out the holder's age on.
+     * @return Result.OK if the account can be opened, otherwise the rule it
+     *         breaks.
+     */
+    static Result checkOpen(AccountType type, Profile holder, long amount, int code, Date today) {
+        Result dob = checkDob(holder.getDob(), today);
+        if (dob != Result.OK) {
+            return dob;
+        }
+        int age = holder.getDob().getAge(today);
+        if (age < Constants.MIN_AGE) {
+            return Result.UNDER_AGE;
+        }
+        switch (type) {
+            case COLLEGE_CHECKING:
+                if (age >= Constants.COLLEGE_MAX_AGE) {
+                    return Result.OVER_AGE;
+                }
+                if (code < 0 || code >= Campus.values().length) {
+                    return Result.INVALID_CAMPUS;
+                }
+                return Result.OK;
+            case MONEY_MARKET:
+                return amount >= Constants.MM_MIN_OPENING_BALANCE ? Result.OK : Result.BELOW_MINIMUM;
+            default:
+                return Result.OK;
+        }
+    }
+
+    /**
+     * Gets the kind of operation.
+     *
+     * @return The kind.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the type of the account the operation applies to.
+     *
+     * @return The account type.
+     */
+    public AccountType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the account type code.
+     *
+     * @return The type code: "C", "CC", "S" or "MM".
+     */
+    public String getTypeCode() {
+        return type.getCode();
+    }
+
+    /**
+     * Gets the profile of the account holder.
+     *
+     * @return The holder's profile.
+     */
+    public Profile getHolder() {
+        return holder;
+    }
+
+    /**
+     * Gets the amount of the operation.
+     *
+     * @return The amount in cents.
+     */
+    public long getAmount() {
+        return amount;
+    }
+
+    /**
+     * Gets the campus code for CC or loyalty code for S of an OPEN operation.
+     *
+     * @return The code, or 0 for other operations.
+     */
+    public int getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,187 @@
+package banking;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+
+/**
+ * Collects command responses and report lines in a large byte buffer and
+ * writes them to a stream in blocks, instead of one locked println per
+ * line. ASCII text is copied into the buffer char by char; any other text
+ * is encoded with the default charset, as System.out would.
+ *
+ * The flush policy decides when a block is written: after every command,
+ * so an interactive user sees each response at once, or only when the
+ * buffer fills up, for batch runs.
+ *
+ */
+public class OutputSink {
+
+    /**
+     * When buffered output is written to the stream.
+     */
+    public enum FlushPolicy {
+        EVERY_COMMAND,
+        WHEN_FULL
+    }
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes();
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count; // number of bytes in buffer
+    private FlushPolicy policy;
+
+    /**
+     * Creates a sink over a stream that flushes after every command.
+     *
+     * @param out The stream to write to.
+     */
+    public OutputSink(OutputStream out) {
+        this(out, FlushPolicy.EVERY_COMMAND);
+    }
+
+    /**
+     * Creates a sink over a stream.
+     *
+     * @param out    The stream to write to.
+     * @param policy When to write buffered output.
+     */
+    public OutputSink(OutputStream out, FlushPolicy policy) {
+        this(out, policy, Constants.SINK_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a sink over a stream with a buffer of a given size.
+     *
+     * @param out        The stream to write to.
+     * @param policy     When to write buffered output.
+     * @param bufferSize The size of the buffer in bytes.
+     */
+    public OutputSink(OutputStream out, FlushPolicy policy, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+        this.policy = policy;
+    }
+
+    /**
+     * Changes when buffered output is written.
+     *
+     * @param policy The new flush policy.
+     */
+    public void setFlushPolicy(FlushPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Appends text.
+     *
+     * @param text The text to append.
+     * @return This sink, for chaining.
+     */
+    public OutputSink print(CharSequence text) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (count == buffer.length) {
+                    flush();
+                }
+                buffer[count++] = (byte) c;
+            } else {
+                int end = i + 1;
+                while (end < length && text.charAt(end) >= 0x80) {
+                    end++;
+                }
+                write(text.subSequence(i, end).toString().getBytes(Charset.defaultCharset()));
+                i = end - 1;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends the text of an object, such as a Date or a Campus.
+     *
+     * @param value The object to append.
+     * @return This sink, for chaining.
+     */
+    public OutputSink print(Object value) {
+        return print(String.valueOf(value));
+    }
+
+    /**
+     * Appends text and ends the line.
+     *
+     * @param text The text to append.
+     * @return This sink, for chaining.
+     */
+    public OutputSink println(CharSequence text) {
+        return print(text).println();
+    }
+
+    /**
+     * Ends the line.
+     *
+     * @return This sink, for chaining.
+     */
+    public OutputSink println() {
+        write(LINE_SEPARATOR);
+        return this;
+    }
+
+    /**
+     * Appends raw bytes, such as output rendered into another sink.
+     *
+     * @param bytes The bytes to append.
+     */
+    void write(byte[] bytes) {
+        if (bytes.length > buffer.length - count) {
+            flush();
+            if (bytes.length > buffer.length) {
+                writeOut(bytes, bytes.length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+    /**
+     * Marks the end of a command's output, and flushes it if the policy
+     * says so.
+     */
+    public void endCommand() {
+        if (policy == FlushPolicy.EVERY_COMMAND) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all buffered output to the stream.
+     *
+     * @throws UncheckedIOException if the stream cannot be written.
+     */
+    public void flush() {
+        if (count > 0) {
+            writeOut(buffer, count);
+            count = 0;
+        }
+    }
+
+    /**
+     * Writes bytes to the stream and flushes the stream.
+     *
+     * @param bytes  The bytes to write.
+     * @param length The number of bytes to write.
+     */
+    private void writeOut(byte[] bytes, int length) {
+        try {
+            out.write(bytes, 0, length);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -17,6 +17,9 @@ public class Profile implements Comparable<Profile> {
     // The date of birth of the individual
     private Date dob;
 
+    // The case-folded lookup key of the individual
+    private final ProfileKey key;
+
     /**
      * Constructor to initialize a profile with a first name, last name, and date of
      * birth.
@@ -29,6 +32,7 @@ public class Profile implements Comparable<Profile> {
         this.fname = fname;
         this.lname = lname;
         this.dob = dob;
+        this.key = new ProfileKey(fname, lname, dob);
     }
 
     /**
@@ -58,6 +62,41 @@ public class Profile implements Comparable<Profile> {
         return dob;
     }
 
+    /**
+     * Retrieves the lookup key of the individual, built once with the profile.
+     *
+     * @return The profile key.
+     */
+    public ProfileKey getKey() {
+        return key;
+    }
+
+    /**
+     * Checks if two profiles belong to the same individual. Names are compared
+     * without regard to case.
+     *
+     * @param obj The object to compare with.
+     * @return true if the profiles are equal, false otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof Profile))
+            return false;
+        return key.equals(((Profile) obj).key);
+    }
+
+    /**
+     * Returns the hash code of the profile's key.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
     /**
      * Compares two profiles based on last name, first name, and then date of birth.
      * This method is used for sorting purposes.
@@ -79,6 +118,11 @@ public class Profile implements Comparable<Profile> {
             return firstNameComparison;
         }
 
+        int thisDob = this.key.getPackedDob();
+        int otherDob = otherProfile.key.getPackedDob();
+        if (thisDob != Constants.NOT_FOUND && otherDob != Constants.NOT_FOUND) {
+            return Integer.compare(thisDob, otherDob);
+        }
         return this.dob.compareTo(otherProfile.dob);
     }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package banking;
+
+/**
+ * An immutable lookup key for a profile. The names are case-folded and the
+ * date of birth is packed into an int once, when the key is built, so that
+ * comparing two keys never allocates.
+ *
+ */
+public final class ProfileKey {
+
+    // The upper-cased first name of the holder
+    private final String fname;
+
+    // The upper-cased last name of the holder
+    private final String lname;
+
+    // The holder's date of birth, as returned by Date.pack()
+    private final int dob;
+
+    // The cached hash code of the key
+    private final int hash;
+
+    /**
+     * Builds the key for a profile.
+     *
+     * @param fname The first name of the holder.
+     * @param lname The last name of the holder.
+     * @param dob   The date of birth of the holder.
+     */
+    public ProfileKey(String fname, String lname, Date dob) {
+        this.fname = fname.toUpperCase();
+        this.lname = lname.toUpperCase();
+        this.dob = dob.pack();
+        this.hash = 31 * (31 * this.fname.hashCode() + this.lname.hashCode()) + this.dob;
+    }
+
+    /**
+     * Retrieves the packed date of birth.
+     *
+     * @return The date of birth as returned by Date.pack().
+     */
+    public int getPackedDob() {
+        return dob;
+    }
+
+    /**
+     * Checks if two keys identify the same holder, ignoring the case of the
+     * names.
+     *
+     * @param obj The object to compare with.
+     * @return true if the keys are equal, false otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof ProfileKey))
+            return false;
+        ProfileKey key = (ProfileKey) obj;
+        return hash == key.hash && dob == key.dob && lname.equals(key.lname) && fname.equals(key.fname);
+    }
+
+    /**
+     * Returns the hash code computed when the key was built.
+     *
+     * @return The hash code of the key.
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
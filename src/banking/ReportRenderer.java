@@ -0,0 +1,188 @@
+package banking;
+
+/**
+ * Renders the P, PI and UB reports. Each row is built in one reusable
+ * StringBuilder, with amounts formatted by Money.format straight into it,
+ * and streamed to the sink as soon as it is complete, so a report never
+ * holds more than one line in memory. The account type is worked out once
+ * per row.
+ *
+ */
+public class ReportRenderer {
+
+    /**
+     * The reports that list every account.
+     */
+    public enum Report {
+        SORTED("\n*Accounts sorted by account type and profile."),
+        FEES_AND_INTERESTS("\n*list of accounts with fee and monthly interest"),
+        UPDATED_BALANCES("\n*list of accounts with fees and interests applied.");
+
+        private final String header;
+
+        /**
+         * Creates a report with the given header line.
+         *
+         * @param header The line printed before the rows.
+         */
+        Report(String header) {
+            this.header = header;
+        }
+    }
+
+    // Value of withdrawals for rows that show no withdrawal count.
+    static final int NO_WITHDRAWALS = -1;
+
+    private final OutputSink out;
+    private final Report report;
+    private final StringBuilder line;
+
+    /**
+     * Creates a renderer for one report.
+     *
+     * @param report The report to render.
+     * @param out    The sink to stream rows to.
+     */
+    public ReportRenderer(Report report, OutputSink out) {
+        this.report = report;
+        this.out = out;
+        this.line = new StringBuilder(Constants.COMMAND_LINE_SIZE);
+    }
+
+    /**
+     * Renders a report over accounts in report order. UB expects the month
+     * end to have been posted already.
+     *
+     * @param report   The report to render.
+     * @param accounts The accounts, in report order.
+     * @param out      The sink to print to.
+     */
+    public static void render(Report report, Iterable<Account> accounts, OutputSink out) {
+        if (!accounts.iterator().hasNext()) {
+            empty(out);
+            return;
+        }
+        ReportRenderer renderer = new ReportRenderer(report, out);
+        renderer.begin();
+        for (Account account : accounts) {
+            renderer.row(account);
+        }
+        renderer.end();
+    }
+
+    /**
+     * Prints the line shown instead of a report when there are no accounts.
+     *
+     * @param out The sink to print to.
+     */
+    public static void empty(OutputSink out) {
+        out.println("Account Database is empty!");
+    }
+
+    /**
+     * Prints the report's header.
+     */
+    public void begin() {
+        out.println(report.header);
+    }
+
+    /**
+     * Prints the line that ends the report.
+     */
+    public void end() {
+        out.println("*end of list.\n");
+    }
+
+    /**
+     * Prints the row of an account.
+     *
+     * @param account The account.
+     */
+    public void row(Account account) {
+        long balance = account.getBalanceCents();
+        long fee = 0;
+        long interest = 0;
+        if (report == Report.FEES_AND_INTERESTS) {
+            fee = account.monthlyFeeCents();
+            interest = account.monthlyInterestCents();
+        }
+        AccountType type = account.getType();
+        switch (type) {
+            case MONEY_MARKET -> {
+                MoneyMarket market = (MoneyMarket) account;
+                int withdrawals = report == Report.FEES_AND_INTERESTS ? market.getWithdrawals() : 0;
+                row(type, account.getHolder(), balance, null, market.isLoyal(), withdrawals, fee, interest);
+            }
+            case SAVINGS -> row(type, account.getHolder(), balance, null, ((Savings) account).isLoyal(),
+                    NO_WITHDRAWALS, fee, interest);
+            case COLLEGE_CHECKING -> row(type, account.getHolder(), balance,
+                    ((CollegeChecking) account).getCampus(), false, NO_WITHDRAWALS, fee, interest);
+            default -> row(type, account.getHolder(), balance, null, false, NO_WITHDRAWALS, fee, interest);
+        }
+    }
+
+    /**
+     * Prints a row from its fields.
+     *
+     * @param type        The account type, which gives the row's label.
+     * @param holder      The account holder.
+     * @param balance     The balance to show, in cents.
+     * @param campus      The campus of a college checking account, else null.
+     * @param loyal       true to mark the account as loyal.
+     * @param withdrawals The withdrawal count to show, or NO_WITHDRAWALS.
+     * @param fee         The monthly fee in cents; shown by PI only.
+     * @param interest    The monthly interest in cents; shown by PI only.
+     */
+    public void row(AccountType type, Profile holder, long balance, Campus campus, boolean loyal, int withdrawals,
+            long fee, long interest) {
+        line.setLength(0);
+        line.append(type.getLabel()).append(holder.getFname()).append(' ').append(holder.getLname()).append(' ');
+        Date dob = holder.getDob();
+        line.append(dob.getMonth()).append('/').append(dob.getDay()).append('/').append(dob.getYear());
+        rest(balance, campus, loyal, withdrawals, fee, interest);
+    }
+
+    /**
+     * Starts a row with its label and holder, for a store that keeps the
+     * holder's names and date of birth rather than a profile. The row is
+     * printed by rest().
+     *
+     * @param type  The account type, which gives the row's label.
+     * @param fname The holder's first name.
+     * @param lname The holder's last name.
+     * @param dob   The holder's date of birth, as returned by Date.pack().
+     */
+    void holder(AccountType type, String fname, String lname, int dob) {
+        line.setLength(0);
+        line.append(type.getLabel()).append(fname).append(' ').append(lname).append(' ');
+        line.append(Date.monthOf(dob)).append('/').append(Date.dayOf(dob)).append('/').append(Date.yearOf(dob));
+    }
+
+    /**
+     * Ends the row started with its holder and prints it.
+     *
+     * @param balance     The balance to show, in cents.
+     * @param campus      The campus of a college checking account, else null.
+     * @param loyal       true to mark the account as loyal.
+     * @param withdrawals The withdrawal count to show, or NO_WITHDRAWALS.
+     * @param fee         The monthly fee in cents; shown by PI only.
+     * @param interest    The monthly interest in cents; shown by PI only.
+     */
+    void rest(long balance, Campus campus, boolean loyal, int withdrawals, long fee, long interest) {
+        Money.format(balance, line.append("::Balance $"));
+        if (campus != null) {
+            line.append("::").append(campus.name());
+        }
+        if (loyal) {
+            line.append("::is loyal");
+        }
+        if (withdrawals != NO_WITHDRAWALS) {
+            line.append("::withdrawal: ").append(withdrawals);
+        }
+        if (report == Report.FEES_AND_INTERESTS) {
+            Money.format(fee, line.append("::fee $"));
+            Money.format(interest, line.append("::monthly interest $"));
+        }
+        out.println(line);
+    }
+}
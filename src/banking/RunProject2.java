@@ -1,5 +1,13 @@
 package banking;
 
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+
 /**
  * The entry point for running the Transaction Manager application.
  * It creates an instance of TransactionManager and runs it.
@@ -9,11 +17,166 @@ public class RunProject2 {
 
     /**
      * The main method that is executed when the program is run.
-     * It creates a new TransactionManager object.
+     * It creates a new TransactionManager object. Passing "--columnar" keeps
+     * the accounts in a ColumnarAccountDatabase and "--concurrent" in a
+     * ConcurrentAccountDatabase instead of an AccountDatabase; "--sharded n"
+     * keeps them in a ShardedAccountDatabase with n shards, one per processor
+     * if n is left out; and "--versioned" keeps them in a
+     * VersionedAccountDatabase, whose reports do not hold up changes.
+     * "--journal path" replays the journal at path into the store on startup
+     * and records every change in it, reporting a change only once it is
+     * forced to disk; "--group-size n" and "--group-micros n" set how many
+     * records make a full group and how long a group that is not full
+     * waits for more before it is forced.
+     * "--snapshot path" loads the snapshot at path before replaying the
+     * journal, and checkpoints into it when the program stops; it works with
+     * the default AccountDatabase only, and the program stops with a message
+     * if another store is chosen. "--batch" reads every command from
+     * standard input in large blocks instead of line by line, and
+     * "--batch path" reads them from the file at path. "--pipeline n" runs
+     * a batch as a CommandPipeline with n parser threads, 1 if n is left
+     * out. "--server address"
+     * serves the command protocol to many clients at once on a local socket
+     * instead, with the accounts in a ConcurrentAccountDatabase unless they
+     * are sharded or versioned; the address
+     * is a TCP port on the loopback interface or a Unix domain socket path.
+     * The server runs until the program is stopped.
      *
      * @param args command-line arguments
+     * @throws IOException if the journal cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        AccountStore store = new AccountDatabase();
+        Path journalPath = null;
+        Path snapshotPath = null;
+        boolean batch = false;
+        Path batchPath = null;
+        SocketAddress serverAddress = null;
+        int parsers = 0;
+        int groupSize = Constants.JOURNAL_GROUP_SIZE;
+        long groupMicros = Constants.JOURNAL_GROUP_MICROS;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--columnar")) {
+                store = new ColumnarAccountDatabase();
+            } else if (args[i].equals("--concurrent")) {
+                store = new ConcurrentAccountDatabase();
+            } else if (args[i].equals("--sharded")) {
+                store = i + 1 < args.length && !args[i + 1].startsWith("--")
+                        ? new ShardedAccountDatabase(Integer.parseInt(args[++i]))
+                        : new ShardedAccountDatabase();
+            } else if (args[i].equals("--versioned")) {
+                store = new VersionedAccountDatabase();
+            } else if (args[i].equals("--journal") && i + 1 < args.length) {
+                journalPath = Path.of(args[++i]);
+            } else if (args[i].equals("--snapshot") && i + 1 < args.length) {
+                snapshotPath = Path.of(args[++i]);
+            } else if (args[i].equals("--batch")) {
+                batch = true;
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    batchPath = Path.of(args[++i]);
+                }
+            } else if (args[i].equals("--pipeline")) {
+                batch = true;
+                parsers = 1;
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    parsers = Integer.parseInt(args[++i]);
+                }
+            } else if (args[i].equals("--server") && i + 1 < args.length) {
+                serverAddress = TransactionServer.address(args[++i]);
+            } else if (args[i].equals("--group-size") && i + 1 < args.length) {
+                groupSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--group-micros") && i + 1 < args.length) {
+                groupMicros = Long.parseLong(args[++i]);
+            }
+        }
+        if (serverAddress != null
+                && !(store instanceof ShardedAccountDatabase || store instanceof VersionedAccountDatabase)) {
+            store = new ConcurrentAccountDatabase();
+        }
+        AccountDatabase database = store instanceof AccountDatabase ? (AccountDatabase) store : null;
+        if (snapshotPath != null && database == null) {
+            System.err.println("--snapshot works with the default AccountDatabase only, not with"
+                    + " --columnar, --concurrent, --sharded, --versioned or --server.");
+            System.exit(1);
+        }
+        if (journalPath == null) {
+            if (snapshotPath != null) {
+                Snapshot.load(snapshotPath, database);
+            }
+            run(store, batch, batchPath, parsers, serverAddress);
+            if (snapshotPath != null) {
+                Snapshot.write(snapshotPath, database, 0);
+            }
+            return;
+        }
+        if (snapshotPath != null) {
+            Journal.restore(journalPath, snapshotPath, store);
+        } else {
+            Journal.replay(journalPath, store);
+        }
+        try (Journal journal = new Journal(journalPath, groupSize, groupMicros)) {
+            run(new JournaledAccountStore(store, journal), batch, batchPath, parsers, serverAddress);
+            if (snapshotPath != null) {
+                journal.checkpoint(snapshotPath, database);
+            }
+        }
+    }
+
+    /**
+     * Runs a TransactionManager interactively or in batch mode, or a server.
+     *
+     * @param store     The store that holds the accounts.
+     * @param batch     true to read commands in batch mode.
+     * @param batchPath The command file for batch mode, or null for
+     *                  standard input.
+     * @param parsers   The number of parser threads to run a batch as a
+     *                  pipeline with, or 0 to run it on this thread.
+     * @param server    The address to serve on, or null to read commands
+     *                  from standard input or batchPath.
+     * @throws IOException if the commands cannot be read
+     */
+    private static void run(AccountStore store, boolean batch, Path batchPath, int parsers,
+            SocketAddress server) throws IOException {
+        if (server != null) {
+            serve(store, server);
+            return;
+        }
+        TransactionManager manager = new TransactionManager(store);
+        if (!batch) {
+            manager.run();
+            return;
+        }
+        try (ReadableByteChannel input = batchPath != null ? FileChannel.open(batchPath)
+                : new FileInputStream(FileDescriptor.in).getChannel()) {
+            if (parsers > 0) {
+                manager.runPipelined(input, parsers);
+            } else {
+                manager.runBatch(input);
+            }
+        }
+    }
+
+    /**
+     * Serves sessions until the program is stopped. Stopping closes the
+     * server and then waits for this thread to finish, so a journal is
+     * closed before the program exits.
+     *
+     * @param store   The thread-safe store that holds the accounts.
+     * @param address The address to listen on.
+     * @throws IOException if the server cannot be started
      */
-    public static void main(String[] args) {
-        new TransactionManager().run();
+    private static void serve(AccountStore store, SocketAddress address) throws IOException {
+        TransactionServer server = new TransactionServer(store, address);
+        Thread main = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+                main.join();
+            } catch (IOException | InterruptedException e) {
+                // The program is exiting anyway.
+            }
+        }));
+        System.out.println("Transaction Manager is serving on " + server.getAddress() + ".");
+        server.serve();
     }
 }
\ No newline at end of file
@@ -21,7 +21,19 @@ public class Savings extends Account {
      * @param isLoyal the loyalty status of the account holder
      */
     public Savings(Profile holder, double balance, int code) {
-        super(holder, balance);
+        this(holder, balance, code, AccountType.SAVINGS);
+    }
+
+    /**
+     * Constructs a new account of a savings type.
+     *
+     * @param holder  the profile of the account holder
+     * @param balance the initial balance of the account
+     * @param code    the loyalty code: 1 for loyal, 0 for not
+     * @param type    the type of the account
+     */
+    protected Savings(Profile holder, double balance, int code, AccountType type) {
+        super(holder, balance, type);
         switch (code) {
             case 0 -> this.isLoyal = false;
             case 1 -> this.isLoyal = true;
@@ -36,11 +48,18 @@ public class Savings extends Account {
      */
     @Override
     public double monthlyInterest() {
-        double interestRate = Constants.SAVINGS_INTEREST;
-        if (isLoyal) {
-            interestRate += Constants.LOYAL_BONUS;
-        }
-        return balance * (interestRate / Constants.MONTHS_COUNT); // Monthly interest
+        return Money.toDollars(monthlyInterestCents());
+    }
+
+    /**
+     * Calculates the monthly interest for the savings account in cents.
+     * Loyal customers receive an additional bonus to their interest rate.
+     *
+     * @return the monthly interest amount in cents
+     */
+    @Override
+    public long monthlyInterestCents() {
+        return interestFor(balance, isLoyal);
     }
 
     /**
@@ -51,11 +70,41 @@ public class Savings extends Account {
      */
     @Override
     public double monthlyFee() {
-        if (balance >= Constants.NO_FEE_BALANCE) {
-            return 0;
-        } else {
-            return Constants.SAVINGS_FEE;
-        }
+        return Money.toDollars(monthlyFeeCents());
+    }
+
+    /**
+     * Calculates the monthly fee for the savings account in cents.
+     * Fee is waived if the balance is greater than or equal to the threshold.
+     *
+     * @return the monthly fee amount in cents
+     */
+    @Override
+    public long monthlyFeeCents() {
+        return feeFor(balance);
+    }
+
+    /**
+     * Calculates the monthly interest on a savings balance.
+     * Loyal customers receive an additional bonus to their interest rate.
+     *
+     * @param balance the balance in cents
+     * @param loyal   the loyalty status of the account holder
+     * @return the monthly interest amount in cents
+     */
+    public static long interestFor(long balance, boolean loyal) {
+        return AccountType.SAVINGS.interest(balance, loyal);
+    }
+
+    /**
+     * Calculates the monthly fee on a savings balance.
+     * Fee is waived if the balance is greater than or equal to the threshold.
+     *
+     * @param balance the balance in cents
+     * @return the monthly fee amount in cents
+     */
+    public static long feeFor(long balance) {
+        return AccountType.SAVINGS.fee(balance, 0);
     }
 
     /**
@@ -90,12 +139,8 @@ public class Savings extends Account {
      * @returns isLoyal status
      */
     public boolean isLoyal() {
-        if (this instanceof MoneyMarket) {
-            if (this.balance < 2000) {
-                isLoyal = false;
-            } else {
-                isLoyal = true;
-            }
+        if (getType() == AccountType.MONEY_MARKET) {
+            isLoyal = MoneyMarket.isLoyalFor(balance);
         }
         return isLoyal;
     }
@@ -0,0 +1,405 @@
+package banking;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * A thread-safe account store split into shards by the hash of the
+ * holder's profile key. Each shard is an AccountDatabase owned by one
+ * thread, and every operation on a shard runs on its owner, so the shards
+ * need no locks and holders in different shards never wait on each other.
+ * This is sound because every rule in contains() concerns a single holder,
+ * and all of a holder's accounts live in the same shard.
+ *
+ * Single operations are handed to the owner and waited for, so they scale
+ * with the number of callers. A batch given to apply() is split by shard
+ * and every shard applies its part at the same time, so a batch scales
+ * with the number of shards. Reports stop every owner and k-way merge the
+ * shards' sorted views. A change log set on the store is given each change
+ * by the owner that made it, and the month end once while every owner is
+ * stopped, so each holder's changes reach the log in the order they were
+ * made.
+ *
+ */
+public class ShardedAccountDatabase implements AccountStore, Closeable {
+    private final AccountDatabase[] shards;
+    private final ExecutorService[] owners; // the single thread of each shard
+    private final int mask; // shard count minus one; the count is a power of two
+    private final Object reportLock = new Object(); // one report stops the owners at a time
+    private AccountStore.ChangeLog log; // receives every change, or null
+
+    /**
+     * Creates a store with one shard per available processor.
+     */
+    public ShardedAccountDatabase() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a store with at least the given number of shards, rounded up
+     * to a power of two.
+     *
+     * @param shardCount The minimum number of shards.
+     */
+    public ShardedAccountDatabase(int shardCount) {
+        int count = 1;
+        while (count < shardCount) {
+            count <<= 1;
+        }
+        this.shards = new AccountDatabase[count];
+        this.owners = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            String name = "shard-" + i;
+            shards[i] = new AccountDatabase();
+            owners[i] = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.mask = count - 1;
+    }
+
+    /**
+     * Picks the shard that owns a holder.
+     *
+     * @param holder The profile of the holder.
+     * @return The shard number.
+     */
+    private int shardOf(Profile holder) {
+        int hash = holder.getKey().hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Runs a task on the owner of an account's shard and waits for it.
+     *
+     * @param <T>     The type of the result.
+     * @param account The account whose holder picks the shard.
+     * @param task    The task, given the shard.
+     * @return The result of the task.
+     */
+    private <T> T call(Account account, Function<AccountDatabase, T> task) {
+        int shard = shardOf(account.getHolder());
+        return await(owners[shard].submit(() -> task.apply(shards[shard])));
+    }
+
+    /**
+     * Waits for a task on an owner thread to finish.
+     *
+     * @param <T>    The type of the result.
+     * @param result The pending result.
+     * @return The result.
+     */
+    private static <T> T await(Future<T> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shard.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("A shard failed.", e.getCause());
+        }
+    }
+
+    /**
+     * Checks if the database contains a specific account.
+     *
+     * @param account The account to check.
+     * @return true if the account exists, false otherwise.
+     */
+    @Override
+    public boolean contains(Account account) {
+        return call(account, shard -> shard.contains(account));
+    }
+
+    /**
+     * Adds a new account to the holder's shard.
+     *
+     * @param account The account to be added.
+     * @return true if the account was added successfully, false otherwise.
+     */
+    @Override
+    public boolean open(Account account) {
+        return call(account, shard -> record(shard.open(account), Operation.Kind.OPEN, account,
+                account.getBalanceCents()));
+    }
+
+    /**
+     * Removes a specific account from the holder's shard.
+     *
+     * @param account The account to be removed.
+     * @return true if the account was removed successfully, false otherwise.
+     */
+    @Override
+    public boolean close(Account account) {
+        return call(account, shard -> record(shard.close(account), Operation.Kind.CLOSE, account, 0));
+    }
+
+    /**
+     * Processes a withdrawal on the holder's shard.
+     *
+     * @param account The account from which to withdraw. The balance of this
+     *                account object represents the amount to be withdrawn.
+     * @return true if the withdrawal was successful, false otherwise.
+     */
+    @Override
+    public boolean withdraw(Account account) {
+        long cents = account.getBalanceCents();
+        return call(account, shard -> record(shard.withdraw(account), Operation.Kind.WITHDRAW, account, cents));
+    }
+
+    /**
+     * Processes a deposit on the holder's shard.
+     *
+     * @param account The account in which to deposit. The balance of this
+     *                account object represents the amount to be deposited.
+     * @return true if the account was found, false otherwise.
+     */
+    @Override
+    public boolean deposit(Account account) {
+        long cents = account.getBalanceCents();
+        return call(account, shard -> record(shard.deposit(account), Operation.Kind.DEPOSIT, account, cents));
+    }
+
+    /**
+     * Records a change in the change log, if it changed anything and a log
+     * is set. It runs on the owner of the holder's shard, right after the
+     * change.
+     *
+     * @param changed true if the operation changed the shard.
+     * @param kind    The kind of change.
+     * @param account The account changed.
+     * @param amount  The amount in cents.
+     * @return changed.
+     */
+    private boolean record(boolean changed, Operation.Kind kind, Account account, long amount) {
+        if (changed && log != null) {
+            log.append(kind, account, amount);
+        }
+        return changed;
+    }
+
+    /**
+     * Applies a batch of operations and reports the outcome of each. The
+     * batch is split by shard, keeping each shard's operations in batch
+     * order, and the shards apply their parts at the same time. Because
+     * the rules only concern one holder at a time, the outcomes are the
+     * same as applying the whole batch in order.
+     *
+     * @param operations The operations to apply.
+     * @return The outcome of each operation, in the same order.
+     */
+    public List<Operation.Result> apply(List<Operation> operations) {
+        Date today = DateClock.system().today();
+        int count = operations.size();
+        List<List<Operation>> parts = new ArrayList<>(shards.length);
+        int[][] positions = new int[shards.length][];
+        int[] sizes = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(new ArrayList<>());
+            positions[i] = new int[Constants.INITIAL_CAPACITY];
+        }
+        for (int i = 0; i < count; i++) {
+            Operation operation = operations.get(i);
+            int shard = shardOf(operation.getHolder());
+            parts.get(shard).add(operation);
+            if (sizes[shard] == positions[shard].length) {
+                positions[shard] = Arrays.copyOf(positions[shard], sizes[shard] * Constants.GROWTH_FACTOR);
+            }
+            positions[shard][sizes[shard]++] = i;
+        }
+        List<Future<List<Operation.Result>>> pending = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            AccountDatabase shard = shards[i];
+            List<Operation> part = parts.get(i);
+            pending.add(part.isEmpty() ? null : owners[i].submit(() -> {
+                List<Operation.Result> results = shard.apply(part, today);
+                if (log != null) {
+                    for (int j = 0; j < results.size(); j++) {
+                        if (results.get(j) == Operation.Result.OK) {
+                            log.append(part.get(j));
+                        }
+                    }
+                }
+                return results;
+            }));
+        }
+        Operation.Result[] results = new Operation.Result[count];
+        for (int i = 0; i < shards.length; i++) {
+            if (pending.get(i) == null) {
+                continue;
+            }
+            List<Operation.Result> part = await(pending.get(i));
+            for (int j = 0; j < sizes[i]; j++) {
+                results[positions[i][j]] = part.get(j);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Stops every owner, optionally after posting the month end on each
+     * shard, runs a task while they are stopped, and lets them go on. The
+     * owners post their shards at the same time. Only one caller stops the
+     * owners at a time; two callers queueing their stops on the owners in
+     * different orders would wait on each other forever. A posted month end
+     * is recorded in the change log before the owners go on.
+     *
+     * @param post true to post the month end before stopping.
+     * @param task The task to run while no shard changes.
+     */
+    private void whileStopped(boolean post, Runnable task) {
+        synchronized (reportLock) {
+            CountDownLatch stopped = new CountDownLatch(shards.length);
+            CountDownLatch resume = new CountDownLatch(1);
+            for (int i = 0; i < shards.length; i++) {
+                AccountDatabase shard = shards[i];
+                owners[i].execute(() -> {
+                    try {
+                        if (post) {
+                            shard.postMonthEnd();
+                        }
+                    } finally {
+                        stopped.countDown();
+                    }
+                    boolean interrupted = false;
+                    while (true) {
+                        try {
+                            resume.await();
+                            break;
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    if (interrupted) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            try {
+                stopped.await();
+                if (post && log != null) {
+                    log.appendMonthEnd();
+                }
+                task.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while stopping the shards.", e);
+            } finally {
+                resume.countDown();
+            }
+        }
+    }
+
+    /**
+     * Returns every account in report order, merged from the shards' sorted
+     * views. The shards must not change while it is being iterated.
+     *
+     * @return The accounts in report order.
+     */
+    private Iterable<Account> sortedAccounts() {
+        List<Iterable<Account>> parts = new ArrayList<>(shards.length);
+        for (AccountDatabase shard : shards) {
+            parts.add(shard.sortedAccounts());
+        }
+        return new MergedAccounts(parts, AccountDatabase.TYPE_AND_PROFILE);
+    }
+
+    /**
+     * Prints the sorted list of accounts.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printSorted(OutputSink out) {
+        whileStopped(false, () -> ReportRenderer.render(ReportRenderer.Report.SORTED, sortedAccounts(), out));
+    }
+
+    /**
+     * Prints detailed account information including fees and monthly interests.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printFeesAndInterests(OutputSink out) {
+        whileStopped(false,
+                () -> ReportRenderer.render(ReportRenderer.Report.FEES_AND_INTERESTS, sortedAccounts(), out));
+    }
+
+    /**
+     * Prints the totals of each account type and campus, summed over the
+     * shards' running totals.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printSummary(OutputSink out) {
+        whileStopped(false, () -> {
+            AccountTotals totals = new AccountTotals();
+            int count = 0;
+            for (AccountDatabase shard : shards) {
+                count += shard.size();
+                totals.add(shard.getTotals());
+            }
+            if (count == 0) {
+                ReportRenderer.empty(out);
+            } else {
+                totals.print(out);
+            }
+        });
+    }
+
+    /**
+     * Posts the month end on every shard, each on its owner.
+     */
+    @Override
+    public void postMonthEnd() {
+        whileStopped(true, () -> {
+        });
+    }
+
+    /**
+     * Posts the month end and prints the accounts with their new balances,
+     * with no shard changing in between.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printUpdatedBalances(OutputSink out) {
+        whileStopped(true,
+                () -> ReportRenderer.render(ReportRenderer.Report.UPDATED_BALANCES, sortedAccounts(), out));
+    }
+
+    /**
+     * Sets the log that receives every change from now on. The shards get
+     * no log of their own; this store records each change once.
+     *
+     * @param log The change log.
+     */
+    @Override
+    public void setChangeLog(AccountStore.ChangeLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Stops the owner threads. Operations already handed to them still run.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService owner : owners) {
+            owner.shutdown();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package banking;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the ShardedAccountDatabase and MergedAccounts classes, focusing on
+ * giving the same outcomes and reports as one AccountDatabase.
+ *
+ */
+
+public class ShardedAccountDatabaseTest {
+    private static final String[] TYPES = { "C", "S", "MM" };
+
+    /**
+     * Tests that a batch split across shards reports each outcome at the
+     * position of its operation, as applying the batch in order would.
+     */
+    @Test
+    public void testApplyKeepsBatchOrder() {
+        Profile jane = new Profile("Jane", "Doe", new Date("10/1/1995"));
+        Profile roy = new Profile("Roy", "Brooks", new Date("10/31/1979"));
+        List<Operation> operations = List.of(
+                Operation.open("C", jane, 10000, 0),
+                Operation.open("MM", roy, 100000, 0),
+                Operation.withdraw("C", jane, 20000),
+                Operation.open("C", jane, 500, 0),
+                Operation.open("MM", roy, 300000, 0),
+                Operation.close("C", jane),
+                Operation.deposit("C", jane, 100),
+                Operation.deposit("MM", roy, 100));
+        try (ShardedAccountDatabase sharded = new ShardedAccountDatabase(4)) {
+            Assertions.assertEquals(List.of(Operation.Result.OK, Operation.Result.BELOW_MINIMUM,
+                    Operation.Result.INSUFFICIENT_FUNDS, Operation.Result.ALREADY_EXISTS, Operation.Result.OK,
+                    Operation.Result.OK, Operation.Result.NOT_FOUND, Operation.Result.OK),
+                    sharded.apply(operations));
+        }
+    }
+
+    /**
+     * Tests that a large mixed batch gives the same outcomes and the same
+     * reports on shards as on one AccountDatabase, including the P order
+     * merged from the shards.
+     */
+    @Test
+    public void testMatchesDatabase() {
+        List<Operation> operations = operations(500, 20000);
+        AccountDatabase plain = new AccountDatabase();
+        List<Operation.Result> expected = plain.apply(operations);
+        try (ShardedAccountDatabase sharded = new ShardedAccountDatabase(4)) {
+            Assertions.assertEquals(expected, sharded.apply(operations), "Expected the same outcomes.");
+            Assertions.assertEquals(print(plain, AccountStore::printSorted), print(sharded, AccountStore::printSorted),
+                    "Expected the same P report.");
+            Assertions.assertEquals(print(plain, AccountStore::printFeesAndInterests),
+                    print(sharded, AccountStore::printFeesAndInterests), "Expected the same PI report.");
+            Assertions.assertEquals(print(plain, AccountStore::printSummary),
+                    print(sharded, AccountStore::printSummary), "Expected the same summary.");
+            Assertions.assertEquals(print(plain, AccountStore::printUpdatedBalances),
+                    print(sharded, AccountStore::printUpdatedBalances), "Expected the same UB report.");
+        }
+    }
+
+    /**
+     * Tests that merging sorted parts, one of them empty, gives every
+     * account in the order of the whole.
+     */
+    @Test
+    public void testMergedAccounts() {
+        List<Account> all = new ArrayList<>();
+        List<List<Account>> parts = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>());
+        Date dob = new Date("1/1/1990");
+        for (int i = 0; i < 60; i++) {
+            Profile holder = new Profile("First" + (i * 37 % 60), "Last", dob);
+            Account account = i % 2 == 0 ? new Checking(holder, 100) : new Savings(holder, 100, 0);
+            all.add(account);
+            parts.get(i % 3).add(account);
+        }
+        all.sort(AccountDatabase.TYPE_AND_PROFILE);
+        for (List<Account> part : parts) {
+            part.sort(AccountDatabase.TYPE_AND_PROFILE);
+        }
+        List<Account> merged = new ArrayList<>();
+        for (Account account : new MergedAccounts(parts, AccountDatabase.TYPE_AND_PROFILE)) {
+            merged.add(account);
+        }
+        Assertions.assertEquals(all, merged);
+    }
+
+    /**
+     * Builds a batch: an open for every holder, then pseudo-random opens,
+     * closes, deposits and withdrawals, some of which fail.
+     *
+     * @param holders The number of holders.
+     * @param count   The number of operations after the opens.
+     * @return The batch.
+     */
+    private static List<Operation> operations(int holders, int count) {
+        Profile[] profiles = new Profile[holders];
+        Date dob = new Date("1/1/1990");
+        List<Operation> operations = new ArrayList<>(holders + count);
+        for (int i = 0; i < holders; i++) {
+            profiles[i] = new Profile("First" + i, "Last" + i, dob);
+            operations.add(Operation.open(TYPES[i % TYPES.length], profiles[i], 250000, 0));
+        }
+        long seed = 42;
+        for (int i = 0; i < count; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            int holder = (int) ((seed >>> 33) % holders);
+            String type = TYPES[holder % TYPES.length];
+            int pick = (int) ((seed >>> 20) & 63);
+            if (pick < 2) {
+                operations.add(Operation.close(type, profiles[holder]));
+            } else if (pick < 4) {
+                operations.add(Operation.open(type, profiles[holder], 250000, 0));
+            } else if ((pick & 1) == 0) {
+                operations.add(Operation.deposit(type, profiles[holder], 12500));
+            } else {
+                operations.add(Operation.withdraw(type, profiles[holder], 40000));
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * Prints a report of a store.
+     *
+     * @param store  The store.
+     * @param report The report to print.
+     * @return The printed report.
+     */
+    private static String print(AccountStore store, BiConsumer<AccountStore, OutputSink> report) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputSink out = new OutputSink(bytes);
+        report.accept(store, out);
+        out.flush();
+        return bytes.toString();
+    }
+}
@@ -0,0 +1,235 @@
+package banking;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A binary image of every account in an AccountDatabase, written and read
+ * through memory-mapped files. The file starts with a header: a magic
+ * number, the format version, the number of accounts and the length of the
+ * journal the snapshot covers. Each account follows as its type, loyalty
+ * flag, campus code, withdrawal count, balance in cents, packed date of
+ * birth and the holder's two names, each as an int length and its chars.
+ *
+ * Accounts are written in report order. Large files are mapped one region
+ * at a time.
+ *
+ */
+public class Snapshot {
+    private static final int MAGIC = 0x52554253; // "RUBS"
+    private static final int VERSION = 2; // 1 wrote name lengths as shorts
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + 2 * Long.BYTES;
+    private static final int OFFSET_POSITION = 2 * Integer.BYTES + Long.BYTES;
+    private static final int FIXED_RECORD_BYTES = 3 + Integer.BYTES + Long.BYTES + Integer.BYTES + 2 * Integer.BYTES;
+    private static final byte NO_CAMPUS = -1;
+
+    /**
+     * Writes a snapshot of a database. The image is written to a temporary
+     * file, forced to disk and then moved over the target, so the target
+     * always holds a whole snapshot.
+     *
+     * @param path          The snapshot file.
+     * @param database      The database to write.
+     * @param journalOffset The length of the journal the snapshot covers.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path path, AccountDatabase database, long journalOffset) throws IOException {
+        long size = HEADER_BYTES;
+        for (Account account : database.sortedAccounts()) {
+            size += recordBytes(account);
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            Region region = new Region(channel, FileChannel.MapMode.READ_WRITE, size);
+            MappedByteBuffer out = region.need(HEADER_BYTES);
+            out.putInt(MAGIC).putInt(VERSION).putLong(database.size()).putLong(journalOffset);
+            for (Account account : database.sortedAccounts()) {
+                AccountType type = account.getType();
+                Profile holder = account.getHolder();
+                out = region.need(recordBytes(account));
+                out.put(type.getRecordCode());
+                out.put((byte) (type == AccountType.SAVINGS && ((Savings) account).isLoyal() ? 1 : 0));
+                out.put(type == AccountType.COLLEGE_CHECKING
+                        ? (byte) ((CollegeChecking) account).getCampus().ordinal()
+                        : NO_CAMPUS);
+                out.putInt(type == AccountType.MONEY_MARKET ? ((MoneyMarket) account).getWithdrawals() : 0);
+                out.putLong(account.getBalanceCents());
+                out.putInt(holder.getDob().pack());
+                putChars(out, holder.getFname());
+                putChars(out, holder.getLname());
+            }
+            region.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a snapshot into a store by mapping the file and opening each
+     * account it holds.
+     *
+     * @param path  The snapshot file; nothing is loaded if it does not exist.
+     * @param store The empty store to load into.
+     * @return The length of the journal the snapshot covers, or 0 if there
+     *         is no snapshot.
+     * @throws IOException if the file cannot be read or is not a snapshot.
+     */
+    public static long load(Path path, AccountStore store) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Region region = new Region(channel, FileChannel.MapMode.READ_ONLY, channel.size());
+            MappedByteBuffer in = region.need(HEADER_BYTES);
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException(path + " is not an account snapshot.");
+            }
+            long count = in.getLong();
+            long journalOffset = in.getLong();
+            for (long i = 0; i < count; i++) {
+                in = region.need(FIXED_RECORD_BYTES - 2 * Integer.BYTES);
+                AccountType type = AccountType.fromRecordCode(in.get());
+                int loyal = in.get();
+                int campus = in.get();
+                int withdrawals = in.getInt();
+                long balance = in.getLong();
+                Date dob = Date.unpack(in.getInt());
+                String fname = getChars(region);
+                String lname = getChars(region);
+                int code = type == AccountType.COLLEGE_CHECKING ? campus : loyal;
+                Account account = type.newAccount(new Profile(fname, lname, dob), Money.toDollars(balance), code);
+                if (type == AccountType.MONEY_MARKET) {
+                    ((MoneyMarket) account).setWithdrawals(withdrawals);
+                }
+                store.open(account);
+            }
+            return journalOffset;
+        }
+    }
+
+    /**
+     * Changes the journal length recorded in a snapshot's header.
+     *
+     * @param path          The snapshot file.
+     * @param journalOffset The length of the journal the snapshot covers.
+     * @throws IOException if the file cannot be written.
+     */
+    static void setJournalOffset(Path path, long journalOffset) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.putLong(OFFSET_POSITION, journalOffset);
+            header.force();
+        }
+    }
+
+    /**
+     * Calculates the size of an account's record.
+     *
+     * @param account The account.
+     * @return The number of bytes in its record.
+     */
+    private static int recordBytes(Account account) {
+        Profile holder = account.getHolder();
+        return FIXED_RECORD_BYTES + Character.BYTES * (holder.getFname().length() + holder.getLname().length());
+    }
+
+    /**
+     * Writes a string as its length followed by its chars.
+     *
+     * @param out  The buffer to write to.
+     * @param text The string.
+     */
+    private static void putChars(MappedByteBuffer out, String text) {
+        out.putInt(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            out.putChar(text.charAt(i));
+        }
+    }
+
+    /**
+     * Reads a string written by putChars.
+     *
+     * @param region The region positioned at the string's length.
+     * @return The string.
+     */
+    private static String getChars(Region region) {
+        MappedByteBuffer in = region.need(Integer.BYTES);
+        char[] chars = new char[in.getInt()];
+        in = region.need(Character.BYTES * chars.length);
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = in.getChar();
+        }
+        return new String(chars);
+    }
+
+    /**
+     * A window onto a file that is mapped one region at a time, moving on
+     * to the next region when a record would not fit in the current one.
+     */
+    private static class Region {
+        private final FileChannel channel;
+        private final FileChannel.MapMode mode;
+        private final long size; // total size of the file
+        private long base; // file offset of the mapped region
+        private MappedByteBuffer buffer;
+
+        /**
+         * Creates a window onto a file. Nothing is mapped until need() is
+         * called.
+         *
+         * @param channel The file.
+         * @param mode    The mapping mode.
+         * @param size    The size of the file.
+         */
+        Region(FileChannel channel, FileChannel.MapMode mode, long size) {
+            this.channel = channel;
+            this.mode = mode;
+            this.size = size;
+        }
+
+        /**
+         * Makes sure the mapped region holds the given number of bytes after
+         * the current position, mapping the next region if it does not.
+         *
+         * @param bytes The number of bytes needed.
+         * @return The mapped buffer, positioned at the current offset.
+         * @throws UncheckedIOException if the file cannot be mapped.
+         * @throws BufferUnderflowException if the file ends first.
+         */
+        MappedByteBuffer need(int bytes) {
+            if (buffer != null && buffer.remaining() >= bytes) {
+                return buffer;
+            }
+            long start = buffer == null ? 0 : base + buffer.position();
+            if (start + bytes > size) {
+                throw new BufferUnderflowException();
+            }
+            try {
+                if (buffer != null && mode == FileChannel.MapMode.READ_WRITE) {
+                    buffer.force();
+                }
+                base = start;
+                buffer = channel.map(mode, base, Math.min(Constants.SNAPSHOT_REGION_SIZE, size - base));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buffer;
+        }
+
+        /**
+         * Forces the changes in the mapped region to disk.
+         */
+        void force() {
+            if (buffer != null) {
+                buffer.force();
+            }
+        }
+    }
+}
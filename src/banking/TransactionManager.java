@@ -1,7 +1,8 @@
 package banking;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Scanner;
-import java.util.StringTokenizer;
 
 /**
  * Manages user transactions by processing command-line input.
@@ -10,32 +11,162 @@ import java.util.StringTokenizer;
  *
  */
 public class TransactionManager {
-    private Scanner scanner;
+    private static final String[] COMMANDS = { "Q", "O", "C", "D", "W", "P", "PI", "UB", "PS" };
+
+    private CommandParser parser;
+    private OutputSink output;
     private boolean running;
-    private AccountDatabase accountDatabase;
+    private AccountStore accountDatabase;
+    private DateClock clock;
+    private Command command; // the command being processed, reused line by line
 
     /**
-     * Initializes the TransactionManager.
+     * Initializes the TransactionManager with an empty AccountDatabase.
      */
     public TransactionManager() {
-        scanner = new Scanner(System.in);
+        this(new AccountDatabase());
+    }
+
+    /**
+     * Initializes the TransactionManager on top of the given account store.
+     *
+     * @param accountDatabase The store that holds the accounts.
+     */
+    public TransactionManager(AccountStore accountDatabase) {
+        this(accountDatabase, new OutputSink(System.out));
+    }
+
+    /**
+     * Initializes the TransactionManager on top of the given account store,
+     * writing responses and reports to the given sink.
+     *
+     * @param accountDatabase The store that holds the accounts.
+     * @param output          The sink for all output.
+     */
+    public TransactionManager(AccountStore accountDatabase, OutputSink output) {
+        this(accountDatabase, output, DateClock.system());
+    }
+
+    /**
+     * Initializes the TransactionManager on top of the given account store,
+     * writing to the given sink and checking ages and dates of birth
+     * against the given clock.
+     *
+     * @param accountDatabase The store that holds the accounts.
+     * @param output          The sink for all output.
+     * @param clock           The clock that tells the date today.
+     */
+    public TransactionManager(AccountStore accountDatabase, OutputSink output, DateClock clock) {
+        this.output = output;
+        parser = new CommandParser();
         running = false;
-        accountDatabase = new AccountDatabase();
+        this.accountDatabase = accountDatabase;
+        this.clock = clock;
+        command = new Command();
     }
 
     /**
-     * Starts the TransactionManager's loop, processing commands until stopped.
+     * Starts the TransactionManager's loop, processing commands typed on
+     * standard input until stopped. Only this mode reads the terminal, so
+     * only it wraps System.in in a Scanner.
      */
     public void run() {
+        Scanner scanner = new Scanner(System.in);
         running = true;
-        System.out.println("Transaction Manager is running.");
+        output.setFlushPolicy(OutputSink.FlushPolicy.EVERY_COMMAND);
+        output.println("Transaction Manager is running.");
+        output.endCommand();
 
         while (running) {
             String commandLine = scanner.nextLine();
             processCommand(commandLine);
+            output.endCommand();
+        }
+
+        output.println("Transaction Manager is terminated.");
+        output.flush();
+    }
+
+    /**
+     * Processes every command read from a channel, such as a command file or
+     * a pipe, until a Q command or the end of input. Output is the same as
+     * when the commands are typed one by one, but is written only when the
+     * sink's buffer fills up and at the end.
+     *
+     * @param input The channel to read commands from.
+     * @throws IOException if the channel cannot be read.
+     */
+    public void runBatch(ReadableByteChannel input) throws IOException {
+        run(new CommandReader(input), OutputSink.FlushPolicy.WHEN_FULL);
+    }
+
+    /**
+     * Processes every command read from a channel like runBatch, with the
+     * output runBatch would give, but as a CommandPipeline: lines are
+     * decoded on parser threads, applied to the store on one writer thread
+     * and answered on an output thread. The store is only used by the
+     * writer, so it need not be thread-safe.
+     *
+     * @param input   The channel to read commands from.
+     * @param parsers The number of parser threads.
+     * @throws IOException if the channel cannot be read.
+     */
+    public void runPipelined(ReadableByteChannel input, int parsers) throws IOException {
+        running = true;
+        output.setFlushPolicy(OutputSink.FlushPolicy.WHEN_FULL);
+        output.println("Transaction Manager is running.");
+        new CommandPipeline(this, parsers).run(new CommandReader(input));
+        output.println("Transaction Manager is terminated.");
+        output.flush();
+    }
+
+    /**
+     * Processes commands read from a client's connection until a Q command
+     * or the end of input, writing each response as soon as its command is
+     * done, as run() does for a terminal.
+     *
+     * @param input The connection to read commands from.
+     * @throws IOException if the connection cannot be read.
+     */
+    public void runSession(ReadableByteChannel input) throws IOException {
+        run(new CommandReader(input, Constants.SESSION_BUFFER_SIZE), OutputSink.FlushPolicy.EVERY_COMMAND);
+    }
+
+    /**
+     * Processes every command a reader returns until a Q command or the end
+     * of input.
+     *
+     * @param reader The reader to take commands from.
+     * @param policy When to write the output.
+     * @throws IOException if the commands cannot be read.
+     */
+    private void run(CommandReader reader, OutputSink.FlushPolicy policy) throws IOException {
+        running = true;
+        output.setFlushPolicy(policy);
+        output.println("Transaction Manager is running.");
+        output.endCommand();
+
+        while (running && reader.readLine(parser)) {
+            processCommand();
+            output.endCommand();
         }
 
-        System.out.println("Transaction Manager is terminated.");
+        output.println("Transaction Manager is terminated.");
+        output.flush();
+    }
+
+    /**
+     * Processes one command line and ends its output, as run() does for each
+     * line typed. Load tests use it to time commands one at a time.
+     *
+     * @param commandLine String containing the user's command.
+     * @return false once a Q command has been processed, true otherwise.
+     */
+    boolean process(String commandLine) {
+        running = true;
+        processCommand(commandLine);
+        output.endCommand();
+        return running;
     }
 
     /**
@@ -44,273 +175,258 @@ public class TransactionManager {
      * @param commandLine String containing the user's command.
      */
     private void processCommand(String commandLine) {
-        StringTokenizer tokenizer = new StringTokenizer(commandLine);
-        if (tokenizer.hasMoreTokens()) {
-            String command = tokenizer.nextToken();
-            switch (command) {
-                case "Q" -> running = false;
-                case "O" -> openAccount(tokenizer);
-                case "C" -> closeAccount(tokenizer);
-                case "D" -> depositMoney(tokenizer);
-                case "W" -> withdrawMoney(tokenizer);
-                case "P" -> accountDatabase.printSorted();
-                case "PI" -> accountDatabase.printFeesAndInterests();
-                case "UB" -> accountDatabase.printUpdatedBalances();
-                default -> System.out.println("Invalid command!");
-            }
-        }
+        parser.reset(commandLine);
+        processCommand();
     }
 
     /**
-     * Processes the 'O' command to open a new account.
+     * Processes the command line loaded into the parser.
+     */
+    private void processCommand() {
+        decode(parser, command);
+        execute(command);
+        respond(command);
+    }
+
+    /**
+     * Decodes a command line into a command, making every check that does
+     * not need the store. Only the clock is read, so lines can be decoded on
+     * any thread.
      *
-     * @param tokenizer Tokenized input for easy data extraction.
+     * @param parser  Parser loaded with the line.
+     * @param command The command to fill in.
      */
-    private void openAccount(StringTokenizer tokenizer) {
-        try {
-            String type = tokenizer.nextToken();
-            Profile profile = new Profile(tokenizer.nextToken(), tokenizer.nextToken(),
-                    new Date(tokenizer.nextToken()));
-            if (!dateCheck(profile.getDob())) {
-                return;
-            }
-            double balance = Double.parseDouble(tokenizer.nextToken());
-            if (balance <= 0) {
-                System.out.println("Initial deposit cannot be 0 or negative.");
-                return;
-            }
-            Account buffer = createTemp(type, profile);
-            boolean validAcct = true;
-            switch (type) {
-                case "CC" -> validAcct = createCC(buffer, profile, balance, Integer.parseInt(tokenizer.nextToken()));
-                case "S" ->
-                    validAcct = createS(buffer, profile, balance, Integer.parseInt(tokenizer.nextToken()));
-                case "MM" -> validAcct = createMM(buffer, profile, balance);
-                default -> validAcct = createC(buffer, profile, balance);
-            }
-            if (validAcct) {
-                System.out.println(profile.getFname() + " " + profile.getLname() + " " + profile.getDob() + "(" + type
-                        + ") opened.");
-            }
-        } catch (java.util.NoSuchElementException e) {
-            System.out.println("Missing data for opening an account.");
-        } catch (NumberFormatException e) {
-            System.out.println("Not a valid amount.");
+    void decode(CommandParser parser, Command command) {
+        command.clear();
+        if (!parser.hasNext()) {
+            return;
+        }
+        parser.next();
+        String name = parser.match(COMMANDS);
+        switch (name == null ? "" : name) {
+            case "Q" -> command.set(Command.Kind.QUIT);
+            case "O" -> decodeOpen(parser, command);
+            case "C" -> decodeClose(parser, command);
+            case "D" -> decodeDeposit(parser, command);
+            case "W" -> decodeWithdraw(parser, command);
+            case "P" -> command.set(Command.Kind.PRINT_SORTED);
+            case "PI" -> command.set(Command.Kind.PRINT_FEES_AND_INTERESTS);
+            case "UB" -> command.set(Command.Kind.UPDATE_BALANCES);
+            case "PS" -> command.set(Command.Kind.PRINT_SUMMARY);
+            default -> command.reject("Invalid command!");
         }
     }
 
     /**
-     * Creates a MoneyMarket account to add to the database.
+     * Applies a decoded command to the store. Reports are printed here, as
+     * they read the store.
      *
-     * @param buffer  Account created in order to add to the database.
-     * @param profile Profile created in new account being added.
-     * @param balance Balance of new account being added.
+     * @param command The command.
      */
-    private boolean createMM(Account buffer, Profile profile, double balance) {
-        if (profile.getDob().getAge() < 16) {
-            System.out.println("DOB invalid: " + profile.getDob() + " under 16.");
-            return false;
-        }
-        if (balance >= 2000) {
-            if (!accountDatabase.contains(buffer)) {
-                accountDatabase.open(new MoneyMarket(profile, balance, 0));
-                return true;
-            } else {
-                System.out.println(profile.getFname() + " " + profile.getLname() + " " + profile.getDob()
-                        + "(MM) is already in the database.");
-                return false;
+    void execute(Command command) {
+        Account account = command.getAccount();
+        switch (command.getKind()) {
+            case QUIT -> running = false;
+            case OPEN -> command.setSucceeded(accountDatabase.open(account));
+            case CLOSE -> command.setSucceeded(accountDatabase.close(account));
+            case DEPOSIT -> command.setSucceeded(accountDatabase.deposit(account));
+            case WITHDRAW -> command.setSucceeded(accountDatabase.withdraw(account));
+            case PRINT_SORTED -> accountDatabase.printSorted(output);
+            case PRINT_FEES_AND_INTERESTS -> accountDatabase.printFeesAndInterests(output);
+            case UPDATE_BALANCES -> accountDatabase.printUpdatedBalances(output);
+            case PRINT_SUMMARY -> accountDatabase.printSummary(output);
+            default -> {
             }
-        } else {
-            System.out.println("Minimum of $2000 to open a Money Market account.");
-            return false;
         }
     }
 
     /**
-     * Creates a CollegeChecking account to add to the database.
+     * Prints the response to an applied command. Reports have already been
+     * printed, and blank lines and Q have no response.
      *
-     * @param buffer  Account created in order to add to the database.
-     * @param profile Profile created in new account being added.
-     * @param balance Balance of new account being added.
-     * @param code    Code for the campus of account being added.
+     * @param command The command.
      */
-    private boolean createCC(Account buffer, Profile profile, double balance, int code) {
-        if (profile.getDob().getAge() < 16) {
-            System.out.println("DOB invalid: " + profile.getDob() + " under 16.");
-            return false;
+    void respond(Command command) {
+        if (command.getKind() == Command.Kind.MESSAGE) {
+            output.println(command.getMessage());
+            return;
         }
-        if (profile.getDob().getAge() >= 24) {
-            System.out.println("DOB invalid: " + profile.getDob() + " over 24.");
-            return false;
+        Account account = command.getAccount();
+        if (account == null) {
+            return;
         }
-        if (code >= 0 && code <= 2) {
-            if (!accountDatabase.contains(buffer)) {
-                accountDatabase.open(new CollegeChecking(profile, balance, code));
-                return true;
-            } else {
-                System.out.println(profile.getFname() + " " + profile.getLname() + " " + profile.getDob()
-                        + "(CC) is already in the database.");
-                return false;
+        String holder = account.getHolder().getFname() + " " + account.getHolder().getLname() + " "
+                + account.getHolder().getDob() + "(";
+        String type = command.getTypeCode();
+        switch (command.getKind()) {
+            case OPEN -> output.println(command.isSucceeded() ? holder + type + ") opened."
+                    : holder + account.getType().getCode() + ") is already in the database.");
+            case CLOSE -> output.println(holder + type
+                    + (command.isSucceeded() ? ") has been closed." : ") is not in the database."));
+            case DEPOSIT -> output.println(holder + type
+                    + (command.isSucceeded() ? ") Deposit - balance updated." : ") is not in the database."));
+            default -> {
+                if (command.isSucceeded()) {
+                    output.println(holder + type + ") Withdraw - balance updated.");
+                } else if (account.getBalance() == Constants.NOT_FOUND) {
+                    output.println(holder + type + ") is not in the database.");
+                } else {
+                    output.println(holder + type + ") Withdraw - insufficient fund.");
+                }
             }
-        } else {
-            System.out.println("Invalid campus code.");
-            return false;
         }
     }
 
     /**
-     * Creates a Savings account to add to the database.
+     * Reads the account type token. The four known codes are returned
+     * without allocating.
      *
-     * @param buffer  Account created in order to add to the database.
-     * @param profile Profile created in new account being added.
-     * @param balance Balance of new account being added.
-     * @param code    Code for the isLoyal status of account being added.
+     * @param parser Parser positioned before the account type.
+     * @return The account type code as typed.
      */
-    private boolean createS(Account buffer, Profile profile, double balance, int code) {
-        if (profile.getDob().getAge() < 16) {
-            System.out.println("DOB invalid: " + profile.getDob() + " under 16.");
-            return false;
-        }
-        if (!accountDatabase.contains(buffer)) {
-            accountDatabase.open(new Savings(profile, balance, code));
-            return true;
-        } else {
-            System.out.println(profile.getFname() + " " + profile.getLname() + " " + profile.getDob()
-                    + "(S) is already in the database.");
-            return false;
-        }
+    private static String nextType(CommandParser parser) {
+        parser.next();
+        String type = parser.match(AccountType.CODES);
+        return type != null ? type : parser.token();
     }
 
     /**
-     * Creates a Checking account to add to the database.
+     * Reads the first name, last name and date of birth tokens.
      *
-     * @param buffer  Account created in order to add to the database.
-     * @param profile Profile created in new account being added.
-     * @param balance Balance of new account being added.
+     * @param parser Parser positioned before the first name.
+     * @return The profile they describe.
      */
-    private boolean createC(Account buffer, Profile profile, double balance) {
-        if (profile.getDob().getAge() < 16) {
-            System.out.println("DOB invalid: " + profile.getDob() + " under 16.");
-            return false;
-        }
-        if (!accountDatabase.contains(buffer)) {
-            accountDatabase.open(new Checking(profile, balance));
-            return true;
-        } else {
-            System.out.println(profile.getFname() + " " + profile.getLname() + " " + profile.getDob()
-                    + "(C) is already in the database.");
-            return false;
-        }
+    private static Profile nextProfile(CommandParser parser) {
+        parser.next();
+        String fname = parser.token();
+        parser.next();
+        String lname = parser.token();
+        parser.next();
+        return new Profile(fname, lname, parser.parseDate());
     }
 
     /**
-     * Processes the 'C' command to close an existing account.
+     * Reads a campus or loyalty code token.
      *
-     * @param tokenizer Tokenized input for easy data extraction.
+     * @param parser Parser positioned before the code.
+     * @return The code.
      */
-    private void closeAccount(StringTokenizer tokenizer) {
+    private static int nextInt(CommandParser parser) {
+        parser.next();
+        return parser.parseInt();
+    }
+
+    /**
+     * Decodes the 'O' command to open a new account.
+     *
+     * @param parser  Parser positioned after the command.
+     * @param command The command to fill in.
+     */
+    private void decodeOpen(CommandParser parser, Command command) {
         try {
-            // Extract necessary information to identify and close the account.
-            String type = tokenizer.nextToken();
-            Profile profile = new Profile(tokenizer.nextToken(), tokenizer.nextToken(),
-                    new Date(tokenizer.nextToken()));
-            if (!dateCheck(profile.getDob())) {
+            String type = nextType(parser);
+            Profile profile = nextProfile(parser);
+            String invalid = dateCheck(profile.getDob());
+            if (invalid != null) {
+                command.reject(invalid);
                 return;
             }
-            Account account = createTemp(type, profile);
-            // Check if account exists and then try to close it.
-            if (accountDatabase.contains(account)) {
-                if (account.getClass() == accountDatabase.getAccount(account).getClass()) {
-                    if (accountDatabase.close(account)) {
-                        System.out.println(account.getHolder().getFname() + " " + account.getHolder().getLname() + " "
-                                + account.getHolder().getDob() + "(" + type + ") has been closed.");
-                    } else {
-                        System.out.println("Error closing account.");
-                    }
-                } else {
-                    System.out.println(account.getHolder().getFname() + " " + account.getHolder().getLname() + " "
-                            + account.getHolder().getDob() + "(" + type + ") is not in the database.");
-                }
-            } else {
-                System.out.println(account.getHolder().getFname() + " " + account.getHolder().getLname() + " "
-                        + account.getHolder().getDob() + "(" + type + ") is not in the database.");
+            parser.next();
+            double balance = parser.parseDouble();
+            if (Money.toCents(balance) <= 0) {
+                command.reject("Initial deposit cannot be 0 or negative.");
+                return;
+            }
+            AccountType accountType = AccountType.fromCode(type);
+            int code = 0;
+            if (accountType == AccountType.COLLEGE_CHECKING || accountType == AccountType.SAVINGS) {
+                code = nextInt(parser);
             }
+            invalid = openCheck(accountType, profile, Money.toCents(balance), code);
+            if (invalid != null) {
+                command.reject(invalid);
+                return;
+            }
+            command.set(Command.Kind.OPEN, type, accountType.newAccount(profile, balance, code));
         } catch (java.util.NoSuchElementException e) {
-            System.out.println("Missing data for closing an account.");
+            command.reject("Missing data for opening an account.");
+        } catch (NumberFormatException e) {
+            command.reject("Not a valid amount.");
         }
     }
 
     /**
-     * Creates a buffer account object.
+     * Checks the rules for opening an account of a given type, as set out in
+     * Operation.checkOpen(), and words the one it breaks.
      *
-     * @param type    The type of account.
-     * @param profile The profile associated with the account.
-     * @return A new Account object.
+     * @param type    The account type.
+     * @param profile The profile of the holder.
+     * @param amount  The initial deposit in cents.
+     * @param code    The campus code of a college checking account.
+     * @return The reason the account cannot be opened, or null if it can.
      */
-    private Account createTemp(String type, Profile profile) {
-        switch (type) {
-            case "CC":
-                return new CollegeChecking(profile, 0, 0);
-            case "S":
-                return new Savings(profile, 0, 0);
-            case "MM":
-                return new MoneyMarket(profile, 0, 0);
+    private String openCheck(AccountType type, Profile profile, long amount, int code) {
+        switch (Operation.checkOpen(type, profile, amount, code, clock.today())) {
+            case INVALID_DOB:
+            case FUTURE_DOB:
+                return message(Operation.checkDob(profile.getDob(), clock.today()), profile.getDob());
+            case UNDER_AGE:
+                return "DOB invalid: " + profile.getDob() + " under 16.";
+            case OVER_AGE:
+                return "DOB invalid: " + profile.getDob() + " over 24.";
+            case INVALID_CAMPUS:
+                return "Invalid campus code.";
+            case BELOW_MINIMUM:
+                return "Minimum of $2000 to open a Money Market account.";
             default:
-                return new Checking(profile, 0);
+                return null;
         }
     }
 
     /**
-     * Creates a temporary account object for balance update.
+     * Decodes the 'C' command to close an existing account.
      *
-     * @param type    the type of the account (e.g., "CC", "S", "MM").
-     * @param profile the profile of the account holder.
-     * @param balance the balance to be set for the account.
-     * @return the newly created account object with the specified balance.
+     * @param parser  Parser positioned after the command.
+     * @param command The command to fill in.
      */
-    private Account createUpdateBalance(String type, Profile profile, double balance) {
-        switch (type) {
-            case "CC":
-                return new CollegeChecking(profile, balance, 0);
-            case "S":
-                return new Savings(profile, balance, 0);
-            case "MM":
-                return new MoneyMarket(profile, balance, 0);
-            default:
-                return new Checking(profile, balance);
+    private void decodeClose(CommandParser parser, Command command) {
+        try {
+            // Extract necessary information to identify and close the account.
+            String type = nextType(parser);
+            Profile profile = nextProfile(parser);
+            String invalid = dateCheck(profile.getDob());
+            if (invalid != null) {
+                command.reject(invalid);
+                return;
+            }
+            command.set(Command.Kind.CLOSE, type, AccountType.fromCode(type).newAccount(profile, 0, 0));
+        } catch (java.util.NoSuchElementException e) {
+            command.reject("Missing data for closing an account.");
         }
     }
 
     /**
-     * Processes the 'D' command to deposit money into an account.
+     * Decodes the 'D' command to deposit money into an account.
      *
-     * @param tokenizer Tokenized input for easy data extraction.
+     * @param parser  Parser positioned after the command.
+     * @param command The command to fill in.
      */
-    private void depositMoney(StringTokenizer tokenizer) {
+    private void decodeDeposit(CommandParser parser, Command command) {
         try {
             // Extract necessary information to identify the account and deposit amount.
-            String type = tokenizer.nextToken();
-            Profile profile = new Profile(tokenizer.nextToken(), tokenizer.nextToken(),
-                    new Date(tokenizer.nextToken()));
-            double amount = Double.parseDouble(tokenizer.nextToken());
-            if (amount <= 0) {
-                System.out.println("Deposit - amount cannot be 0 or negative.");
+            String type = nextType(parser);
+            Profile profile = nextProfile(parser);
+            parser.next();
+            double amount = parser.parseDouble();
+            if (Money.toCents(amount) <= 0) {
+                command.reject("Deposit - amount cannot be 0 or negative.");
                 return;
             }
-            Account account = createUpdateBalance(type, profile, amount);
-            // Attempt to deposit the specified amount into the account.
-            accountDatabase.deposit(account);
-            if (account.getBalance() == Constants.ACCOUNT_FOUND) {
-                System.out.println(account.getHolder().getFname() + " " + account.getHolder().getLname() + " "
-                        + account.getHolder().getDob() + "(" + type + ") Deposit - balance updated.");
-            } else {
-                System.out.println(account.getHolder().getFname() + " " + account.getHolder().getLname() + " "
-                        + account.getHolder().getDob() + "(" + type + ") is not in the database.");
-            }
+            command.set(Command.Kind.DEPOSIT, type, AccountType.fromCode(type).newAccount(profile, amount, 0));
         } catch (java.util.NoSuchElementException e) {
-            System.out.println("Missing data for deposit.");
+            command.reject("Missing data for deposit.");
         } catch (NumberFormatException e) {
-            System.out.println("Not a valid amount.");
+            command.reject("Not a valid amount.");
         }
     }
 
@@ -318,56 +434,53 @@ public class TransactionManager {
      * Validates the given date, ensuring it's not a future date.
      *
      * @param date the date to be validated.
-     * @return true if the date is valid and not in the future, false otherwise.
+     * @return the reason the date is invalid, or null if it is valid and
+     *         not in the future.
      */
-    private static boolean dateCheck(Date date) {
-        Date todaysDate = new Date();
-        if (!date.isValid()) {
-            System.out.println("DOB invalid: " + date + " not a valid calendar date!");
-            return false;
-        }
-        if ((date.getYear() > todaysDate.getYear())
-                || (date.getYear() == todaysDate.getYear() && date.getMonth() > todaysDate.getMonth())
-                || (date.getYear() == todaysDate.getYear() && date.getMonth() == todaysDate.getMonth()
-                        && date.getDay() >= todaysDate.getDay())) {
-            System.out.println("DOB invalid: " + date + " cannot be today or a future day.");
-            return false;
+    private String dateCheck(Date date) {
+        return message(Operation.checkDob(date, clock.today()), date);
+    }
+
+    /**
+     * Gives the message for a date of birth that breaks a rule.
+     *
+     * @param result The rule the date breaks, or Result.OK.
+     * @param date   The date of birth.
+     * @return The message, or null for Result.OK.
+     */
+    private static String message(Operation.Result result, Date date) {
+        switch (result) {
+            case INVALID_DOB:
+                return "DOB invalid: " + date + " not a valid calendar date!";
+            case FUTURE_DOB:
+                return "DOB invalid: " + date + " cannot be today or a future day.";
+            default:
+                return null;
         }
-        return true;
     }
 
     /**
-     * Processes the 'W' command to withdraw money from an account.
+     * Decodes the 'W' command to withdraw money from an account.
      *
-     * @param tokenizer Tokenized input for easy data extraction.
+     * @param parser  Parser positioned after the command.
+     * @param command The command to fill in.
      */
-    private void withdrawMoney(StringTokenizer tokenizer) {
+    private void decodeWithdraw(CommandParser parser, Command command) {
         try {
             // Extract necessary information to identify the account and withdrawal amount.
-            String type = tokenizer.nextToken();
-            Profile profile = new Profile(tokenizer.nextToken(), tokenizer.nextToken(),
-                    new Date(tokenizer.nextToken()));
-            double amount = Double.parseDouble(tokenizer.nextToken());
-            if (amount <= 0) {
-                System.out.println("Withdraw - amount cannot be 0 or negative.");
+            String type = nextType(parser);
+            Profile profile = nextProfile(parser);
+            parser.next();
+            double amount = parser.parseDouble();
+            if (Money.toCents(amount) <= 0) {
+                command.reject("Withdraw - amount cannot be 0 or negative.");
                 return;
             }
-            Account account = createUpdateBalance(type, profile, amount);
-            // Attempt to withdraw the specified amount from the account.
-            if (accountDatabase.withdraw(account)) {
-                System.out.println(account.getHolder().getFname() + " " + account.getHolder().getLname() + " "
-                        + account.getHolder().getDob() + "(" + type + ") Withdraw - balance updated.");
-            } else if (account.getBalance() == Constants.NOT_FOUND) {
-                System.out.println(account.getHolder().getFname() + " " + account.getHolder().getLname() + " "
-                        + account.getHolder().getDob() + "(" + type + ") is not in the database.");
-            } else {
-                System.out.println(account.getHolder().getFname() + " " + account.getHolder().getLname() + " "
-                        + account.getHolder().getDob() + "(" + type + ") Withdraw - insufficient fund.");
-            }
+            command.set(Command.Kind.WITHDRAW, type, AccountType.fromCode(type).newAccount(profile, amount, 0));
         } catch (java.util.NoSuchElementException e) {
-            System.out.println("Missing data for withdrawal.");
+            command.reject("Missing data for withdrawal.");
         } catch (NumberFormatException e) {
-            System.out.println("Not a valid amount.");
+            command.reject("Not a valid amount.");
         }
     }
 }
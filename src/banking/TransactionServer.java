@@ -0,0 +1,153 @@
+package banking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the command line protocol on a local socket, so many front ends
+ * can submit transactions at once. Each connection is a session with its
+ * own TransactionManager and OutputSink, reading commands line by line and
+ * getting back the responses to its own commands only; every session works
+ * on the one shared store, which must be thread-safe. A Q command ends a
+ * session, not the server.
+ *
+ * Each session runs on a thread of its own that blocks on its socket. The
+ * threads come from one executor, so on a runtime with virtual threads
+ * newSessionExecutor() is the only place to change to run a virtual thread
+ * per session.
+ *
+ */
+public class TransactionServer implements Closeable {
+    private final AccountStore store;
+    private final DateClock clock;
+    private final ServerSocketChannel server;
+    private final ExecutorService sessions;
+    private final Path socketFile; // the Unix domain socket file, null for TCP
+
+    /**
+     * Opens a server on a local address.
+     *
+     * @param store   The thread-safe store every session works on.
+     * @param address The address to listen on: a loopback TCP address or a
+     *                Unix domain socket path.
+     * @throws IOException if the address cannot be bound.
+     */
+    public TransactionServer(AccountStore store, SocketAddress address) throws IOException {
+        this.store = store;
+        this.clock = DateClock.system();
+        if (address instanceof UnixDomainSocketAddress) {
+            this.socketFile = ((UnixDomainSocketAddress) address).getPath();
+            Files.deleteIfExists(socketFile);
+            this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            this.socketFile = null;
+            this.server = ServerSocketChannel.open();
+        }
+        this.server.bind(address, Constants.SERVER_BACKLOG);
+        this.sessions = newSessionExecutor();
+    }
+
+    /**
+     * Works out the address a command line option names. A number is a TCP
+     * port on the loopback interface; anything else is the path of a Unix
+     * domain socket.
+     *
+     * @param text The option value, such as "7000" or "/tmp/bank.sock".
+     * @return The address.
+     */
+    public static SocketAddress address(String text) {
+        if (text.chars().allMatch(Character::isDigit)) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(text));
+        }
+        return UnixDomainSocketAddress.of(text);
+    }
+
+    /**
+     * Creates the executor that runs sessions, one thread per session.
+     * Threads are daemons, so open sessions do not keep the program alive.
+     *
+     * @return The executor.
+     */
+    private static ExecutorService newSessionExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(null, task, "session-" + count.incrementAndGet(),
+                    Constants.SESSION_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the address the server listens on, with the port chosen if port
+     * 0 was asked for.
+     *
+     * @return The address.
+     * @throws IOException if the server is closed.
+     */
+    public SocketAddress getAddress() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    /**
+     * Accepts connections and starts a session for each until the server
+     * is closed.
+     *
+     * @throws IOException if a connection cannot be accepted.
+     */
+    public void serve() throws IOException {
+        while (true) {
+            SocketChannel client;
+            try {
+                client = server.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            }
+            sessions.execute(() -> session(client));
+        }
+    }
+
+    /**
+     * Runs one client's session until it quits or disconnects.
+     *
+     * @param client The client's connection.
+     */
+    private void session(SocketChannel client) {
+        try (client) {
+            OutputSink out = new OutputSink(Channels.newOutputStream(client), OutputSink.FlushPolicy.EVERY_COMMAND,
+                    Constants.SESSION_BUFFER_SIZE);
+            new TransactionManager(store, out, clock).runSession(client);
+        } catch (IOException | UncheckedIOException e) {
+            // The client went away; its session ends with it.
+        }
+    }
+
+    /**
+     * Stops accepting connections and ends every open session.
+     *
+     * @throws IOException if the server socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        sessions.shutdownNow();
+        if (socketFile != null) {
+            Files.deleteIfExists(socketFile);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package banking;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the TransactionServer class, focusing on sessions that share one
+ * store and each get the responses to their own commands.
+ *
+ */
+
+public class TransactionServerTest {
+    ConcurrentAccountDatabase store;
+    TransactionServer server;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Starts a server on a free loopback port before each test.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        store = new ConcurrentAccountDatabase();
+        server = new TransactionServer(store, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        start(server);
+    }
+
+    /**
+     * Stops the server after each test.
+     */
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Tests that two sessions work on the same store, that each gets only
+     * its own responses, and that Q ends a session but not the server.
+     */
+    @Test
+    @Timeout(10)
+    public void testSessionsShareTheStore() throws IOException {
+        try (SocketChannel first = SocketChannel.open(server.getAddress());
+                SocketChannel second = SocketChannel.open(server.getAddress())) {
+            BufferedReader firstIn = reader(first);
+            BufferedReader secondIn = reader(second);
+            Assertions.assertEquals("Transaction Manager is running.", firstIn.readLine());
+            Assertions.assertEquals("Transaction Manager is running.", secondIn.readLine());
+
+            send(first, "O C John Doe 1/1/1990 100");
+            Assertions.assertEquals("John Doe 1/1/1990(C) opened.", firstIn.readLine());
+            send(second, "D C John Doe 1/1/1990 50");
+            Assertions.assertEquals("John Doe 1/1/1990(C) Deposit - balance updated.", secondIn.readLine());
+            send(second, "Q");
+            Assertions.assertEquals("Transaction Manager is terminated.", secondIn.readLine());
+            Assertions.assertNull(secondIn.readLine(), "Expected Q to close the session.");
+
+            send(first, "W C John Doe 1/1/1990 25");
+            Assertions.assertEquals("John Doe 1/1/1990(C) Withdraw - balance updated.", firstIn.readLine());
+        }
+        try (SocketChannel third = SocketChannel.open(server.getAddress())) {
+            BufferedReader in = reader(third);
+            Assertions.assertEquals("Transaction Manager is running.", in.readLine());
+            send(third, "P");
+            Assertions.assertEquals("", in.readLine());
+            Assertions.assertEquals("*Accounts sorted by account type and profile.", in.readLine());
+            Assertions.assertEquals("Checking::John Doe 1/1/1990::Balance $125.00", in.readLine());
+            Assertions.assertEquals("*end of list.", in.readLine());
+        }
+    }
+
+    /**
+     * Tests that a server listens on a Unix domain socket given as a path.
+     */
+    @Test
+    @Timeout(10)
+    public void testUnixDomainSocket() throws IOException {
+        SocketAddress address = TransactionServer.address(directory.resolve("bank.sock").toString());
+        try (TransactionServer local = new TransactionServer(store, address)) {
+            start(local);
+            try (SocketChannel client = SocketChannel.open(local.getAddress())) {
+                BufferedReader in = reader(client);
+                Assertions.assertEquals("Transaction Manager is running.", in.readLine());
+                send(client, "D C Nobody Here 1/1/1990 5");
+                Assertions.assertEquals("Nobody Here 1/1/1990(C) is not in the database.", in.readLine());
+            }
+        }
+    }
+
+    /**
+     * Accepts connections on a daemon thread until the server is closed.
+     *
+     * @param server The server.
+     */
+    private static void start(TransactionServer server) {
+        Thread thread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                // The test fails on its own reads.
+            }
+        }, "server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Reads a client's responses line by line.
+     *
+     * @param client The client's connection.
+     * @return A reader over the responses.
+     */
+    private static BufferedReader reader(SocketChannel client) {
+        return new BufferedReader(new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends one command line.
+     *
+     * @param client The client's connection.
+     * @param line   The command, without its line end.
+     * @throws IOException if the line cannot be sent.
+     */
+    private static void send(SocketChannel client, String line) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            client.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,758 @@
+package banking;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe account store whose reports read a consistent snapshot
+ * while changes go on. Changes are applied one at a time under a lock and
+ * each one is stamped with the next value of a version clock. A report
+ * takes the lock only long enough to pin the current version, and then
+ * renders the accounts as they were at that version without the lock, so
+ * deposits, withdrawals, opens and closes are not held up by P, PI or UB.
+ *
+ * Every account is kept in a cell holding a chain of versions, newest
+ * first. While no report is pinned, a change updates the newest version in
+ * place and no history is kept. While a report is pinned, a change copies
+ * the account and adds the copy as a new version; a close adds an empty
+ * one. A newest version made after the latest pin is seen by no report,
+ * so it is replaced instead, and an account changed over and over during
+ * a report keeps at most one version for each pin. Versions that no
+ * pinned report can see are dropped as changes are made and as reports
+ * finish, and once none is pinned only the newest version of each account
+ * is left.
+ *
+ */
+public class VersionedAccountDatabase implements AccountStore {
+
+    /**
+     * The state of an account from one version of the store on.
+     */
+    private static final class Version {
+        private final long stamp; // the clock value of the change that made it
+        private final Account state; // the account at that version, or null once closed
+        private volatile Version older; // the version it replaced, while a report may need it
+
+        /**
+         * Creates a version.
+         *
+         * @param stamp The clock value of the change.
+         * @param state The account, or null for a close.
+         * @param older The version it replaces.
+         */
+        Version(long stamp, Account state, Version older) {
+            this.stamp = stamp;
+            this.state = state;
+            this.older = older;
+        }
+    }
+
+    /**
+     * The versions of one holder's account of one type.
+     */
+    private static final class Cell {
+        private final Account key; // the first account opened; its type and holder order the cell
+        private volatile Version head; // the newest version
+        private boolean retained; // listed for reclaiming; guarded by the lock
+
+        /**
+         * Creates a cell for a newly opened account.
+         *
+         * @param account The account.
+         * @param stamp   The clock value of the open.
+         */
+        Cell(Account account, long stamp) {
+            this.key = account;
+            this.head = new Version(stamp, account, null);
+        }
+
+        /**
+         * Finds the account as it was at a version.
+         *
+         * @param version The pinned version.
+         * @return The account, or null if it was not open then.
+         */
+        Account at(long version) {
+            Version v = head;
+            while (v != null && v.stamp > version) {
+                v = v.older;
+            }
+            return v == null ? null : v.state;
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock(); // serializes changes and pins
+    private final ConcurrentSkipListMap<Account, Cell> sorted; // cells ordered by type and profile
+    private final HashMap<ProfileKey, Cell[]> lookup; // cells of each holder, by type ordinal
+    private final TreeMap<Long, Integer> pins; // number of reports pinned at each version
+    private final ArrayList<Cell> retained; // cells that may hold versions older than their newest
+    private final AccountTotals totals; // running totals by type and campus
+    private long clock; // the stamp of the latest change
+    private int numAcct; // number of open accounts
+    private AccountStore.ChangeLog log; // receives every change, or null
+
+    /**
+     * Creates an empty store.
+     */
+    public VersionedAccountDatabase() {
+        this.sorted = new ConcurrentSkipListMap<>(AccountDatabase.TYPE_AND_PROFILE);
+        this.lookup = new HashMap<>();
+        this.pins = new TreeMap<>();
+        this.retained = new ArrayList<>();
+        this.totals = new AccountTotals();
+    }
+
+    /**
+     * Finds the cell of a holder's account of a type. The caller must hold
+     * the lock.
+     *
+     * @param holder The profile of the account holder.
+     * @param type   The type of the account.
+     * @return The cell, or null if the holder has never had such an account
+     *         or it has been reclaimed.
+     */
+    private Cell find(Profile holder, AccountType type) {
+        Cell[] cells = lookup.get(holder.getKey());
+        return cells == null ? null : cells[type.ordinal()];
+    }
+
+    /**
+     * Finds the open account of a holder of a type. The caller must hold
+     * the lock.
+     *
+     * @param holder The profile of the account holder.
+     * @param type   The type of the account.
+     * @return The newest version of the account, or null if it is not open.
+     */
+    private Account findOpen(Profile holder, AccountType type) {
+        Cell cell = find(holder, type);
+        return cell == null ? null : cell.head.state;
+    }
+
+    /**
+     * Copies an account, with its campus or loyalty code and a money
+     * market's withdrawal count.
+     *
+     * @param account The account to copy.
+     * @return The copy.
+     */
+    private static Account copyOf(Account account) {
+        Account copy = Operation.of(Operation.Kind.OPEN, account, account.getBalanceCents()).newAccount();
+        if (account.getType() == AccountType.MONEY_MARKET) {
+            ((MoneyMarket) copy).setWithdrawals(((MoneyMarket) account).getWithdrawals());
+        }
+        return copy;
+    }
+
+    /**
+     * Checks if no pinned report can see the newest version of a cell, so
+     * that a change may replace it. The caller must hold the lock.
+     *
+     * @param cell The cell.
+     * @return true if no report is pinned at or after the newest version.
+     */
+    private boolean unseen(Cell cell) {
+        return pins.isEmpty() || cell.head.stamp > pins.lastKey();
+    }
+
+    /**
+     * Gets the account a change may update: the newest version itself if no
+     * pinned report can see it, otherwise a copy of it, which the caller
+     * then publishes with publish(). The caller must hold the lock.
+     *
+     * @param cell The cell of an open account.
+     * @return The account to update.
+     */
+    private Account writable(Cell cell) {
+        return unseen(cell) ? cell.head.state : copyOf(cell.head.state);
+    }
+
+    /**
+     * Makes an updated account the newest version of its cell, unless it
+     * was updated in place, as one change. The caller must hold the lock.
+     *
+     * @param cell  The cell.
+     * @param state The updated account, or null for a close.
+     */
+    private void publish(Cell cell, Account state) {
+        clock++;
+        if (unseen(cell)) {
+            if (cell.head.state != state) {
+                cell.head = new Version(clock, state, cell.head.older);
+            }
+            if (state == null && !pins.isEmpty()) {
+                retain(cell); // forgotten once no report can see it open
+            }
+            return;
+        }
+        push(cell, state, clock);
+    }
+
+    /**
+     * Adds a version to a cell while a report is pinned, and drops the
+     * versions no pinned report can see. The caller must hold the lock.
+     *
+     * @param cell  The cell.
+     * @param state The updated account, or null for a close.
+     * @param stamp The clock value of the change.
+     */
+    private void push(Cell cell, Account state, long stamp) {
+        cell.head = new Version(stamp, state, cell.head);
+        prune(cell, pins.firstKey());
+        retain(cell);
+    }
+
+    /**
+     * Lists a cell for reclaiming when the next report finishes. The caller
+     * must hold the lock.
+     *
+     * @param cell The cell.
+     */
+    private void retain(Cell cell) {
+        if (!cell.retained) {
+            cell.retained = true;
+            retained.add(cell);
+        }
+    }
+
+    /**
+     * Drops the versions of a cell older than the one the oldest pinned
+     * report sees. A report pinned at a version stops at the first version
+     * stamped at or before it, so nothing past that is read again.
+     *
+     * @param cell   The cell.
+     * @param oldest The oldest pinned version.
+     */
+    private static void prune(Cell cell, long oldest) {
+        Version v = cell.head;
+        while (v != null && v.stamp > oldest) {
+            v = v.older;
+        }
+        if (v != null) {
+            v.older = null;
+        }
+    }
+
+    /**
+     * Removes a closed account's cell from the indexes. The caller must hold
+     * the lock, and no pinned report may still see the account.
+     *
+     * @param cell The cell of a closed account.
+     */
+    private void forget(Cell cell) {
+        sorted.remove(cell.key);
+        Cell[] cells = lookup.get(cell.key.getHolder().getKey());
+        cells[cell.key.getType().ordinal()] = null;
+        for (Cell other : cells) {
+            if (other != null) {
+                return;
+            }
+        }
+        lookup.remove(cell.key.getHolder().getKey());
+    }
+
+    /**
+     * Checks if the store contains a specific account. A holder may only
+     * have one of Checking and CollegeChecking, so a checking account is
+     * reported as present if the holder has either one.
+     *
+     * @param account The account to check.
+     * @return true if the account exists, false otherwise.
+     */
+    @Override
+    public boolean contains(Account account) {
+        lock.lock();
+        try {
+            return isOpen(account);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if the store contains a specific account. The caller must hold
+     * the lock.
+     *
+     * @param account The account to check.
+     * @return true if the account exists, false otherwise.
+     */
+    private boolean isOpen(Account account) {
+        if (account.getType().isChecking()) {
+            return findOpen(account.getHolder(), AccountType.CHECKING) != null
+                    || findOpen(account.getHolder(), AccountType.COLLEGE_CHECKING) != null;
+        }
+        return findOpen(account.getHolder(), account.getType()) != null;
+    }
+
+    /**
+     * Adds a new account to the store.
+     *
+     * @param account The account to be added.
+     * @return true if the account was added successfully, false if the store
+     *         already contains it.
+     */
+    @Override
+    public boolean open(Account account) {
+        lock.lock();
+        try {
+            if (isOpen(account)) {
+                return false;
+            }
+            Cell cell = find(account.getHolder(), account.getType());
+            if (cell != null) {
+                // Reopened while a report may still see it closed.
+                publish(cell, account);
+            } else {
+                cell = new Cell(account, ++clock);
+                Cell[] cells = lookup.get(account.getHolder().getKey());
+                if (cells == null) {
+                    cells = new Cell[Constants.ACCOUNT_TYPES];
+                    lookup.put(account.getHolder().getKey(), cells);
+                }
+                cells[account.getType().ordinal()] = cell;
+                sorted.put(account, cell);
+            }
+            totals.add(account);
+            numAcct++;
+            record(Operation.Kind.OPEN, account, account.getBalanceCents());
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a specific account from the store.
+     *
+     * @param account The account to be removed.
+     * @return true if the account was removed successfully, false otherwise.
+     */
+    @Override
+    public boolean close(Account account) {
+        lock.lock();
+        try {
+            Cell cell = find(account.getHolder(), account.getType());
+            if (cell == null || cell.head.state == null) {
+                return false;
+            }
+            totals.remove(cell.head.state);
+            numAcct--;
+            if (pins.isEmpty()) {
+                clock++;
+                forget(cell);
+            } else {
+                publish(cell, null);
+            }
+            record(Operation.Kind.CLOSE, account, 0);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Processes a withdrawal operation on a specific account.
+     *
+     * @param account The account from which to withdraw. The balance of this
+     *                account object represents the amount to be withdrawn.
+     * @return true if the withdrawal was successful, false otherwise.
+     */
+    @Override
+    public boolean withdraw(Account account) {
+        lock.lock();
+        try {
+            Cell cell = find(account.getHolder(), account.getType());
+            if (cell == null || cell.head.state == null) {
+                account.setBalance(Constants.NOT_FOUND);
+                return false; // Account not found
+            }
+            long cents = account.getBalanceCents();
+            Account stored = writable(cell);
+            totals.remove(stored);
+            boolean withdrawn = stored.withdraw(cents);
+            totals.add(stored);
+            if (withdrawn) {
+                publish(cell, stored);
+                record(Operation.Kind.WITHDRAW, account, cents);
+            }
+            return withdrawn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Processes a deposit operation on a specific account.
+     *
+     * @param account The account in which to deposit. The balance of this
+     *                account object represents the amount to be deposited.
+     * @return true if the account was found, false otherwise.
+     */
+    @Override
+    public boolean deposit(Account account) {
+        lock.lock();
+        try {
+            Cell cell = find(account.getHolder(), account.getType());
+            if (cell == null || cell.head.state == null) {
+                return false;
+            }
+            long cents = account.getBalanceCents();
+            Account stored = writable(cell);
+            totals.remove(stored);
+            stored.deposit(cents);
+            totals.add(stored);
+            publish(cell, stored);
+            account.setBalance(Constants.ACCOUNT_FOUND);
+            record(Operation.Kind.DEPOSIT, account, cents);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pins the current version for a report. The caller must hold the lock.
+     *
+     * @return The pinned version.
+     */
+    private long pin() {
+        pins.merge(clock, 1, Integer::sum);
+        return clock;
+    }
+
+    /**
+     * Releases a report's pin and reclaims the versions no remaining report
+     * can see, including closed accounts' cells.
+     *
+     * @param version The version the report pinned.
+     */
+    void unpin(long version) {
+        lock.lock();
+        try {
+            if (pins.merge(version, -1, Integer::sum) == 0) {
+                pins.remove(version);
+            }
+            long oldest = pins.isEmpty() ? clock : pins.firstKey();
+            int kept = 0;
+            for (Cell cell : retained) {
+                prune(cell, oldest);
+                if (cell.head.older != null) {
+                    retained.set(kept++, cell);
+                } else {
+                    cell.retained = false;
+                    if (cell.head.state == null) {
+                        forget(cell);
+                    }
+                }
+            }
+            retained.subList(kept, retained.size()).clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Renders a report over the accounts as they were at a pinned version,
+     * and releases the pin.
+     *
+     * @param report  The report to render.
+     * @param version The pinned version.
+     * @param out     The sink to print to.
+     */
+    private void render(ReportRenderer.Report report, long version, OutputSink out) {
+        try {
+            ReportRenderer.render(report, () -> new SnapshotIterator(version), out);
+        } finally {
+            unpin(version);
+        }
+    }
+
+    /**
+     * Walks the cells in report order and returns each account as it was at
+     * a version. Cells opened later are passed over, and cells only removed
+     * once no pinned report could see them, so the walk sees exactly the
+     * accounts open at the version.
+     */
+    private final class SnapshotIterator implements Iterator<Account> {
+        private final Iterator<Cell> cells = sorted.values().iterator();
+        private final long version;
+        private Account next;
+
+        /**
+         * Creates an iterator over a version.
+         *
+         * @param version The pinned version.
+         */
+        SnapshotIterator(long version) {
+            this.version = version;
+            advance();
+        }
+
+        /**
+         * Moves to the next account open at the version.
+         */
+        private void advance() {
+            next = null;
+            while (next == null && cells.hasNext()) {
+                next = cells.next().at(version);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Account next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Account account = next;
+            advance();
+            return account;
+        }
+    }
+
+    /**
+     * Prints the sorted list of accounts, as they were when the report
+     * started.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printSorted(OutputSink out) {
+        lock.lock();
+        long version;
+        try {
+            version = pin();
+        } finally {
+            lock.unlock();
+        }
+        render(ReportRenderer.Report.SORTED, version, out);
+    }
+
+    /**
+     * Prints detailed account information including fees and monthly
+     * interests, as they were when the report started.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printFeesAndInterests(OutputSink out) {
+        lock.lock();
+        long version;
+        try {
+            version = pin();
+        } finally {
+            lock.unlock();
+        }
+        render(ReportRenderer.Report.FEES_AND_INTERESTS, version, out);
+    }
+
+    /**
+     * Prints the totals of each account type and campus, copied from the
+     * running totals under the lock.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printSummary(OutputSink out) {
+        AccountTotals copy = new AccountTotals();
+        int count;
+        lock.lock();
+        try {
+            copy.add(totals);
+            count = numAcct;
+        } finally {
+            lock.unlock();
+        }
+        if (count == 0) {
+            ReportRenderer.empty(out);
+        } else {
+            copy.print(out);
+        }
+    }
+
+    /**
+     * Records a change in the change log, if one is set. The caller must
+     * hold the lock.
+     *
+     * @param kind    The kind of change.
+     * @param account The account changed.
+     * @param amount  The amount in cents.
+     */
+    private void record(Operation.Kind kind, Account account, long amount) {
+        if (log != null) {
+            log.append(kind, account, amount);
+        }
+    }
+
+    /**
+     * Sets the log that receives every change from now on.
+     *
+     * @param log The change log.
+     */
+    @Override
+    public void setChangeLog(AccountStore.ChangeLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Posts the month end for every open account as one change, and records
+     * it. The caller must hold the lock.
+     */
+    private void post() {
+        totals.clear();
+        for (Cell cell : sorted.values()) {
+            Account state = cell.head.state;
+            if (state == null) {
+                continue;
+            }
+            boolean copying = !unseen(cell);
+            Account stored = copying ? copyOf(state) : state;
+            MonthEnd.post(stored);
+            totals.add(stored);
+            if (copying) {
+                push(cell, stored, clock + 1);
+            }
+        }
+        clock++;
+        if (log != null) {
+            log.appendMonthEnd();
+        }
+    }
+
+    /**
+     * Posts the month end for every account.
+     */
+    @Override
+    public void postMonthEnd() {
+        lock.lock();
+        try {
+            post();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Posts the month end and prints the accounts with their new balances.
+     * The posting holds the lock, as it changes every account; the report
+     * then reads the posted version without it.
+     *
+     * @param out The sink to print to.
+     */
+    @Override
+    public void printUpdatedBalances(OutputSink out) {
+        printUpdatedBalances(postAndPin(), out);
+    }
+
+    /**
+     * Posts the month end and pins the posted version, so that the UB report
+     * reads it without the lock whenever it is printed. Closing the report
+     * unprinted releases the pin.
+     *
+     * @return The report, to print and close.
+     */
+    @Override
+    public PostedReport postUpdatedBalances() {
+        return new PinnedReport(postAndPin());
+    }
+
+    /**
+     * A UB report over a version pinned by postAndPin().
+     */
+    private final class PinnedReport implements PostedReport {
+        private final long version; // the pinned version
+        private boolean released; // true once the pin is released
+
+        /**
+         * Creates the report of a pinned version.
+         *
+         * @param version The pinned version.
+         */
+        PinnedReport(long version) {
+            this.version = version;
+        }
+
+        /**
+         * Prints the accounts as they were at the pinned version, and
+         * releases the pin.
+         *
+         * @param out The sink to print to.
+         */
+        @Override
+        public void print(OutputSink out) {
+            released = true;
+            printUpdatedBalances(version, out);
+        }
+
+        /**
+         * Releases the pin if the report was not printed.
+         */
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                unpin(version);
+            }
+        }
+    }
+
+    /**
+     * Posts the month end, if any account is open, and pins the posted
+     * version for the UB report. The pin must be released by
+     * printUpdatedBalances(long, OutputSink) or unpin().
+     *
+     * @return The pinned version.
+     */
+    long postAndPin() {
+        lock.lock();
+        try {
+            if (numAcct > 0) {
+                post();
+            }
+            return pin();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Prints the accounts as they were at a version pinned by postAndPin(),
+     * and releases the pin.
+     *
+     * @param version The pinned version.
+     * @param out     The sink to print to.
+     */
+    void printUpdatedBalances(long version, OutputSink out) {
+        render(ReportRenderer.Report.UPDATED_BALANCES, version, out);
+    }
+
+    /**
+     * Returns the number of versions kept beyond the newest one of each
+     * account, for checking that they are reclaimed.
+     *
+     * @return The number of older versions.
+     */
+    int retainedVersions() {
+        lock.lock();
+        try {
+            int count = 0;
+            for (Cell cell : retained) {
+                for (Version v = cell.head.older; v != null; v = v.older) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
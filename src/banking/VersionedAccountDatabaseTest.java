@@ -0,0 +1,176 @@
+package banking;
+
+import java.io.ByteArrayOutputStream;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Tests the VersionedAccountDatabase class, focusing on the versions kept
+ * for reports that are pinned while changes go on.
+ *
+ */
+
+public class VersionedAccountDatabaseTest {
+    private static final Date DOB = new Date("1/1/1990");
+    private static final int HOLDERS = 6;
+
+    /**
+     * Tests that an account changed many times while a report is pinned
+     * keeps one version for the report and replaces its newest one, and
+     * that nothing is kept once the report is released.
+     */
+    @Test
+    public void testHotAccountKeepsOneVersionPerPin() {
+        VersionedAccountDatabase db = new VersionedAccountDatabase();
+        Profile jane = new Profile("Jane", "Doe", new Date("10/1/1995"));
+        db.open(new Checking(jane, 100));
+        long version = db.postAndPin();
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertTrue(db.deposit(new Checking(jane, 1)), "Expected the deposit to succeed.");
+        }
+        Assertions.assertEquals(1, db.retainedVersions(), "Expected one version kept for the pinned report.");
+        long second = db.postAndPin();
+        db.deposit(new Checking(jane, 1));
+        db.close(new Checking(jane, 0));
+        Assertions.assertEquals(2, db.retainedVersions(), "Expected one version kept for each pin.");
+        db.unpin(version);
+        db.unpin(second);
+        Assertions.assertEquals(0, db.retainedVersions(), "Expected every old version to be reclaimed.");
+        Assertions.assertFalse(db.contains(new Checking(jane, 0)), "Expected the account to stay closed.");
+    }
+
+    /**
+     * Tests that a UB report pinned before deposits, withdrawals, closes and
+     * reopens prints the accounts as they were when it was pinned, that the
+     * store then shows every change, and that no version is kept after.
+     */
+    @Test
+    public void testPinnedReportIgnoresLaterChanges() {
+        VersionedAccountDatabase db = new VersionedAccountDatabase();
+        AccountDatabase plain = new AccountDatabase();
+        fill(db);
+        fill(plain);
+        long version = db.postAndPin();
+        String expected = print(plain, AccountStore::printUpdatedBalances);
+        change(db, 50);
+        change(plain, 50);
+        Assertions.assertTrue(db.retainedVersions() > 0, "Expected versions kept for the pinned report.");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputSink out = new OutputSink(bytes);
+        db.printUpdatedBalances(version, out);
+        out.flush();
+        Assertions.assertEquals(expected, bytes.toString(), "Expected the report to show the pinned version.");
+        Assertions.assertEquals(0, db.retainedVersions(), "Expected every old version to be reclaimed.");
+        Assertions.assertEquals(print(plain, AccountStore::printSorted), print(db, AccountStore::printSorted),
+                "Expected the store to show every change.");
+    }
+
+    /**
+     * Tests that a posted UB report closed without being printed releases
+     * its pin, and that one printed later shows the posted balances.
+     */
+    @Test
+    public void testPostedReportReleasesItsPin() {
+        VersionedAccountDatabase db = new VersionedAccountDatabase();
+        AccountDatabase plain = new AccountDatabase();
+        fill(db);
+        fill(plain);
+        try (AccountStore.PostedReport report = db.postUpdatedBalances()) {
+            change(db, 50);
+            Assertions.assertTrue(db.retainedVersions() > 0, "Expected versions kept for the posted report.");
+        }
+        Assertions.assertEquals(0, db.retainedVersions(), "Expected closing the report to release its pin.");
+        plain.postMonthEnd();
+        change(plain, 50);
+        String expected = print(plain, AccountStore::printUpdatedBalances);
+        try (AccountStore.PostedReport report = db.postUpdatedBalances()) {
+            change(db, 5);
+            Assertions.assertEquals(expected, print(db, (store, out) -> report.print(out)),
+                    "Expected the report to show the posted balances.");
+        }
+        Assertions.assertEquals(0, db.retainedVersions(), "Expected every old version to be reclaimed.");
+    }
+
+    /**
+     * Tests that reports printed over and over while another thread makes
+     * changes leave no versions behind, and that the store ends up as if
+     * the changes were made with no reports.
+     */
+    @Test
+    @Timeout(30)
+    public void testReportsDuringChanges() throws InterruptedException {
+        VersionedAccountDatabase db = new VersionedAccountDatabase();
+        AccountDatabase plain = new AccountDatabase();
+        fill(db);
+        fill(plain);
+        Thread writer = new Thread(() -> change(db, 2000), "writer");
+        writer.start();
+        while (writer.isAlive()) {
+            String report = print(db, AccountStore::printSorted);
+            Assertions.assertTrue(report.contains("*end of list."), "Expected a whole report.");
+        }
+        writer.join();
+        change(plain, 2000);
+        Assertions.assertEquals(0, db.retainedVersions(), "Expected every old version to be reclaimed.");
+        Assertions.assertEquals(print(plain, AccountStore::printSorted), print(db, AccountStore::printSorted));
+        Assertions.assertEquals(print(plain, AccountStore::printSummary), print(db, AccountStore::printSummary));
+    }
+
+    /**
+     * Opens a checking account for every holder and a savings account for
+     * half of them.
+     *
+     * @param store The store to fill.
+     */
+    private static void fill(AccountStore store) {
+        for (int i = 0; i < HOLDERS; i++) {
+            Profile holder = new Profile("First" + i, "Doe", DOB);
+            store.open(new Checking(holder, 100 + 10 * i));
+            if (i % 2 == 0) {
+                store.open(new Savings(holder, 500, 1));
+            }
+        }
+    }
+
+    /**
+     * Makes the same rounds of changes to a store filled by fill(): deposits
+     * and withdrawals, a close and reopen now and then, and new holders
+     * opening and closing accounts.
+     *
+     * @param store  The store.
+     * @param rounds The number of rounds.
+     */
+    private static void change(AccountStore store, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            Profile holder = new Profile("First" + round % HOLDERS, "Doe", DOB);
+            store.deposit(new Checking(holder, 1.25));
+            store.withdraw(new Savings(holder, 0.5, 0));
+            if (round % 10 == 0) {
+                store.close(new Checking(holder, 0));
+                store.open(new Checking(holder, 42));
+            }
+            Profile late = new Profile("Late" + round % 7, "Doe", DOB);
+            if (!store.open(new Checking(late, 10))) {
+                store.close(new Checking(late, 0));
+            }
+        }
+    }
+
+    /**
+     * Prints a report of a store.
+     *
+     * @param store  The store.
+     * @param report The report to print.
+     * @return The printed report.
+     */
+    private static String print(AccountStore store, BiConsumer<AccountStore, OutputSink> report) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputSink out = new OutputSink(bytes);
+        report.accept(store, out);
+        out.flush();
+        return bytes.toString();
+    }
+}